@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Сравнение пропускной способности и задержек при обработке запросов пулом потоков платформы
+# и виртуальными потоками на одной и той же смешанной нагрузке (loadtest/mixed-workload.js).
+#
+# Требуются Java 21, k6 и запущенный PostgreSQL (docker-compose up -d postgres).
+# Пример: VUS=400 DURATION=3m DB_POOL_SIZE=10 ./loadtest/compare.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT="${PORT:-8080}"
+BASE_URL="http://localhost:${PORT}"
+mkdir -p loadtest/results
+
+./gradlew bootJar --no-daemon -q
+JAR="$(ls build/libs/*.jar | grep -v plain | head -n 1)"
+
+run() {
+    local mode="$1" virtual="$2"
+    echo "=== ${mode}: VIRTUAL_THREADS_ENABLED=${virtual} ==="
+    VIRTUAL_THREADS_ENABLED="${virtual}" java -jar "${JAR}" \
+        --server.port="${PORT}" \
+        --spring.jpa.show-sql=false \
+        --logging.level.com.example.cartridgeaccounting=WARN \
+        --logging.level.org.springframework.security=WARN \
+        --logging.level.org.hibernate.SQL=WARN \
+        --logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN \
+        > "loadtest/results/${mode}-app.log" 2>&1 &
+    local pid=$!
+    trap "kill ${pid} 2>/dev/null || true" EXIT
+
+    # Любой HTTP-ответ означает, что приложение запустилось
+    until curl -s -o /dev/null "${BASE_URL}/"; do
+        kill -0 "${pid}" 2>/dev/null || { echo "Приложение не запустилось, см. loadtest/results/${mode}-app.log"; exit 1; }
+        sleep 1
+    done
+
+    k6 run --quiet -e BASE_URL="${BASE_URL}" -e MODE="${mode}" loadtest/mixed-workload.js
+
+    kill "${pid}"
+    wait "${pid}" 2>/dev/null || true
+    trap - EXIT
+}
+
+run platform false
+run virtual true
+
+echo "Полные отчёты k6: loadtest/results/platform.json, loadtest/results/virtual.json"
@@ -0,0 +1,130 @@
+// Смешанная нагрузка на API картриджей и операций для сравнения пула потоков платформы и виртуальных потоков.
+//
+// Запуск: k6 run -e BASE_URL=http://localhost:8080 -e MODE=platform loadtest/mixed-workload.js
+// Параметры (переменные окружения):
+//   BASE_URL     - адрес приложения (по умолчанию http://localhost:8080)
+//   USERNAME, PASSWORD - учётная запись с ролью ADMIN или WAREHOUSE_MANAGER (по умолчанию admin/admin123)
+//   VUS          - число виртуальных пользователей (по умолчанию 200)
+//   DURATION     - длительность замера (по умолчанию 2m)
+//   WRITE_RATIO  - доля запросов на запись операций (по умолчанию 0.2)
+//   MODE         - метка режима в имени файла отчёта (platform / virtual)
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend, Rate } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '200', 10);
+const WRITE_RATIO = parseFloat(__ENV.WRITE_RATIO || '0.2');
+const MODE = __ENV.MODE || 'run';
+
+const readLatency = new Trend('read_latency', true);
+const writeLatency = new Trend('write_latency', true);
+const writeRejected = new Rate('write_rejected');
+
+export const options = {
+    scenarios: {
+        mixed: {
+            executor: 'constant-vus',
+            vus: VUS,
+            duration: __ENV.DURATION || '2m',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+function headers(token) {
+    return { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${token}` } };
+}
+
+// Один объект и по картриджу на каждого виртуального пользователя: операции выдачи и возврата
+// одного пользователя не конфликтуют с другими, как у разных складских работников
+export function setup() {
+    const login = http.post(`${BASE_URL}/api/auth/login`, JSON.stringify({
+        username: __ENV.USERNAME || 'admin',
+        password: __ENV.PASSWORD || 'admin123',
+    }), { headers: { 'Content-Type': 'application/json' } });
+    check(login, { 'login 200': (r) => r.status === 200 });
+    const token = login.json('accessToken');
+
+    const run = Date.now();
+    const location = http.post(`${BASE_URL}/api/locations`, JSON.stringify({
+        name: `Нагрузочный тест ${run}`,
+        address: 'loadtest',
+    }), headers(token)).json('id');
+
+    const cartridges = [];
+    for (let i = 0; i < VUS; i++) {
+        const response = http.post(`${BASE_URL}/api/cartridges`, JSON.stringify({
+            model: 'LOADTEST',
+            serialNumber: `LT-${run}-${i}`,
+            resourcePages: 2000,
+        }), headers(token));
+        cartridges.push(response.json('id'));
+    }
+    return { token, location, cartridges };
+}
+
+export default function (data) {
+    const params = headers(data.token);
+    if (Math.random() < WRITE_RATIO) {
+        write(data, params);
+    } else {
+        read(data, params);
+    }
+}
+
+// Состояние картриджа пользователя известно локально: выдача и возврат чередуются
+let issued = false;
+
+function write(data, params) {
+    const cartridgeId = data.cartridges[(__VU - 1) % data.cartridges.length];
+    const response = http.post(`${BASE_URL}/api/operations`, JSON.stringify({
+        type: issued ? 'RETURN' : 'ISSUE',
+        count: 1,
+        cartridgeId,
+        locationId: data.location,
+    }), params);
+    writeLatency.add(response.timings.duration);
+    writeRejected.add(response.status !== 201 && response.status !== 200);
+    if (response.status === 201 || response.status === 200) {
+        issued = !issued;
+    }
+}
+
+function read(data, params) {
+    const choice = Math.random();
+    let response;
+    if (choice < 0.35) {
+        response = http.get(`${BASE_URL}/api/cartridges?page=0&size=20`, params);
+    } else if (choice < 0.6) {
+        response = http.get(`${BASE_URL}/api/operations/journal?size=50`, params);
+    } else if (choice < 0.8) {
+        const cartridgeId = data.cartridges[Math.floor(Math.random() * data.cartridges.length)];
+        response = http.get(`${BASE_URL}/api/operations/cartridge/${cartridgeId}?page=0&size=20`, params);
+    } else {
+        response = http.get(`${BASE_URL}/api/cartridges/stock-summary`, params);
+    }
+    readLatency.add(response.timings.duration);
+    check(response, { 'read 200': (r) => r.status === 200 });
+}
+
+export function handleSummary(data) {
+    const metric = (name, stat) => (data.metrics[name] ? data.metrics[name].values[stat] : undefined);
+    const report = {
+        mode: MODE,
+        vus: VUS,
+        requestsPerSecond: metric('http_reqs', 'rate'),
+        failedRate: metric('http_req_failed', 'rate'),
+        readP50: metric('read_latency', 'med'),
+        readP95: metric('read_latency', 'p(95)'),
+        writeP50: metric('write_latency', 'med'),
+        writeP95: metric('write_latency', 'p(95)'),
+        writeRejectedRate: metric('write_rejected', 'rate'),
+    };
+    return {
+        stdout: JSON.stringify(report, null, 2) + '\n',
+        [`loadtest/results/${MODE}.json`]: JSON.stringify(data, null, 2),
+    };
+}
@@ -0,0 +1,59 @@
+package com.example.cartridgeaccounting.benchmark;
+
+import com.example.cartridgeaccounting.security.CachingAuthenticationProvider;
+import com.example.cartridgeaccounting.security.JwtService;
+import com.example.cartridgeaccounting.service.CustomUserDetailsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+/**
+ * Бенчмарк пути аутентификации: полная проверка HTTP Basic (запрос пользователя и BCrypt),
+ * повторная проверка через кэш проверенных учётных данных и проверка JWT.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@State(Scope.Thread)
+public class AuthenticationBenchmark {
+    
+    private DaoAuthenticationProvider daoProvider;
+    private CachingAuthenticationProvider cachingProvider;
+    private JwtService jwtService;
+    private String token;
+    
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        daoProvider = new DaoAuthenticationProvider(context.getBean(PasswordEncoder.class));
+        daoProvider.setUserDetailsService(context.getBean(CustomUserDetailsService.class));
+        cachingProvider = context.getBean(CachingAuthenticationProvider.class);
+        jwtService = context.getBean(JwtService.class);
+        token = jwtService.generateToken(cachingProvider.authenticate(credentials()));
+    }
+    
+    @Benchmark
+    public Authentication basicUncached() {
+        return daoProvider.authenticate(credentials());
+    }
+    
+    @Benchmark
+    public Authentication basicCached() {
+        return cachingProvider.authenticate(credentials());
+    }
+    
+    @Benchmark
+    public Optional<Authentication> bearerToken() {
+        return jwtService.parseToken(token);
+    }
+    
+    private UsernamePasswordAuthenticationToken credentials() {
+        return UsernamePasswordAuthenticationToken.unauthenticated(BenchmarkContext.USERNAME, BenchmarkContext.PASSWORD);
+    }
+}
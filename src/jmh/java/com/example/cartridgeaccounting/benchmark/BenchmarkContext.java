@@ -0,0 +1,122 @@
+package com.example.cartridgeaccounting.benchmark;
+
+import com.example.cartridgeaccounting.CartridgeAccountingApplication;
+import com.example.cartridgeaccounting.entity.Cartridge;
+import com.example.cartridgeaccounting.entity.Location;
+import com.example.cartridgeaccounting.entity.User;
+import com.example.cartridgeaccounting.entity.enums.UserRole;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.repository.UserRepository;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Общее окружение бенчмарков: контекст приложения на встроенной H2 с тестовыми данными.
+ * Liquibase отключён (миграции рассчитаны на PostgreSQL), схема создаётся Hibernate.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+    
+    public static final String USERNAME = "benchmark";
+    public static final String PASSWORD = "benchmark123";
+    public static final int CARTRIDGE_COUNT = 10_000;
+    public static final int LOCATION_COUNT = 50;
+    
+    /**
+     * Передаются как аргументы командной строки, чтобы перекрыть application.yml
+     * (в том числе отладочные уровни логирования, которые исказили бы замеры)
+     */
+    private static final String[] ARGUMENTS = {
+            "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.liquibase.enabled=false",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.jpa.show-sql=false",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--logging.level.root=WARN",
+            "--logging.level.com.example.cartridgeaccounting=WARN",
+            "--logging.level.org.hibernate.SQL=WARN",
+            "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+            "--logging.level.org.springframework.security=WARN"
+    };
+    
+    private ConfigurableApplicationContext context;
+    private final List<UUID> cartridgeIds = new ArrayList<>();
+    private final List<UUID> locationIds = new ArrayList<>();
+    
+    @Setup
+    public void start() {
+        SpringApplication application = new SpringApplication(CartridgeAccountingApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run(ARGUMENTS);
+        
+        // Аналог функции similarity() из pg_trgm для ранжированного поиска
+        context.getBean(JdbcTemplate.class).execute("CREATE ALIAS IF NOT EXISTS similarity FOR '"
+                + H2Functions.class.getName() + ".similarity'");
+        seed();
+    }
+    
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+    
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+    
+    public List<UUID> getCartridgeIds() {
+        return cartridgeIds;
+    }
+    
+    public List<UUID> getLocationIds() {
+        return locationIds;
+    }
+    
+    private void seed() {
+        User user = new User();
+        user.setUsername(USERNAME);
+        user.setPassword(getBean(PasswordEncoder.class).encode(PASSWORD));
+        user.setFullName("Benchmark");
+        user.setRole(UserRole.ADMIN);
+        getBean(UserRepository.class).save(user);
+        
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < LOCATION_COUNT; i++) {
+            Location location = new Location();
+            location.setName("Объект " + i);
+            location.setAddress("Адрес " + i);
+            location.setActive(true);
+            locations.add(location);
+        }
+        getBean(LocationRepository.class).saveAll(locations).forEach(location -> locationIds.add(location.getId()));
+        
+        String[] models = {"HP CF259A", "HP CE285A", "Canon 725", "Kyocera TK-1170", "Brother TN-2375"};
+        List<Cartridge> cartridges = new ArrayList<>();
+        for (int i = 0; i < CARTRIDGE_COUNT; i++) {
+            Cartridge cartridge = new Cartridge();
+            cartridge.setModel(models[i % models.length]);
+            cartridge.setSerialNumber(String.format("SN-%06d", i));
+            cartridge.setResourcePages(1600);
+            cartridges.add(cartridge);
+        }
+        getBean(CartridgeRepository.class).saveAll(cartridges).forEach(cartridge -> cartridgeIds.add(cartridge.getId()));
+    }
+}
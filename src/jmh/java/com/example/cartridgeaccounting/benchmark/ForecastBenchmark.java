@@ -0,0 +1,100 @@
+package com.example.cartridgeaccounting.benchmark;
+
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.service.ConsumptionTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Бенчмарк прогноза расхода на 10 млн синтетических операций за год
+ * (500 объектов × 40 моделей, каждая восьмая операция — заправка).
+ * Контекст Spring не нужен: измеряется {@link ConsumptionTracker} —
+ * полный проход по истории, учёт одной новой операции и расчёт скоростей по всем парам.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class ForecastBenchmark {
+    
+    private static final int OPERATIONS = 10_000_000;
+    private static final int LOCATIONS = 500;
+    private static final int MODELS = 40;
+    private static final Duration HALF_LIFE = Duration.ofDays(30);
+    private static final long HISTORY_MILLIS = Duration.ofDays(365).toMillis();
+    
+    private final UUID[] locations = new UUID[LOCATIONS];
+    private final String[] models = new String[MODELS];
+    private final Integer[] resourcePages = new Integer[MODELS];
+    private long startMillis;
+    private ConsumptionTracker tracker;
+    
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < LOCATIONS; i++) {
+            locations[i] = UUID.randomUUID();
+        }
+        for (int i = 0; i < MODELS; i++) {
+            models[i] = "Model " + i;
+            resourcePages[i] = 1000 + i * 250;
+        }
+        startMillis = System.currentTimeMillis() - HISTORY_MILLIS;
+        tracker = replay(new ConsumptionTracker(HALF_LIFE));
+    }
+    
+    /**
+     * Полный проход по 10 млн операций (построение при запуске и периодический пересчёт)
+     */
+    @Benchmark
+    public ConsumptionTracker replayHistory() {
+        return replay(new ConsumptionTracker(HALF_LIFE));
+    }
+    
+    /**
+     * Учёт одной новой операции трекером с историей из 10 млн операций
+     */
+    @Benchmark
+    public void recordOperation(Cursor cursor) {
+        long value = cursor.random.nextLong();
+        int model = Math.floorMod(value >>> 32, MODELS);
+        tracker.record(locations[Math.floorMod(value, LOCATIONS)], models[model], resourcePages[model],
+                OperationType.ISSUE, 1, System.currentTimeMillis());
+    }
+    
+    /**
+     * Расчёт скоростей расхода по всем 20 000 парам "объект × модель"
+     */
+    @Benchmark
+    public List<ConsumptionTracker.Rate> rates() {
+        return tracker.rates(System.currentTimeMillis());
+    }
+    
+    private ConsumptionTracker replay(ConsumptionTracker target) {
+        SplittableRandom random = new SplittableRandom(42);
+        long step = HISTORY_MILLIS / OPERATIONS;
+        for (int i = 0; i < OPERATIONS; i++) {
+            long value = random.nextLong();
+            int model = Math.floorMod(value >>> 32, MODELS);
+            OperationType type = (value & 7) == 0 ? OperationType.REFILL : OperationType.ISSUE;
+            target.record(locations[Math.floorMod(value >>> 8, LOCATIONS)], models[model], resourcePages[model],
+                    type, 1, startMillis + i * step);
+        }
+        return target;
+    }
+    
+    /**
+     * Генератор операций потока бенчмарка
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        
+        private final SplittableRandom random = new SplittableRandom();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.cartridgeaccounting.benchmark;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Пользовательские функции H2, заменяющие функции расширений PostgreSQL в бенчмарках.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public final class H2Functions {
+    
+    private H2Functions() {
+    }
+    
+    /**
+     * Триграммная похожесть строк по аналогии с pg_trgm: доля общих триграмм
+     * 
+     * @param left первая строка
+     * @param right вторая строка
+     * @return похожесть от 0 до 1 или null, если одна из строк не задана
+     */
+    public static Double similarity(String left, String right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        Set<String> leftTrigrams = trigrams(left);
+        Set<String> rightTrigrams = trigrams(right);
+        int total = leftTrigrams.size() + rightTrigrams.size();
+        leftTrigrams.retainAll(rightTrigrams);
+        int common = leftTrigrams.size();
+        return total == common ? 0.0 : (double) common / (total - common);
+    }
+    
+    private static Set<String> trigrams(String value) {
+        Set<String> result = new HashSet<>();
+        for (String word : value.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                result.add(padded.substring(i, i + 3));
+            }
+        }
+        return result;
+    }
+}
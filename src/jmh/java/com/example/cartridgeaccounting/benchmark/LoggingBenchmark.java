@@ -0,0 +1,128 @@
+package com.example.cartridgeaccounting.benchmark;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.core.joran.spi.JoranException;
+import com.example.cartridgeaccounting.logging.LogSampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Бенчмарк стоимости журналирования на пути создания операции (8 потоков пишут одновременно, запись в файл).
+ * Сравниваются:
+ * <ul>
+ *     <li>{@code SYNC_TEXT} — прежнее поведение: две записи INFO на операцию, синхронный текстовый вывод;</li>
+ *     <li>{@code ASYNC_JSON} — те же две записи через асинхронный буфер в JSON (профиль prod);</li>
+ *     <li>{@code ASYNC_JSON_SAMPLED} — профиль prod с текущим кодом: подробная запись на уровне DEBUG
+ *     (отключена), запись о созданной операции — не больше 10 в секунду.</li>
+ * </ul>
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+public class LoggingBenchmark {
+    
+    private static final String SYNC_TEXT_CONFIG = """
+            <configuration>
+                <appender name="FILE" class="ch.qos.logback.core.FileAppender">
+                    <file>${LOG_FILE}</file>
+                    <encoder>
+                        <pattern>%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%X{requestId:-}] --- [%15.15t] %-40.40logger{39} : %m%n</pattern>
+                    </encoder>
+                </appender>
+                <root level="INFO"><appender-ref ref="FILE"/></root>
+            </configuration>
+            """;
+    
+    private static final String ASYNC_JSON_CONFIG = """
+            <configuration>
+                <appender name="FILE" class="ch.qos.logback.core.FileAppender">
+                    <file>${LOG_FILE}</file>
+                    <encoder class="net.logstash.logback.encoder.LogstashEncoder">
+                        <includeContext>false</includeContext>
+                    </encoder>
+                </appender>
+                <appender name="ASYNC" class="ch.qos.logback.classic.AsyncAppender">
+                    <queueSize>8192</queueSize>
+                    <neverBlock>true</neverBlock>
+                    <includeCallerData>false</includeCallerData>
+                    <appender-ref ref="FILE"/>
+                </appender>
+                <root level="INFO"><appender-ref ref="ASYNC"/></root>
+            </configuration>
+            """;
+    
+    /**
+     * Вариант журналирования
+     */
+    public enum Mode {
+        SYNC_TEXT, ASYNC_JSON, ASYNC_JSON_SAMPLED
+    }
+    
+    @Param({"SYNC_TEXT", "ASYNC_JSON", "ASYNC_JSON_SAMPLED"})
+    public Mode mode;
+    
+    private final Logger log = LoggerFactory.getLogger("com.example.cartridgeaccounting.service.impl.OperationServiceImpl");
+    private final LogSampler sampler = LogSampler.perSecond(10);
+    private final UUID cartridgeId = UUID.randomUUID();
+    private Path logFile;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, JoranException {
+        logFile = Files.createTempFile("logging-benchmark", ".log");
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        context.putProperty("LOG_FILE", logFile.toString());
+        JoranConfigurator configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        configurator.doConfigure(new ByteArrayInputStream(
+                (mode == Mode.SYNC_TEXT ? SYNC_TEXT_CONFIG : ASYNC_JSON_CONFIG).getBytes(StandardCharsets.UTF_8)));
+        MDC.put("requestId", UUID.randomUUID().toString());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.stop();
+        Files.deleteIfExists(logFile);
+    }
+    
+    /**
+     * Журналирование одного вызова создания операции
+     */
+    @Benchmark
+    public void createOperationLogging() {
+        // Не UUID.randomUUID(): SecureRandom синхронизирован и заслонил бы стоимость журналирования
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UUID operationId = new UUID(random.nextLong(), random.nextLong());
+        if (mode == Mode.ASYNC_JSON_SAMPLED) {
+            log.debug("Creating operation of type: {} for cartridge: {} by user: {}", "ISSUE", cartridgeId, "warehouse");
+            if (sampler.tryAcquire()) {
+                log.info("Operation created with ID: {} ({} similar messages suppressed)",
+                        operationId, sampler.takeSuppressed());
+            }
+        } else {
+            log.info("Creating operation of type: {} for cartridge: {} by user: {}", "ISSUE", cartridgeId, "warehouse");
+            log.info("Operation created with ID: {}", operationId);
+        }
+    }
+}
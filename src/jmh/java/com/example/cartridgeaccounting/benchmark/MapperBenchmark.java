@@ -0,0 +1,55 @@
+package com.example.cartridgeaccounting.benchmark;
+
+import com.example.cartridgeaccounting.dto.CartridgeDto;
+import com.example.cartridgeaccounting.dto.LocationDto;
+import com.example.cartridgeaccounting.dto.UserDto;
+import com.example.cartridgeaccounting.service.CartridgeService;
+import com.example.cartridgeaccounting.service.LocationService;
+import com.example.cartridgeaccounting.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Бенчмарк страничного чтения с преобразованием сущностей в DTO
+ * (картриджи, объекты, пользователи). Методы преобразования закрыты,
+ * поэтому измеряются через публичные методы сервисов.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@State(Scope.Thread)
+public class MapperBenchmark {
+    
+    private static final Pageable PAGE = PageRequest.of(0, 100);
+    
+    private CartridgeService cartridgeService;
+    private LocationService locationService;
+    private UserService userService;
+    
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        cartridgeService = context.getBean(CartridgeService.class);
+        locationService = context.getBean(LocationService.class);
+        userService = context.getBean(UserService.class);
+    }
+    
+    @Benchmark
+    public Page<CartridgeDto> cartridgePage() {
+        return cartridgeService.getAllCartridges(PAGE);
+    }
+    
+    @Benchmark
+    public Page<LocationDto> locationPage() {
+        return locationService.getAllLocations(PAGE);
+    }
+    
+    @Benchmark
+    public Page<UserDto> userPage() {
+        return userService.getAllUsers(PAGE);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.cartridgeaccounting.benchmark;
+
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.OperationDto;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.service.OperationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Бенчмарк создания операции: проверка допустимости, смена статуса картриджа и запись операции.
+ * Картриджи перебираются по кругу, выдача и возврат чередуются, чтобы каждая операция была допустимой.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@State(Scope.Thread)
+public class OperationServiceBenchmark {
+    
+    private OperationService operationService;
+    private List<UUID> cartridgeIds;
+    private List<UUID> locationIds;
+    private boolean[] issued;
+    private int next;
+    
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        operationService = context.getBean(OperationService.class);
+        cartridgeIds = context.getCartridgeIds();
+        locationIds = context.getLocationIds();
+        issued = new boolean[cartridgeIds.size()];
+    }
+    
+    @Benchmark
+    public OperationDto createOperation() {
+        int index = next;
+        next = (next + 1) % cartridgeIds.size();
+        
+        CreateOperationRequest request = new CreateOperationRequest();
+        request.setCartridgeId(cartridgeIds.get(index));
+        request.setCount(1);
+        if (issued[index]) {
+            request.setType(OperationType.RETURN);
+        } else {
+            request.setType(OperationType.ISSUE);
+            request.setLocationId(locationIds.get(index % locationIds.size()));
+        }
+        issued[index] = !issued[index];
+        return operationService.createOperation(request, BenchmarkContext.USERNAME);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.cartridgeaccounting.benchmark;
+
+import com.example.cartridgeaccounting.dto.CartridgeDto;
+import com.example.cartridgeaccounting.service.CartridgeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Бенчмарк поиска картриджей по подстроке и по префиксу серийного номера.
+ * На H2 нет триграммных индексов, поэтому результаты показывают стоимость
+ * прикладного кода и плана без индекса, а не задержку на PostgreSQL.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@State(Scope.Thread)
+public class SearchBenchmark {
+    
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+    
+    @Param({"285", "SN-0012"})
+    public String term;
+    
+    private CartridgeService cartridgeService;
+    
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        cartridgeService = context.getBean(CartridgeService.class);
+    }
+    
+    @Benchmark
+    public Page<CartridgeDto> searchCartridges() {
+        return cartridgeService.searchCartridges(term, term, PAGE);
+    }
+    
+    @Benchmark
+    public List<CartridgeDto> searchBySerialNumberPrefix() {
+        return cartridgeService.searchCartridgesBySerialNumberPrefix(term, 20);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.cartridgeaccounting.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Конфигурация асинхронного выполнения (проекция состояния картриджей по журналу операций).
+ * Используется пул задач приложения, настраиваемый свойствами spring.task.execution.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
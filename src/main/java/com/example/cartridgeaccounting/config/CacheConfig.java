@@ -0,0 +1,63 @@
+package com.example.cartridgeaccounting.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.List;
+
+/**
+ * Конфигурация кэширования справочных данных (объекты и пользователи).
+ * Кэши хранятся в Caffeine с ограничением размера и времени жизни записей.
+ * Запись и удаление элементов кэша выполняются после фиксации транзакции,
+ * чтобы параллельный запрос не вернул в кэш данные, которые ещё не зафиксированы.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    /**
+     * Объекты по идентификатору
+     */
+    public static final String LOCATIONS = "locations";
+    
+    /**
+     * Список активных объектов
+     */
+    public static final String ACTIVE_LOCATIONS = "activeLocations";
+    
+    /**
+     * Пользователи по идентификатору
+     */
+    public static final String USERS = "users";
+    
+    /**
+     * Пользователи по имени пользователя
+     */
+    public static final String USERS_BY_USERNAME = "usersByUsername";
+    
+    @Bean
+    public CaffeineCacheManager caffeineCacheManager(
+            @Value("${app.cache.spec:maximumSize=10000,expireAfterWrite=10m}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.from(spec).recordStats());
+        cacheManager.setCacheNames(List.of(LOCATIONS, ACTIVE_LOCATIONS, USERS, USERS_BY_USERNAME));
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+    
+    @Bean
+    @Primary
+    public CacheManager cacheManager(CaffeineCacheManager caffeineCacheManager) {
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
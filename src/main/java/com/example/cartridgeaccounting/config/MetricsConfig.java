@@ -0,0 +1,40 @@
+package com.example.cartridgeaccounting.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация метрик Micrometer.
+ * Методы сервисов, помеченных {@code @Timed(MetricsConfig.SERVICE_TIMER)}, измеряются одним таймером
+ * с тегами класса и метода; гистограммы таймера для Prometheus включаются в application.yml.
+ * Метрики пула соединений Hikari, кэшей Caffeine, JVM и HTTP-запросов регистрирует Spring Boot Actuator.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Configuration
+public class MetricsConfig {
+    
+    /**
+     * Имя таймера методов сервисов
+     */
+    public static final String SERVICE_TIMER = "cartridge.service";
+    
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+    
+    /**
+     * Кэши доступны через два менеджера: {@code caffeineCacheManager} и транзакционную обёртку над ним
+     * ({@code cacheManager}). Метрики одних и тех же кэшей публикуются только от основного менеджера.
+     */
+    @Bean
+    public MeterFilter duplicateCacheMetricsFilter() {
+        return MeterFilter.deny(id -> id.getName().startsWith("cache.")
+                && "caffeine".equals(id.getTag("cache.manager")));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.cartridgeaccounting.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.annotation.EnableRetry;
+
+/**
+ * Конфигурация повторов операций при конфликтах параллельного изменения.
+ * Перехватчик повторов оборачивает транзакцию, поэтому каждая попытка
+ * выполняется в новой транзакции с заново прочитанными данными.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Configuration
+@EnableRetry
+public class RetryConfig {
+}
@@ -0,0 +1,15 @@
+package com.example.cartridgeaccounting.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Конфигурация планировщика фоновых задач.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
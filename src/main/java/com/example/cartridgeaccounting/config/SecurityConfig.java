@@ -1,17 +1,25 @@
 package com.example.cartridgeaccounting.config;
 
+import com.example.cartridgeaccounting.security.CachingAuthenticationProvider;
+import com.example.cartridgeaccounting.security.JwtAuthenticationFilter;
+import com.example.cartridgeaccounting.security.JwtService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 /**
  * Конфигурация безопасности Spring Security.
  * Настраивает аутентификацию, авторизацию и защиту API.
+ * Поддерживаются JWT-токены (Authorization: Bearer) и HTTP Basic с кэшем проверенных учётных данных.
  * 
  * @author Система учёта картриджей
  * @version 1.0
@@ -22,16 +30,24 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager,
+                                           JwtService jwtService) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authenticationManager(authenticationManager)
+            .addFilterBefore(new JwtAuthenticationFilter(jwtService), BasicAuthenticationFilter.class)
             .authorizeHttpRequests(authz -> authz
                 // Разрешаем доступ к Swagger UI и API документации
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
                 // Разрешаем доступ к эндпоинту состояния здоровья
                 .requestMatchers("/actuator/health").permitAll()
+                // Метрики и прочие эндпоинты Actuator доступны только администратору
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 // Разрешаем создание пользователя без авторизации
                 .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/users").permitAll()
+                // Разрешаем получение токена доступа
+                .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/auth/login").permitAll()
                 // Все остальные запросы требуют аутентификации
                 .anyRequest().authenticated()
             )
@@ -39,6 +55,11 @@ public class SecurityConfig {
         return http.build();
     }
 
+    @Bean
+    public AuthenticationManager authenticationManager(CachingAuthenticationProvider cachingAuthenticationProvider) {
+        return new ProviderManager(cachingAuthenticationProvider);
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -0,0 +1,56 @@
+package com.example.cartridgeaccounting.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Конфигурация модели потоков обработки запросов.
+ * При {@code spring.threads.virtual.enabled: true} на Java 21 и выше Spring Boot обрабатывает запросы Tomcat,
+ * асинхронные задачи и задачи планировщика в виртуальных потоках; на более ранних версиях Java
+ * свойство не действует и используется пул потоков платформы {@code server.tomcat.threads.max}.
+ * В обоих режимах число одновременных обращений к базе данных ограничивает пул соединений Hikari.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class ThreadingConfig {
+    
+    private static final int VIRTUAL_THREADS_MIN_JAVA_VERSION = 21;
+    
+    private final ObjectProvider<HikariDataSource> dataSource;
+    
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+    
+    @Value("${server.tomcat.threads.max:200}")
+    private int tomcatMaxThreads;
+    
+    /**
+     * Сообщает при запуске, в каких потоках обрабатываются запросы и каков размер пула соединений
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void logThreadingModel() {
+        int javaVersion = Runtime.version().feature();
+        HikariDataSource hikari = dataSource.getIfAvailable();
+        String pool = hikari != null ? String.valueOf(hikari.getMaximumPoolSize()) : "n/a";
+        
+        if (virtualThreadsEnabled && javaVersion >= VIRTUAL_THREADS_MIN_JAVA_VERSION) {
+            log.info("Запросы обрабатываются в виртуальных потоках (Java {}), пул соединений БД: {}", javaVersion, pool);
+        } else {
+            if (virtualThreadsEnabled) {
+                log.warn("Виртуальные потоки включены, но требуют Java {} и выше (текущая версия {}); используется пул потоков платформы",
+                        VIRTUAL_THREADS_MIN_JAVA_VERSION, javaVersion);
+            }
+            log.info("Запросы обрабатываются пулом потоков платформы (до {}), пул соединений БД: {}", tomcatMaxThreads, pool);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.cartridgeaccounting.controller;
+
+import com.example.cartridgeaccounting.dto.LoginRequest;
+import com.example.cartridgeaccounting.dto.TokenResponse;
+import com.example.cartridgeaccounting.security.JwtService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST контроллер аутентификации.
+ * Выдаёт токены доступа, которые используются вместо HTTP Basic.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Аутентификация", description = "API для получения токенов доступа")
+public class AuthController {
+    
+    private final AuthenticationManager authenticationManager;
+    private final JwtService jwtService;
+    
+    /**
+     * Проверяет учётные данные и выдаёт токен доступа
+     * 
+     * @param request имя пользователя и пароль
+     * @return токен доступа
+     */
+    @PostMapping("/login")
+    @Operation(summary = "Получить токен", description = "Проверяет учётные данные и возвращает JWT для заголовка Authorization: Bearer")
+    public ResponseEntity<TokenResponse> login(@Valid @RequestBody LoginRequest request) {
+        log.info("Запрос на получение токена для пользователя: {}", request.getUsername());
+        Authentication authentication = authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(request.getUsername(), request.getPassword()));
+        String token = jwtService.generateToken(authentication);
+        return ResponseEntity.ok(new TokenResponse(token, "Bearer", jwtService.getTtl().toSeconds()));
+    }
+}
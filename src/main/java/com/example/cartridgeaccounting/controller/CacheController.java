@@ -0,0 +1,59 @@
+package com.example.cartridgeaccounting.controller;
+
+import com.example.cartridgeaccounting.dto.CacheStatsDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * REST контроллер для просмотра состояния кэшей.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Кэш", description = "API для просмотра статистики кэшей")
+public class CacheController {
+    
+    private final CaffeineCacheManager caffeineCacheManager;
+    
+    /**
+     * Получает статистику попаданий и промахов по всем кэшам
+     * 
+     * @return список статистики кэшей
+     */
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Получить статистику кэшей", description = "Возвращает количество попаданий, промахов и вытеснений по каждому кэшу")
+    public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+        log.info("Запрос на получение статистики кэшей");
+        List<CacheStatsDto> stats = caffeineCacheManager.getCacheNames().stream()
+                .map(caffeineCacheManager::getCache)
+                .filter(Objects::nonNull)
+                .map(cache -> toDto(cache.getName(), ((CaffeineCache) cache).getNativeCache()))
+                .toList();
+        return ResponseEntity.ok(stats);
+    }
+    
+    private CacheStatsDto toDto(String name, Cache<Object, Object> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDto(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+}
@@ -1,9 +1,18 @@
 package com.example.cartridgeaccounting.controller;
 
 import com.example.cartridgeaccounting.dto.CartridgeDto;
+import com.example.cartridgeaccounting.dto.CartridgeImportRequest;
+import com.example.cartridgeaccounting.dto.CartridgeImportResultDto;
+import com.example.cartridgeaccounting.dto.CartridgeQueryRequest;
+import com.example.cartridgeaccounting.dto.CartridgeSerialLookupRequest;
+import com.example.cartridgeaccounting.dto.CartridgeSerialLookupResultDto;
 import com.example.cartridgeaccounting.dto.CreateCartridgeRequest;
+import com.example.cartridgeaccounting.dto.StockSummaryDto;
 import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
 import com.example.cartridgeaccounting.service.CartridgeService;
+import com.example.cartridgeaccounting.service.StockSummaryService;
+import com.example.cartridgeaccounting.service.TableVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,12 +22,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -36,6 +52,8 @@ import java.util.UUID;
 public class CartridgeController {
     
     private final CartridgeService cartridgeService;
+    private final StockSummaryService stockSummaryService;
+    private final TableVersions tableVersions;
     
     /**
      * Создает новый картридж
@@ -53,6 +71,41 @@ public class CartridgeController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
     
+    /**
+     * Импортирует картриджи из JSON-массива
+     * 
+     * @param request список картриджей для импорта
+     * @return итоги импорта
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER')")
+    @Operation(summary = "Импортировать картриджи", description = "Массово создает картриджи, пропуская дубликаты серийных номеров и некорректные строки")
+    public ResponseEntity<CartridgeImportResultDto> importCartridges(
+            @Valid @RequestBody CartridgeImportRequest request) {
+        log.info("Запрос на импорт {} картриджей", request.getCartridges().size());
+        CartridgeImportResultDto result = cartridgeService.importCartridges(request.getCartridges());
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Импортирует картриджи из CSV-файла
+     * 
+     * @param file CSV-файл с колонками model, serialNumber, resourcePages, description
+     * @return итоги импорта
+     * @throws IOException при ошибке чтения файла
+     */
+    @PostMapping(value = "/import/csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER')")
+    @Operation(summary = "Импортировать картриджи из CSV", description = "Массово создает картриджи из CSV-файла с заголовком model,serialNumber,resourcePages,description")
+    public ResponseEntity<CartridgeImportResultDto> importCartridgesFromCsv(
+            @Parameter(description = "CSV-файл") @RequestParam("file") MultipartFile file) throws IOException {
+        log.info("Запрос на импорт картриджей из файла: {}", file.getOriginalFilename());
+        try (InputStream input = file.getInputStream()) {
+            CartridgeImportResultDto result = cartridgeService.importCartridgesFromCsv(input);
+            return ResponseEntity.ok(result);
+        }
+    }
+    
     /**
      * Получает картридж по ID
      * 
@@ -69,6 +122,21 @@ public class CartridgeController {
         return ResponseEntity.ok(cartridge);
     }
     
+    /**
+     * Получает операции, допустимые для картриджа в его текущем статусе
+     * 
+     * @param id идентификатор картриджа
+     * @return множество допустимых типов операций
+     */
+    @GetMapping("/{id}/allowed-operations")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    @Operation(summary = "Получить допустимые операции", description = "Возвращает типы операций, которые можно выполнить с картриджем в его текущем статусе")
+    public ResponseEntity<Set<OperationType>> getAllowedOperations(
+            @Parameter(description = "ID картриджа") @PathVariable UUID id) {
+        log.info("Запрос на получение допустимых операций для картриджа с ID: {}", id);
+        return ResponseEntity.ok(cartridgeService.getAllowedOperations(id));
+    }
+    
     /**
      * Получает картридж по серийному номеру
      * 
@@ -85,6 +153,21 @@ public class CartridgeController {
         return ResponseEntity.ok(cartridge);
     }
     
+    /**
+     * Находит картриджи по нескольким серийным номерам (пачка сканирований)
+     * 
+     * @param request серийные номера
+     * @return найденные картриджи и ненайденные серийные номера
+     */
+    @PostMapping("/serial/lookup")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    @Operation(summary = "Найти картриджи по серийным номерам", description = "Возвращает картриджи по списку серийных номеров (до 500) и номера, которые не найдены")
+    public ResponseEntity<CartridgeSerialLookupResultDto> lookupCartridgesBySerialNumbers(
+            @Valid @RequestBody CartridgeSerialLookupRequest request) {
+        log.info("Запрос на поиск картриджей по {} серийным номерам", request.getSerialNumbers().size());
+        return ResponseEntity.ok(cartridgeService.lookupCartridgesBySerialNumbers(request.getSerialNumbers()));
+    }
+    
     /**
      * Получает все картриджи с пагинацией
      * 
@@ -110,7 +193,7 @@ public class CartridgeController {
      */
     @GetMapping("/search")
     @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
-    @Operation(summary = "Поиск картриджей", description = "Ищет картриджи по модели и серийному номеру")
+    @Operation(summary = "Поиск картриджей", description = "Ищет картриджи по подстроке модели или серийного номера без учёта регистра, результаты упорядочены по похожести")
     public ResponseEntity<Page<CartridgeDto>> searchCartridges(
             @Parameter(description = "Модель картриджа") @RequestParam(required = false) String model,
             @Parameter(description = "Серийный номер картриджа") @RequestParam(required = false) String serialNumber,
@@ -121,34 +204,82 @@ public class CartridgeController {
     }
     
     /**
-     * Получает картриджи по статусу
+     * Отбирает картриджи по сочетанию условий
+     * 
+     * @param request условия отбора
+     * @param pageable параметры пагинации и сортировки
+     * @return страница картриджей
+     */
+    @GetMapping("/query")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    @Operation(summary = "Отбор картриджей по условиям", description = "Отбирает картриджи по модели, статусам, объекту, диапазону ресурса и периодам создания и изменения с пагинацией и сортировкой; без сортировки сначала новые")
+    public ResponseEntity<Page<CartridgeDto>> queryCartridges(
+            @Valid CartridgeQueryRequest request,
+            Pageable pageable) {
+        log.info("Запрос на отбор картриджей по условиям: {}", request);
+        Page<CartridgeDto> cartridges = cartridgeService.queryCartridges(request, pageable);
+        return ResponseEntity.ok(cartridges);
+    }
+    
+    /**
+     * Ищет картриджи по началу серийного номера (подсказки при вводе)
+     * 
+     * @param prefix начало серийного номера
+     * @param limit максимальное количество результатов
+     * @return список найденных картриджей, упорядоченный по серийному номеру
+     */
+    @GetMapping("/search/serial-prefix")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    @Operation(summary = "Поиск по префиксу серийного номера", description = "Возвращает картриджи, серийный номер которых начинается с указанной строки")
+    public ResponseEntity<List<CartridgeDto>> searchCartridgesBySerialNumberPrefix(
+            @Parameter(description = "Начало серийного номера") @RequestParam String prefix,
+            @Parameter(description = "Максимальное количество результатов (не более 50)") @RequestParam(defaultValue = "20") int limit) {
+        log.info("Запрос на поиск картриджей по префиксу серийного номера: {}", prefix);
+        List<CartridgeDto> cartridges = cartridgeService.searchCartridgesBySerialNumberPrefix(prefix, limit);
+        return ResponseEntity.ok(cartridges);
+    }
+    
+    /**
+     * Получает картриджи по статусу.
+     * В ответ входят названия объектов, поэтому ETag строится по версиям таблиц картриджей и объектов;
+     * если они не менялись, возвращается 304 Not Modified без обращения к базе данных
      * 
      * @param status статус картриджа
-     * @return список картриджей
+     * @param pageable параметры пагинации
+     * @param request текущий запрос (заголовок If-None-Match)
+     * @return страница картриджей
      */
     @GetMapping("/status/{status}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
-    @Operation(summary = "Получить картриджи по статусу", description = "Возвращает список картриджей с указанным статусом")
-    public ResponseEntity<List<CartridgeDto>> getCartridgesByStatus(
-            @Parameter(description = "Статус картриджа") @PathVariable CartridgeStatus status) {
+    @Operation(summary = "Получить картриджи по статусу", description = "Возвращает картриджи с указанным статусом с пагинацией; поддерживает условный запрос по ETag")
+    public ResponseEntity<Page<CartridgeDto>> getCartridgesByStatus(
+            @Parameter(description = "Статус картриджа") @PathVariable CartridgeStatus status,
+            Pageable pageable,
+            WebRequest request) {
         log.info("Запрос на получение картриджей по статусу: {}", status);
-        List<CartridgeDto> cartridges = cartridgeService.getCartridgesByStatus(status);
-        return ResponseEntity.ok(cartridges);
+        String etag = tableVersions.etag(TableVersions.Table.CARTRIDGES, TableVersions.Table.LOCATIONS);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        Page<CartridgeDto> cartridges = cartridgeService.getCartridgesByStatus(status, pageable);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(cartridges);
     }
     
     /**
      * Получает картриджи по объекту
      * 
      * @param locationId идентификатор объекта
-     * @return список картриджей
+     * @param pageable параметры пагинации
+     * @return страница картриджей
      */
     @GetMapping("/location/{locationId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
-    @Operation(summary = "Получить картриджи по объекту", description = "Возвращает список картриджей, находящихся на указанном объекте")
-    public ResponseEntity<List<CartridgeDto>> getCartridgesByLocation(
-            @Parameter(description = "ID объекта") @PathVariable UUID locationId) {
+    @Operation(summary = "Получить картриджи по объекту", description = "Возвращает картриджи, находящиеся на указанном объекте, с пагинацией")
+    public ResponseEntity<Page<CartridgeDto>> getCartridgesByLocation(
+            @Parameter(description = "ID объекта") @PathVariable UUID locationId,
+            Pageable pageable) {
         log.info("Запрос на получение картриджей по объекту с ID: {}", locationId);
-        List<CartridgeDto> cartridges = cartridgeService.getCartridgesByLocation(locationId);
+        Page<CartridgeDto> cartridges = cartridgeService.getCartridgesByLocation(locationId, pageable);
         return ResponseEntity.ok(cartridges);
     }
     
@@ -186,6 +317,19 @@ public class CartridgeController {
         return ResponseEntity.noContent().build();
     }
     
+    /**
+     * Получает сводку остатков картриджей по объектам и статусам
+     * 
+     * @return матрица "объект × статус" и итоги по статусам
+     */
+    @GetMapping("/stock-summary")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    @Operation(summary = "Получить сводку остатков", description = "Возвращает количество картриджей по каждому объекту и статусу одним ответом")
+    public ResponseEntity<StockSummaryDto> getStockSummary() {
+        log.info("Запрос на получение сводки остатков картриджей");
+        return ResponseEntity.ok(stockSummaryService.getStockSummary());
+    }
+    
     /**
      * Получает количество картриджей по статусу
      * 
@@ -0,0 +1,69 @@
+package com.example.cartridgeaccounting.controller;
+
+import com.example.cartridgeaccounting.dto.ConsumptionForecastDto;
+import com.example.cartridgeaccounting.service.ConsumptionForecastService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * REST контроллер прогноза расхода картриджей.
+ * Предоставляет скорости расхода по объектам и моделям и рекомендации по дозаказу.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/forecast")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Прогноз расхода", description = "API прогноза расхода картриджей и рекомендаций по дозаказу")
+public class ForecastController {
+    
+    private final ConsumptionForecastService forecastService;
+    
+    /**
+     * Получает прогноз расхода картриджей
+     * 
+     * @param locationId идентификатор объекта (необязательно)
+     * @param reorderOnly только позиции, запас которых достиг точки дозаказа
+     * @return прогнозы по парам "объект × модель"
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER')")
+    @Operation(summary = "Получить прогноз расхода", description = "Возвращает расход картриджей по объектам и моделям, дату исчерпания запаса и рекомендуемое количество к заказу")
+    public ResponseEntity<List<ConsumptionForecastDto>> getForecast(
+            @Parameter(description = "Идентификатор объекта") 
+            @RequestParam(required = false) UUID locationId,
+            @Parameter(description = "Только позиции, которые пора дозаказать") 
+            @RequestParam(defaultValue = "false") boolean reorderOnly) {
+        log.info("Запрос прогноза расхода по объекту: {}, только к дозаказу: {}", locationId, reorderOnly);
+        return ResponseEntity.ok(forecastService.getForecast(locationId, reorderOnly));
+    }
+    
+    /**
+     * Пересчитывает скорости расхода по журналу операций
+     * 
+     * @return пустой ответ
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Пересчитать прогноз", description = "Пересчитывает скорости расхода по журналу операций за период истории")
+    public ResponseEntity<Void> rebuildForecast() {
+        log.info("Запрос на пересчёт прогноза расхода");
+        forecastService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -3,6 +3,7 @@ package com.example.cartridgeaccounting.controller;
 import com.example.cartridgeaccounting.dto.CreateLocationRequest;
 import com.example.cartridgeaccounting.dto.LocationDto;
 import com.example.cartridgeaccounting.service.LocationService;
+import com.example.cartridgeaccounting.service.TableVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,10 +13,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -35,6 +38,7 @@ import java.util.UUID;
 public class LocationController {
     
     private final LocationService locationService;
+    private final TableVersions tableVersions;
     
     /**
      * Создает новый объект
@@ -99,17 +103,24 @@ public class LocationController {
     }
     
     /**
-     * Получает активные объекты
+     * Получает активные объекты.
+     * Ответ помечается ETag по версии таблицы объектов; если объекты не менялись,
+     * возвращается 304 Not Modified без обращения к базе данных
      * 
+     * @param request текущий запрос (заголовок If-None-Match)
      * @return список активных объектов
      */
     @GetMapping("/active")
     @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
-    @Operation(summary = "Получить активные объекты", description = "Возвращает список всех активных объектов")
-    public ResponseEntity<List<LocationDto>> getActiveLocations() {
+    @Operation(summary = "Получить активные объекты", description = "Возвращает список всех активных объектов; поддерживает условный запрос по ETag")
+    public ResponseEntity<List<LocationDto>> getActiveLocations(WebRequest request) {
         log.info("Запрос на получение активных объектов");
+        String etag = tableVersions.etag(TableVersions.Table.LOCATIONS);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<LocationDto> locations = locationService.getActiveLocations();
-        return ResponseEntity.ok(locations);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(locations);
     }
     
     /**
@@ -1,27 +1,42 @@
 package com.example.cartridgeaccounting.controller;
 
+import com.example.cartridgeaccounting.dto.CartridgeTimelineDto;
+import com.example.cartridgeaccounting.dto.CreateOperationBatchRequest;
 import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.CursorPageDto;
+import com.example.cartridgeaccounting.dto.ExportFormat;
+import com.example.cartridgeaccounting.dto.OperationBatchResultDto;
 import com.example.cartridgeaccounting.dto.OperationDto;
+import com.example.cartridgeaccounting.dto.OperationStatsDto;
+import com.example.cartridgeaccounting.dto.ProjectionRebuildResultDto;
+import com.example.cartridgeaccounting.dto.StatsBackfillResultDto;
+import com.example.cartridgeaccounting.dto.StatsPeriod;
 import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.service.CartridgeProjectionService;
 import com.example.cartridgeaccounting.service.OperationService;
+import com.example.cartridgeaccounting.service.OperationStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -32,6 +47,14 @@ import java.util.UUID;
 public class OperationController {
     
     private final OperationService operationService;
+    private final CartridgeProjectionService projectionService;
+    private final OperationStatsService operationStatsService;
+    
+    /**
+     * Предел размера страницы тот же, что Spring Data применяет к параметрам Pageable
+     */
+    @Value("${spring.data.web.pageable.max-page-size:2000}")
+    private int maxPageSize;
     
     @PostMapping
     @Operation(summary = "Создать операцию", description = "Создает новую операцию с картриджем")
@@ -45,6 +68,26 @@ public class OperationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdOperation);
     }
     
+    @PostMapping("/batch")
+    @Operation(summary = "Создать операции пакетом", description = "Создает набор операций в одной транзакции и возвращает результат по каждой операции")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER')")
+    public ResponseEntity<OperationBatchResultDto> createOperations(
+            @Valid @RequestBody CreateOperationBatchRequest request,
+            Authentication authentication) {
+        log.info("Creating batch of {} operations", request.getOperations().size());
+        String username = authentication.getName();
+        OperationBatchResultDto result = operationService.createOperations(request.getOperations(), username);
+        return ResponseEntity.ok(result);
+    }
+    
+    @PostMapping("/projection/rebuild")
+    @Operation(summary = "Восстановить состояние картриджей по журналу", description = "Пересчитывает статус и местоположение всех картриджей по журналу операций, обрабатывая диапазоны идентификаторов картриджей параллельно")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProjectionRebuildResultDto> rebuildProjection() {
+        log.info("Rebuilding cartridge state from operations journal");
+        return ResponseEntity.ok(projectionService.rebuildAll());
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Получить операцию по ID", description = "Возвращает операцию по её уникальному идентификатору")
     @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
@@ -61,7 +104,7 @@ public class OperationController {
             @Parameter(description = "Номер страницы") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "20") int size) {
         log.info("Getting all operations with page: {}, size: {}", page, size);
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = pageRequest(page, size);
         Page<OperationDto> operations = operationService.getAllOperations(pageable);
         return ResponseEntity.ok(operations);
     }
@@ -74,11 +117,22 @@ public class OperationController {
             @Parameter(description = "Номер страницы") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "20") int size) {
         log.info("Getting operations by cartridge ID: {}", cartridgeId);
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = pageRequest(page, size);
         Page<OperationDto> operations = operationService.getOperationsByCartridge(cartridgeId, pageable);
         return ResponseEntity.ok(operations);
     }
     
+    @GetMapping("/cartridge/{cartridgeId}/timeline")
+    @Operation(summary = "Лента операций картриджа", description = "Возвращает сведения о картридже и его операции от новых к старым в компактном виде: операции по столбцам, объекты и пользователи — справочниками; следующая страница запрашивается по курсору nextCursor")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    public ResponseEntity<CartridgeTimelineDto> getCartridgeTimeline(
+            @PathVariable UUID cartridgeId,
+            @Parameter(description = "Курсор предыдущей страницы") @RequestParam(required = false) String after,
+            @Parameter(description = "Размер страницы (не больше 1000)") @RequestParam(defaultValue = "200") int size) {
+        log.info("Getting timeline of cartridge ID: {}", cartridgeId);
+        return ResponseEntity.ok(operationService.getCartridgeTimeline(cartridgeId, after, size));
+    }
+    
     @GetMapping("/location/{locationId}")
     @Operation(summary = "Получить операции по объекту", description = "Возвращает операции для конкретного объекта")
     @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
@@ -87,7 +141,7 @@ public class OperationController {
             @Parameter(description = "Номер страницы") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "20") int size) {
         log.info("Getting operations by location ID: {}", locationId);
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = pageRequest(page, size);
         Page<OperationDto> operations = operationService.getOperationsByLocation(locationId, pageable);
         return ResponseEntity.ok(operations);
     }
@@ -103,18 +157,83 @@ public class OperationController {
             @Parameter(description = "Номер страницы") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "20") int size) {
         log.info("Getting operations by date range: {} to {}", startDate, endDate);
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = pageRequest(page, size);
         Page<OperationDto> operations = operationService.getOperationsByDateRange(startDate, endDate, pageable);
         return ResponseEntity.ok(operations);
     }
     
+    @GetMapping("/journal")
+    @Operation(summary = "Журнал операций с курсорной пагинацией", description = "Возвращает операции от новых к старым; следующая страница запрашивается по курсору nextCursor")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    public ResponseEntity<CursorPageDto<OperationDto>> getOperationsJournal(
+            @Parameter(description = "Курсор предыдущей страницы") @RequestParam(required = false) String after,
+            @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "20") int size) {
+        log.info("Getting operations journal after cursor: {}, size: {}", after, size);
+        return ResponseEntity.ok(operationService.getOperationsJournal(after, size));
+    }
+    
+    @GetMapping("/journal/cartridge/{cartridgeId}")
+    @Operation(summary = "Журнал операций по картриджу", description = "Возвращает историю операций картриджа с курсорной пагинацией")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    public ResponseEntity<CursorPageDto<OperationDto>> getOperationsJournalByCartridge(
+            @PathVariable UUID cartridgeId,
+            @Parameter(description = "Курсор предыдущей страницы") @RequestParam(required = false) String after,
+            @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "20") int size) {
+        log.info("Getting operations journal by cartridge ID: {}", cartridgeId);
+        return ResponseEntity.ok(operationService.getOperationsJournalByCartridge(cartridgeId, after, size));
+    }
+    
+    @GetMapping("/journal/location/{locationId}")
+    @Operation(summary = "Журнал операций по объекту", description = "Возвращает операции объекта с курсорной пагинацией")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    public ResponseEntity<CursorPageDto<OperationDto>> getOperationsJournalByLocation(
+            @PathVariable UUID locationId,
+            @Parameter(description = "Курсор предыдущей страницы") @RequestParam(required = false) String after,
+            @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "20") int size) {
+        log.info("Getting operations journal by location ID: {}", locationId);
+        return ResponseEntity.ok(operationService.getOperationsJournalByLocation(locationId, after, size));
+    }
+    
+    @GetMapping("/journal/date-range")
+    @Operation(summary = "Журнал операций по диапазону дат", description = "Возвращает операции в диапазоне дат с курсорной пагинацией")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    public ResponseEntity<CursorPageDto<OperationDto>> getOperationsJournalByDateRange(
+            @Parameter(description = "Начальная дата") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "Конечная дата") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "Курсор предыдущей страницы") @RequestParam(required = false) String after,
+            @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "20") int size) {
+        log.info("Getting operations journal by date range: {} to {}", startDate, endDate);
+        return ResponseEntity.ok(operationService.getOperationsJournalByDateRange(startDate, endDate, after, size));
+    }
+    
+    @GetMapping("/export")
+    @Operation(summary = "Выгрузить журнал операций", description = "Потоково выгружает операции за период в формате CSV или NDJSON")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    public ResponseEntity<StreamingResponseBody> exportOperations(
+            @Parameter(description = "Начальная дата") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "Конечная дата") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "Формат выгрузки") @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        log.info("Exporting operations as {} for date range: {} to {}", format, startDate, endDate);
+        StreamingResponseBody body = output -> operationService.exportOperations(startDate, endDate, format, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"operations." + format.getFileExtension() + "\"")
+                .body(body);
+    }
+    
     @GetMapping("/type/{type}")
-    @Operation(summary = "Получить операции по типу", description = "Возвращает операции определенного типа")
+    @Operation(summary = "Получить операции по типу", description = "Возвращает операции определенного типа с курсорной пагинацией")
     @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
-    public ResponseEntity<List<OperationDto>> getOperationsByType(@PathVariable OperationType type) {
+    public ResponseEntity<CursorPageDto<OperationDto>> getOperationsByType(
+            @PathVariable OperationType type,
+            @Parameter(description = "Курсор предыдущей страницы") @RequestParam(required = false) String after,
+            @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "20") int size) {
         log.info("Getting operations by type: {}", type);
-        List<OperationDto> operations = operationService.getOperationsByType(type);
-        return ResponseEntity.ok(operations);
+        return ResponseEntity.ok(operationService.getOperationsByType(type, after, size));
     }
     
     @GetMapping("/count/type/{type}")
@@ -130,4 +249,45 @@ public class OperationController {
         long count = operationService.getOperationCountByTypeAndDateRange(type, startDate, endDate);
         return ResponseEntity.ok(count);
     }
+    
+    @GetMapping("/stats")
+    @Operation(summary = "Получить статистику операций", description = "Возвращает количество операций и картриджей за диапазон дней по суточной статистике с группировкой по периоду, типу и объекту")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER') or hasRole('OBJECT_USER')")
+    public ResponseEntity<OperationStatsDto> getOperationStats(
+            @Parameter(description = "Первый день диапазона") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "Последний день диапазона (включительно)") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Тип операций") 
+            @RequestParam(required = false) OperationType type,
+            @Parameter(description = "Идентификатор объекта") 
+            @RequestParam(required = false) UUID locationId,
+            @Parameter(description = "Период группировки: NONE, DAY или MONTH") 
+            @RequestParam(defaultValue = "NONE") StatsPeriod period,
+            @Parameter(description = "Группировать по типу операций") 
+            @RequestParam(defaultValue = "false") boolean byType,
+            @Parameter(description = "Группировать по объекту") 
+            @RequestParam(defaultValue = "false") boolean byLocation) {
+        log.info("Getting operation stats for {} to {} grouped by period: {}, type: {}, location: {}", 
+                startDate, endDate, period, byType, byLocation);
+        return ResponseEntity.ok(operationStatsService.getStats(startDate, endDate, type, locationId, 
+                period, byType, byLocation));
+    }
+    
+    @PostMapping("/stats/backfill")
+    @Operation(summary = "Пересчитать статистику операций", description = "Пересчитывает суточную статистику по журналу операций помесячно; без дат пересчитывается весь журнал")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StatsBackfillResultDto> backfillOperationStats(
+            @Parameter(description = "Первый день") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "Последний день (включительно)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        log.info("Backfilling operation stats for {} to {}", startDate, endDate);
+        return ResponseEntity.ok(operationStatsService.backfill(startDate, endDate));
+    }
+    
+    // Номер и размер страницы приводятся к допустимым границам, как для параметров Pageable
+    private Pageable pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, maxPageSize)));
+    }
 } 
\ No newline at end of file
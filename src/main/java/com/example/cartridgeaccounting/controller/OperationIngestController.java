@@ -0,0 +1,94 @@
+package com.example.cartridgeaccounting.controller;
+
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.IngestQueueStatusDto;
+import com.example.cartridgeaccounting.dto.IngestTicketDto;
+import com.example.cartridgeaccounting.service.OperationIngestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * REST контроллер асинхронной записи операций.
+ * Доступен при {@code app.operations.ingest.enabled: true}: операция подтверждается ответом 202
+ * после записи в локальный журнал очереди, а её результат запрашивается по выданному идентификатору.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/operations/async")
+@ConditionalOnProperty(name = "app.operations.ingest.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Асинхронные операции", description = "API асинхронной записи операций с картриджами")
+public class OperationIngestController {
+    
+    private final OperationIngestService ingestService;
+    
+    /**
+     * Принимает операцию в очередь записи
+     * 
+     * @param request данные операции
+     * @param authentication данные аутентификации
+     * @return идентификатор и состояние принятой операции
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER')")
+    @Operation(summary = "Принять операцию в очередь", description = "Сохраняет операцию в журнал очереди и возвращает 202 с идентификатором; при заполненной очереди возвращает 429")
+    public ResponseEntity<IngestTicketDto> submitOperation(
+            @Valid @RequestBody CreateOperationRequest request,
+            Authentication authentication) {
+        IngestTicketDto ticket = ingestService.submit(request, authentication.getName());
+        log.debug("Операция принята в очередь записи: {}", ticket.getTicketId());
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{ticketId}")
+                .buildAndExpand(ticket.getTicketId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(ticket);
+    }
+    
+    /**
+     * Получает состояние операции, принятой в очередь
+     * 
+     * @param ticketId идентификатор, выданный при приёме
+     * @return состояние операции
+     */
+    @GetMapping("/{ticketId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER')")
+    @Operation(summary = "Получить состояние операции", description = "Возвращает PENDING, пока операция в очереди, затем CREATED с идентификатором операции или REJECTED с причиной")
+    public ResponseEntity<IngestTicketDto> getTicket(
+            @Parameter(description = "Идентификатор операции в очереди") 
+            @PathVariable UUID ticketId) {
+        return ResponseEntity.ok(ingestService.getTicket(ticketId));
+    }
+    
+    /**
+     * Получает состояние очереди записи
+     * 
+     * @return ёмкость, количество ожидающих операций и размер журнала очереди
+     */
+    @GetMapping("/status")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER')")
+    @Operation(summary = "Получить состояние очереди", description = "Возвращает количество операций, ожидающих записи, время самой старой из них и последнюю ошибку записи")
+    public ResponseEntity<IngestQueueStatusDto> getStatus() {
+        return ResponseEntity.ok(ingestService.getStatus());
+    }
+}
@@ -5,6 +5,7 @@ import com.example.cartridgeaccounting.dto.UpdateUserRequest;
 import com.example.cartridgeaccounting.dto.UserDto;
 import com.example.cartridgeaccounting.entity.enums.UserRole;
 import com.example.cartridgeaccounting.service.UserService;
+import com.example.cartridgeaccounting.service.TableVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -14,10 +15,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -37,6 +40,7 @@ import java.util.UUID;
 public class UserController {
     
     private final UserService userService;
+    private final TableVersions tableVersions;
     
     /**
      * Создает нового пользователя
@@ -100,19 +104,29 @@ public class UserController {
     }
     
     /**
-     * Получает пользователей по роли
+     * Получает пользователей по роли.
+     * Ответ помечается ETag по версии таблицы пользователей; если пользователи не менялись,
+     * возвращается 304 Not Modified без обращения к базе данных
      * 
      * @param role роль пользователя
-     * @return список пользователей
+     * @param pageable параметры пагинации
+     * @param request текущий запрос (заголовок If-None-Match)
+     * @return страница пользователей
      */
     @GetMapping("/role/{role}")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Получить пользователей по роли", description = "Возвращает список пользователей с указанной ролью")
-    public ResponseEntity<List<UserDto>> getUsersByRole(
-            @Parameter(description = "Роль пользователя") @PathVariable UserRole role) {
+    @Operation(summary = "Получить пользователей по роли", description = "Возвращает пользователей с указанной ролью с пагинацией; поддерживает условный запрос по ETag")
+    public ResponseEntity<Page<UserDto>> getUsersByRole(
+            @Parameter(description = "Роль пользователя") @PathVariable UserRole role,
+            Pageable pageable,
+            WebRequest request) {
         log.info("Запрос на получение пользователей по роли: {}", role);
-        List<UserDto> users = userService.getUsersByRole(role);
-        return ResponseEntity.ok(users);
+        String etag = tableVersions.etag(TableVersions.Table.USERS);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        Page<UserDto> users = userService.getUsersByRole(role, pageable);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(users);
     }
     
     /**
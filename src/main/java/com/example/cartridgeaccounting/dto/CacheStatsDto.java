@@ -0,0 +1,47 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO статистики кэша.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDto {
+    
+    /**
+     * Название кэша
+     */
+    private String name;
+    
+    /**
+     * Оценка количества записей
+     */
+    private long size;
+    
+    /**
+     * Количество попаданий
+     */
+    private long hitCount;
+    
+    /**
+     * Количество промахов
+     */
+    private long missCount;
+    
+    /**
+     * Доля попаданий от общего числа обращений
+     */
+    private double hitRate;
+    
+    /**
+     * Количество вытесненных записей
+     */
+    private long evictionCount;
+}
@@ -0,0 +1,26 @@
+package com.example.cartridgeaccounting.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO для запроса массового импорта картриджей.
+ * Строки проверяются по отдельности при импорте, поэтому ошибка в одной строке
+ * не отклоняет весь запрос.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+public class CartridgeImportRequest {
+    
+    /**
+     * Картриджи для импорта
+     */
+    @NotEmpty(message = "Список картриджей не должен быть пустым")
+    @Size(max = 100000, message = "За один импорт можно загрузить не более 100000 картриджей")
+    private List<CreateCartridgeRequest> cartridges;
+}
@@ -0,0 +1,73 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO с итогами массового импорта картриджей.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartridgeImportResultDto {
+    
+    /**
+     * Общее количество строк
+     */
+    private int total;
+    
+    /**
+     * Количество созданных картриджей
+     */
+    private int created;
+    
+    /**
+     * Количество строк с уже существующим или повторяющимся серийным номером
+     */
+    private int duplicates;
+    
+    /**
+     * Количество строк, не прошедших проверку
+     */
+    private int rejected;
+    
+    /**
+     * Строки, которые не были импортированы, с причиной
+     */
+    private List<RowIssue> issues;
+    
+    /**
+     * Проблема с отдельной строкой импорта
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowIssue {
+        
+        /**
+         * Номер строки данных (начиная с 1)
+         */
+        private int row;
+        
+        /**
+         * Серийный номер из строки
+         */
+        private String serialNumber;
+        
+        /**
+         * Признак дубликата серийного номера
+         */
+        private boolean duplicate;
+        
+        /**
+         * Причина, по которой строка не импортирована
+         */
+        private String reason;
+    }
+}
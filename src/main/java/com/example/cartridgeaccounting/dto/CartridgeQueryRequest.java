@@ -0,0 +1,75 @@
+package com.example.cartridgeaccounting.dto;
+
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.validation.ConsistentQueryRanges;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * DTO условий отбора картриджей.
+ * Все условия необязательны и объединяются по И; незаданное условие не ограничивает выборку.
+ * Диапазоны ресурса и периодов с переставленными границами отклоняются при валидации.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@ConsistentQueryRanges
+public class CartridgeQueryRequest {
+    
+    /**
+     * Модель картриджа (точное совпадение без учёта регистра)
+     */
+    private String model;
+    
+    /**
+     * Допустимые статусы картриджа
+     */
+    private Set<CartridgeStatus> status;
+    
+    /**
+     * Идентификатор объекта, на котором находится картридж
+     */
+    private UUID locationId;
+    
+    /**
+     * Минимальный ресурс в страницах (включительно)
+     */
+    @PositiveOrZero(message = "Минимальный ресурс не может быть отрицательным")
+    private Integer minResourcePages;
+    
+    /**
+     * Максимальный ресурс в страницах (включительно)
+     */
+    @PositiveOrZero(message = "Максимальный ресурс не может быть отрицательным")
+    private Integer maxResourcePages;
+    
+    /**
+     * Начало периода создания записи (включительно)
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+    
+    /**
+     * Конец периода создания записи (не включительно)
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+    
+    /**
+     * Начало периода последнего изменения записи (включительно)
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime updatedFrom;
+    
+    /**
+     * Конец периода последнего изменения записи (не включительно)
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime updatedTo;
+}
@@ -0,0 +1,25 @@
+package com.example.cartridgeaccounting.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO запроса поиска картриджей по нескольким серийным номерам (пакет сканирований).
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+public class CartridgeSerialLookupRequest {
+    
+    /**
+     * Серийные номера картриджей
+     */
+    @NotEmpty(message = "Список серийных номеров не должен быть пустым")
+    @Size(max = 500, message = "Пакет не должен содержать более 500 серийных номеров")
+    private List<@NotBlank(message = "Серийный номер не должен быть пустым") String> serialNumbers;
+}
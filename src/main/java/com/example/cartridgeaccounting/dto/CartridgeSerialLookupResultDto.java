@@ -0,0 +1,29 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO с результатом поиска картриджей по нескольким серийным номерам.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartridgeSerialLookupResultDto {
+    
+    /**
+     * Найденные картриджи в порядке серийных номеров запроса
+     */
+    private List<CartridgeDto> found;
+    
+    /**
+     * Серийные номера, для которых картридж не найден
+     */
+    private List<String> notFound;
+}
@@ -0,0 +1,108 @@
+package com.example.cartridgeaccounting.dto;
+
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO ленты операций картриджа в компактном виде.
+ * Сведения о картридже передаются один раз, операции — столбцами: i-й элемент каждого
+ * столбца относится к i-й операции. Объекты и пользователи вынесены в справочники,
+ * в столбцах указывается номер записи справочника.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartridgeTimelineDto {
+    
+    /**
+     * Идентификатор картриджа
+     */
+    private UUID cartridgeId;
+    
+    /**
+     * Модель картриджа
+     */
+    private String model;
+    
+    /**
+     * Серийный номер картриджа
+     */
+    private String serialNumber;
+    
+    /**
+     * Текущий статус картриджа
+     */
+    private CartridgeStatus status;
+    
+    /**
+     * Справочник объектов, упомянутых в операциях страницы
+     */
+    private List<Reference> locations = new ArrayList<>();
+    
+    /**
+     * Справочник пользователей, выполнивших операции страницы
+     */
+    private List<Reference> users = new ArrayList<>();
+    
+    /**
+     * Операции страницы от новых к старым
+     */
+    private Columns operations = new Columns();
+    
+    /**
+     * Курсор для запроса следующей страницы (null, если страница последняя)
+     */
+    private String nextCursor;
+    
+    /**
+     * Признак наличия следующей страницы
+     */
+    private boolean hasNext;
+    
+    /**
+     * Операции по столбцам
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Columns {
+        
+        private List<UUID> id = new ArrayList<>();
+        private List<LocalDateTime> operationDate = new ArrayList<>();
+        private List<OperationType> type = new ArrayList<>();
+        private List<Integer> count = new ArrayList<>();
+        
+        /**
+         * Номер объекта в справочнике locations (null — операция без объекта)
+         */
+        private List<Integer> location = new ArrayList<>();
+        
+        /**
+         * Номер пользователя в справочнике users
+         */
+        private List<Integer> performedBy = new ArrayList<>();
+    }
+    
+    /**
+     * Запись справочника: идентификатор и наименование
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Reference {
+        
+        private UUID id;
+        private String name;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO прогноза расхода картриджей модели на объекте и рекомендации по дозаказу.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConsumptionForecastDto {
+    
+    /**
+     * Идентификатор объекта
+     */
+    private UUID locationId;
+    
+    /**
+     * Название объекта
+     */
+    private String locationName;
+    
+    /**
+     * Модель картриджа
+     */
+    private String model;
+    
+    /**
+     * Средний расход: выдано картриджей в сутки
+     */
+    private double issuesPerDay;
+    
+    /**
+     * Средний расход в страницах в сутки (по картриджам с указанным ресурсом)
+     */
+    private double pagesPerDay;
+    
+    /**
+     * Отправлено на заправку картриджей в сутки
+     */
+    private double refillsPerDay;
+    
+    /**
+     * Истории пары ещё недостаточно для оценки: расход, запас в сутках и дозаказ не рассчитываются
+     */
+    private boolean insufficientHistory;
+    
+    /**
+     * Дата и время последней учтённой операции
+     */
+    private LocalDateTime lastOperationDate;
+    
+    /**
+     * Картриджей модели в запасе на объекте
+     */
+    private long inStock;
+    
+    /**
+     * На сколько суток хватит запаса при текущем расходе (null — расхода нет)
+     */
+    private Double daysOfCover;
+    
+    /**
+     * Ожидаемая дата исчерпания запаса (null — расхода нет)
+     */
+    private LocalDate stockoutDate;
+    
+    /**
+     * Точка дозаказа: запас, которого хватит на срок поставки и страховой период
+     */
+    private long reorderPoint;
+    
+    /**
+     * Запас достиг точки дозаказа
+     */
+    private boolean reorderNeeded;
+    
+    /**
+     * Рекомендуемое количество к заказу
+     */
+    private long recommendedQuantity;
+}
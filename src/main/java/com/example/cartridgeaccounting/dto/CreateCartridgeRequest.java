@@ -2,6 +2,7 @@ package com.example.cartridgeaccounting.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 /**
@@ -18,11 +19,13 @@ public class CreateCartridgeRequest {
      * Модель картриджа (обязательное поле)
      */
     @NotBlank(message = "Модель картриджа обязательна")
+    @Size(max = 100, message = "Модель картриджа не должна превышать 100 символов")
     private String model;
     
     /**
      * Уникальный серийный номер картриджа
      */
+    @Size(max = 100, message = "Серийный номер не должен превышать 100 символов")
     private String serialNumber;
     
     /**
@@ -0,0 +1,16 @@
+package com.example.cartridgeaccounting.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CreateOperationBatchRequest {
+
+    @NotEmpty(message = "Список операций не должен быть пустым")
+    @Size(max = 1000, message = "Пакет не должен содержать более 1000 операций")
+    private List<@Valid CreateOperationRequest> operations;
+}
@@ -0,0 +1,36 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница данных с курсорной (keyset) пагинацией.
+ * В отличие от Page не содержит общего количества записей: следующая страница
+ * запрашивается по непрозрачному курсору nextCursor.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    
+    /**
+     * Записи текущей страницы
+     */
+    private List<T> content;
+    
+    /**
+     * Курсор для запроса следующей страницы (null, если страница последняя)
+     */
+    private String nextCursor;
+    
+    /**
+     * Признак наличия следующей страницы
+     */
+    private boolean hasNext;
+}
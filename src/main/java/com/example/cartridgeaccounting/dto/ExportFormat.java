@@ -0,0 +1,58 @@
+package com.example.cartridgeaccounting.dto;
+
+/**
+ * Формат потоковой выгрузки данных.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public enum ExportFormat {
+    /**
+     * Таблица CSV с заголовком
+     */
+    CSV("text/csv", "csv"),
+    
+    /**
+     * JSON-объекты, по одному на строку
+     */
+    NDJSON("application/x-ndjson", "ndjson");
+
+    /**
+     * MIME-тип ответа
+     */
+    private final String contentType;
+    
+    /**
+     * Расширение файла выгрузки
+     */
+    private final String fileExtension;
+
+    /**
+     * Конструктор с MIME-типом и расширением файла
+     * 
+     * @param contentType MIME-тип ответа
+     * @param fileExtension расширение файла
+     */
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Возвращает MIME-тип ответа
+     * 
+     * @return MIME-тип
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Возвращает расширение файла выгрузки
+     * 
+     * @return расширение файла
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO состояния асинхронной очереди записи операций.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestQueueStatusDto {
+    
+    /**
+     * Ёмкость очереди
+     */
+    private int capacity;
+    
+    /**
+     * Операций, ожидающих записи
+     */
+    private int pending;
+    
+    /**
+     * Дата и время приёма самой старой ожидающей операции
+     */
+    private LocalDateTime oldestPendingAcceptedAt;
+    
+    /**
+     * Операций записано с момента запуска
+     */
+    private long created;
+    
+    /**
+     * Операций отклонено с момента запуска
+     */
+    private long rejected;
+    
+    /**
+     * Количество файлов локального журнала очереди
+     */
+    private int logSegments;
+    
+    /**
+     * Суммарный размер файлов локального журнала очереди в байтах
+     */
+    private long logBytes;
+    
+    /**
+     * Последняя ошибка записи в базу данных (null — ошибок не было)
+     */
+    private String lastError;
+    
+    /**
+     * Дата и время последней ошибки записи
+     */
+    private LocalDateTime lastErrorAt;
+}
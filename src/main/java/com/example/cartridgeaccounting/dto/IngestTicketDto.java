@@ -0,0 +1,51 @@
+package com.example.cartridgeaccounting.dto;
+
+import com.example.cartridgeaccounting.entity.enums.IngestStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO состояния операции, принятой в асинхронную очередь записи.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestTicketDto {
+    
+    /**
+     * Идентификатор, выданный при приёме операции
+     */
+    private UUID ticketId;
+    
+    /**
+     * Состояние обработки
+     */
+    private IngestStatus status;
+    
+    /**
+     * Дата и время приёма операции
+     */
+    private LocalDateTime acceptedAt;
+    
+    /**
+     * Идентификатор созданной операции (для CREATED)
+     */
+    private UUID operationId;
+    
+    /**
+     * Причина отклонения (для REJECTED)
+     */
+    private String message;
+    
+    /**
+     * Дата и время обработки
+     */
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,41 @@
+package com.example.cartridgeaccounting.dto;
+
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * DTO с количеством картриджей по статусам на одном объекте.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationStockDto {
+    
+    /**
+     * Идентификатор объекта (null — картриджи без объекта: на складе, на заправке, списанные)
+     */
+    private UUID locationId;
+    
+    /**
+     * Название объекта
+     */
+    private String locationName;
+    
+    /**
+     * Количество картриджей по статусам
+     */
+    private Map<CartridgeStatus, Long> counts;
+    
+    /**
+     * Общее количество картриджей на объекте
+     */
+    private long total;
+}
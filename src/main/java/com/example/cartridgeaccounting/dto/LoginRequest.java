@@ -0,0 +1,26 @@
+package com.example.cartridgeaccounting.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * DTO для запроса получения токена доступа.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+public class LoginRequest {
+    
+    /**
+     * Имя пользователя
+     */
+    @NotBlank(message = "Имя пользователя обязательно")
+    private String username;
+    
+    /**
+     * Пароль пользователя
+     */
+    @NotBlank(message = "Пароль обязателен")
+    private String password;
+}
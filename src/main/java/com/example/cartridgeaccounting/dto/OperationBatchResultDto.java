@@ -0,0 +1,39 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationBatchResultDto {
+
+    private int total;
+    private int created;
+    private int rejected;
+    private List<ItemResult> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+
+        private int index;
+        private UUID cartridgeId;
+        private boolean success;
+        private UUID operationId;
+        private String error;
+
+        public static ItemResult created(int index, UUID cartridgeId, UUID operationId) {
+            return new ItemResult(index, cartridgeId, true, operationId, null);
+        }
+
+        public static ItemResult rejected(int index, UUID cartridgeId, String error) {
+            return new ItemResult(index, cartridgeId, false, null, error);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.cartridgeaccounting.dto;
+
+import com.example.cartridgeaccounting.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Позиция в журнале операций для курсорной пагинации: пара (дата операции, ID).
+ * Клиенту передаётся в виде непрозрачной строки base64url.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public record OperationCursor(LocalDateTime operationDate, UUID id) {
+    
+    /**
+     * Позиция перед самой новой операцией журнала (начало первой страницы)
+     */
+    public static final OperationCursor START = new OperationCursor(
+            LocalDateTime.of(9999, 12, 31, 23, 59, 59), new UUID(-1L, -1L));
+    
+    private static final String SEPARATOR = "|";
+    
+    /**
+     * Кодирует позицию в непрозрачную строку
+     * 
+     * @return строка курсора
+     */
+    public String encode() {
+        String raw = operationDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Декодирует курсор, полученный от клиента
+     * 
+     * @param cursor строка курсора; null или пустая строка означает первую страницу
+     * @return позиция в журнале
+     * @throws InvalidCursorException если курсор повреждён
+     */
+    public static OperationCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new OperationCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
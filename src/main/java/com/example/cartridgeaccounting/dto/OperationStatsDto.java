@@ -0,0 +1,50 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO статистики операций за диапазон дат.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationStatsDto {
+    
+    /**
+     * Первый день диапазона
+     */
+    private LocalDate startDate;
+    
+    /**
+     * Последний день диапазона (включительно)
+     */
+    private LocalDate endDate;
+    
+    /**
+     * Период группировки строк
+     */
+    private StatsPeriod period;
+    
+    /**
+     * Общее количество операций за диапазон
+     */
+    private long totalOperations;
+    
+    /**
+     * Общее количество картриджей в операциях за диапазон
+     */
+    private long totalCartridges;
+    
+    /**
+     * Строки статистики
+     */
+    private List<OperationStatsRowDto> rows;
+}
@@ -0,0 +1,52 @@
+package com.example.cartridgeaccounting.dto;
+
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * DTO строки статистики операций.
+ * Поля, по которым группировка не запрашивалась, не заполняются.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationStatsRowDto {
+    
+    /**
+     * Первый день периода (день или первое число месяца)
+     */
+    private LocalDate period;
+    
+    /**
+     * Тип операций
+     */
+    private OperationType type;
+    
+    /**
+     * Идентификатор объекта (null — операции без объекта)
+     */
+    private UUID locationId;
+    
+    /**
+     * Название объекта
+     */
+    private String locationName;
+    
+    /**
+     * Количество операций
+     */
+    private long operationCount;
+    
+    /**
+     * Суммарное количество картриджей в операциях
+     */
+    private long cartridgeCount;
+}
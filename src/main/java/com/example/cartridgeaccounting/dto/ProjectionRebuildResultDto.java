@@ -0,0 +1,47 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO результата восстановления состояния картриджей по журналу операций.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectionRebuildResultDto {
+    
+    /**
+     * Количество секций, обработанных параллельно
+     */
+    private int partitions;
+    
+    /**
+     * Количество применённых операций журнала
+     */
+    private long operations;
+    
+    /**
+     * Количество картриджей, состояние которых вычислено по журналу
+     */
+    private long cartridges;
+    
+    /**
+     * Количество картриджей без операций, сброшенных в начальное состояние
+     */
+    private long resetCartridges;
+    
+    /**
+     * Количество операций, недопустимых в статусе картриджа на момент записи
+     */
+    private long anomalies;
+    
+    /**
+     * Длительность восстановления в миллисекундах
+     */
+    private long durationMillis;
+}
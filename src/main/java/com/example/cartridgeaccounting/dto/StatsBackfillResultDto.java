@@ -0,0 +1,44 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO результата пересчёта суточной статистики операций по журналу.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsBackfillResultDto {
+    
+    /**
+     * Первый пересчитанный день
+     */
+    private LocalDate startDate;
+    
+    /**
+     * Последний пересчитанный день (включительно)
+     */
+    private LocalDate endDate;
+    
+    /**
+     * Количество месяцев, пересчитанных отдельными транзакциями
+     */
+    private int months;
+    
+    /**
+     * Количество записанных строк статистики
+     */
+    private long rows;
+    
+    /**
+     * Длительность пересчёта в миллисекундах
+     */
+    private long durationMillis;
+}
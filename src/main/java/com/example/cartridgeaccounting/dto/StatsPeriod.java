@@ -0,0 +1,24 @@
+package com.example.cartridgeaccounting.dto;
+
+/**
+ * Период группировки статистики операций.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public enum StatsPeriod {
+    /**
+     * Без разбивки по времени: итог за весь диапазон дат
+     */
+    NONE,
+    
+    /**
+     * По дням
+     */
+    DAY,
+    
+    /**
+     * По календарным месяцам
+     */
+    MONTH
+}
@@ -0,0 +1,37 @@
+package com.example.cartridgeaccounting.dto;
+
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO сводки остатков картриджей: матрица "объект × статус" и итоги по статусам.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSummaryDto {
+    
+    /**
+     * Общее количество картриджей по статусам
+     */
+    private Map<CartridgeStatus, Long> totals;
+    
+    /**
+     * Количество картриджей по статусам для каждого объекта
+     */
+    private List<LocationStockDto> locations;
+    
+    /**
+     * Время последнего полного пересчёта сводки по базе данных
+     */
+    private LocalDateTime rebuiltAt;
+}
@@ -0,0 +1,32 @@
+package com.example.cartridgeaccounting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO ответа с токеном доступа.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResponse {
+    
+    /**
+     * Токен доступа для заголовка Authorization
+     */
+    private String accessToken;
+    
+    /**
+     * Тип токена
+     */
+    private String tokenType;
+    
+    /**
+     * Время жизни токена в секундах
+     */
+    private long expiresIn;
+}
@@ -68,6 +68,26 @@ public class Cartridge {
     @JoinColumn(name = "current_location_id")
     private Location currentLocation;
     
+    /**
+     * Версия записи для оптимистической блокировки: параллельное изменение
+     * одного картриджа приводит к конфликту вместо потери одного из переходов
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    /**
+     * Дата последней операции журнала, учтённой в статусе и местоположении картриджа
+     */
+    @Column(name = "state_operation_date")
+    private LocalDateTime stateOperationDate;
+    
+    /**
+     * Идентификатор последней операции журнала, учтённой в статусе и местоположении картриджа
+     */
+    @Column(name = "state_operation_id")
+    private UUID stateOperationId;
+    
     /**
      * Дата и время создания записи
      */
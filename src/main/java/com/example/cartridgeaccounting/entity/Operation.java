@@ -44,24 +44,26 @@ public class Operation {
     private Integer count;
     
     /**
-     * Картридж, с которым выполняется операция
+     * Картридж, с которым выполняется операция.
+     * Внешние ключи журнала создаются миграциями Liquibase: для секционированной таблицы
+     * Hibernate не видит существующие ограничения и при ddl-auto=update создавал бы дубликаты
      */
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "cartridge_id", nullable = false)
+    @JoinColumn(name = "cartridge_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Cartridge cartridge;
     
     /**
      * Объект, связанный с операцией (место назначения или источник)
      */
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "location_id")
+    @JoinColumn(name = "location_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Location location;
     
     /**
      * Пользователь, выполнивший операцию
      */
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "performed_by", nullable = false)
+    @JoinColumn(name = "performed_by", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User performedBy;
     
     /**
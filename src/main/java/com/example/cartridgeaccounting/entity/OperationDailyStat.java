@@ -0,0 +1,50 @@
+package com.example.cartridgeaccounting.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Суточная статистика операций (день × тип × объект).
+ * Заполняется по журналу операций и инкрементально пополняется при создании операций,
+ * чтобы отчёты за произвольный период не сканировали журнал.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Entity
+@Table(name = "operation_daily_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationDailyStat {
+    
+    /**
+     * Значение объекта в ключе для операций, выполненных без объекта
+     */
+    public static final UUID NO_LOCATION = new UUID(0L, 0L);
+    
+    /**
+     * Ключ статистики
+     */
+    @EmbeddedId
+    private OperationDailyStatId id;
+    
+    /**
+     * Количество операций
+     */
+    @Column(name = "operation_count", nullable = false)
+    private long operationCount;
+    
+    /**
+     * Суммарное количество картриджей в операциях
+     */
+    @Column(name = "cartridge_count", nullable = false)
+    private long cartridgeCount;
+}
@@ -0,0 +1,46 @@
+package com.example.cartridgeaccounting.entity;
+
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Ключ суточной статистики операций: день, тип операции и объект.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationDailyStatId implements Serializable {
+    
+    /**
+     * День операций
+     */
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    /**
+     * Тип операций
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OperationType type;
+    
+    /**
+     * Объект операций; для операций без объекта — {@link OperationDailyStat#NO_LOCATION}
+     */
+    @Column(name = "location_id", nullable = false)
+    private UUID locationId;
+}
@@ -0,0 +1,69 @@
+package com.example.cartridgeaccounting.entity;
+
+import com.example.cartridgeaccounting.entity.enums.IngestStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Результат обработки операции из асинхронной очереди записи.
+ * Сохраняется в одной транзакции с созданными операциями, поэтому при повторном чтении
+ * локального журнала очереди после сбоя уже обработанные операции не записываются повторно.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Entity
+@Table(name = "operation_ingest_tickets")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationIngestTicket {
+    
+    /**
+     * Идентификатор, выданный клиенту при приёме операции
+     */
+    @Id
+    @Column(name = "ticket_id")
+    private UUID ticketId;
+    
+    /**
+     * Результат обработки
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IngestStatus status;
+    
+    /**
+     * Идентификатор созданной операции
+     */
+    @Column(name = "operation_id")
+    private UUID operationId;
+    
+    /**
+     * Причина отклонения операции
+     */
+    @Column(length = 500)
+    private String message;
+    
+    /**
+     * Дата и время приёма операции в очередь
+     */
+    @Column(name = "accepted_at", nullable = false)
+    private LocalDateTime acceptedAt;
+    
+    /**
+     * Дата и время обработки операции
+     */
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,24 @@
+package com.example.cartridgeaccounting.entity.enums;
+
+/**
+ * Состояние операции, принятой в асинхронную очередь записи.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public enum IngestStatus {
+    /**
+     * Операция принята и ожидает записи в базу данных
+     */
+    PENDING,
+    
+    /**
+     * Операция записана в журнал операций
+     */
+    CREATED,
+    
+    /**
+     * Операция отклонена при записи (картридж не найден, недопустимый переход и т.п.)
+     */
+    REJECTED
+}
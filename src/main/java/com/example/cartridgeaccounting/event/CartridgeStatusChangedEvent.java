@@ -0,0 +1,27 @@
+package com.example.cartridgeaccounting.event;
+
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+
+import java.util.UUID;
+
+/**
+ * Событие изменения статуса или местоположения картриджа.
+ * Публикуется сервисами внутри транзакции; слушатели обрабатывают его после фиксации.
+ * 
+ * <p>Для нового картриджа previousStatus равен null, для удалённого — newStatus равен null.</p>
+ * 
+ * @param cartridgeId идентификатор картриджа
+ * @param previousStatus статус до изменения
+ * @param previousLocationId местоположение до изменения
+ * @param newStatus статус после изменения
+ * @param newLocationId местоположение после изменения
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public record CartridgeStatusChangedEvent(UUID cartridgeId,
+                                          CartridgeStatus previousStatus,
+                                          UUID previousLocationId,
+                                          CartridgeStatus newStatus,
+                                          UUID newLocationId) {
+}
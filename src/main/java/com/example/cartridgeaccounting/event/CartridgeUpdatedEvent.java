@@ -0,0 +1,15 @@
+package com.example.cartridgeaccounting.event;
+
+import java.util.UUID;
+
+/**
+ * Событие изменения атрибутов картриджа (модель, серийный номер, ресурс, описание).
+ * Изменения статуса и местоположения передаются событием {@link CartridgeStatusChangedEvent}.
+ * 
+ * @param cartridgeId идентификатор картриджа
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public record CartridgeUpdatedEvent(UUID cartridgeId) {
+}
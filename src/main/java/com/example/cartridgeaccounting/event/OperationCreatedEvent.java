@@ -0,0 +1,32 @@
+package com.example.cartridgeaccounting.event;
+
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Событие создания операции с картриджем.
+ * Публикуется внутри транзакции; слушатели (статистика, аналитика) обрабатывают его после фиксации.
+ * 
+ * @param operationId идентификатор операции
+ * @param cartridgeId идентификатор картриджа
+ * @param cartridgeModel модель картриджа
+ * @param resourcePages ресурс картриджа в страницах (null, если не указан)
+ * @param type тип операции
+ * @param locationId объект операции (null, если не указан)
+ * @param count количество картриджей в операции
+ * @param operationDate дата и время операции
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public record OperationCreatedEvent(UUID operationId,
+                                    UUID cartridgeId,
+                                    String cartridgeModel,
+                                    Integer resourcePages,
+                                    OperationType type,
+                                    UUID locationId,
+                                    int count,
+                                    LocalDateTime operationDate) {
+}
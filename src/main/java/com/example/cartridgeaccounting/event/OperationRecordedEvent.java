@@ -0,0 +1,16 @@
+package com.example.cartridgeaccounting.event;
+
+import java.util.UUID;
+
+/**
+ * Событие записи операций в журнал без изменения состояния картриджа
+ * (режим, в котором журнал операций является источником истины).
+ * Проекция состояния обрабатывает его асинхронно после фиксации транзакции.
+ * 
+ * @param cartridgeId идентификатор картриджа
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public record OperationRecordedEvent(UUID cartridgeId) {
+}
@@ -0,0 +1,13 @@
+package com.example.cartridgeaccounting.event;
+
+/**
+ * Событие изменения учётных данных пользователя (пароль, роль, активность, удаление).
+ * Используется для сброса кэшированных результатов аутентификации и отзыва выданных токенов.
+ * 
+ * @param username имя пользователя
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public record UserCredentialsChangedEvent(String username) {
+}
@@ -1,9 +1,13 @@
 package com.example.cartridgeaccounting.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -124,6 +128,188 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
     }
 
+    /**
+     * Обрабатывает исключения при превышении допустимого количества строк результата
+     * 
+     * @param ex исключение превышения лимита строк
+     * @return ответ с ошибкой 400
+     */
+    @ExceptionHandler(ResultLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleResultLimitExceededException(ResultLimitExceededException ex) {
+        log.warn("Превышен лимит строк результата: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Слишком большой результат",
+                ex.getMessage()
+        );
+        
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    /**
+     * Обрабатывает исключения при повреждённом курсоре пагинации
+     * 
+     * @param ex исключение некорректного курсора
+     * @return ответ с ошибкой 400
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursorException(InvalidCursorException ex) {
+        log.warn("Некорректный курсор: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Некорректный курсор",
+                ex.getMessage()
+        );
+        
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    /**
+     * Обрабатывает сортировку по несуществующему полю
+     * 
+     * @param ex исключение неизвестного свойства сущности
+     * @return ответ с ошибкой 400
+     */
+    @ExceptionHandler(PropertyReferenceException.class)
+    public ResponseEntity<ErrorResponse> handlePropertyReferenceException(PropertyReferenceException ex) {
+        log.warn("Некорректное поле сортировки: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Некорректная сортировка",
+                "Неизвестное поле сортировки: " + ex.getPropertyName()
+        );
+        
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    /**
+     * Обрабатывает исключения при некорректном файле импорта
+     * 
+     * @param ex исключение некорректного файла импорта
+     * @return ответ с ошибкой 400
+     */
+    @ExceptionHandler(InvalidImportFileException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidImportFileException(InvalidImportFileException ex) {
+        log.warn("Некорректный файл импорта: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Некорректный файл импорта",
+                ex.getMessage()
+        );
+        
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    /**
+     * Обрабатывает конфликты параллельного изменения данных, не устранённые повторами
+     * 
+     * @param ex исключение оптимистической блокировки
+     * @return ответ с ошибкой 409
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        log.warn("Конфликт параллельного изменения: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Конфликт параллельного изменения",
+                "Данные были изменены другой операцией, повторите запрос"
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    /**
+     * Обрабатывает повторный запуск восстановления состояния картриджей
+     * 
+     * @param ex исключение выполняющегося восстановления
+     * @return ответ с ошибкой 409
+     */
+    @ExceptionHandler(ProjectionRebuildInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleProjectionRebuildInProgressException(ProjectionRebuildInProgressException ex) {
+        log.warn("Восстановление состояния уже выполняется: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Восстановление уже выполняется",
+                ex.getMessage()
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    /**
+     * Обработка запуска восстановления при архивированных секциях журнала
+     * 
+     * @param ex исключение недоступного восстановления
+     * @return ответ с ошибкой 409
+     */
+    @ExceptionHandler(ProjectionRebuildUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleProjectionRebuildUnavailableException(ProjectionRebuildUnavailableException ex) {
+        log.warn("Восстановление состояния недоступно: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Восстановление недоступно",
+                ex.getMessage()
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    /**
+     * Обрабатывает переполнение асинхронной очереди записи операций
+     * 
+     * @param ex исключение переполнения очереди
+     * @return ответ с ошибкой 429 и заголовком Retry-After
+     */
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleIngestQueueFullException(IngestQueueFullException ex) {
+        log.warn("Очередь записи операций заполнена: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Очередь записи заполнена",
+                ex.getMessage()
+        );
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    /**
+     * Обрабатывает запрос состояния неизвестной операции асинхронной очереди
+     * 
+     * @param ex исключение отсутствия операции в очереди
+     * @return ответ с ошибкой 404
+     */
+    @ExceptionHandler(IngestTicketNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleIngestTicketNotFoundException(IngestTicketNotFoundException ex) {
+        log.warn("Операция очереди записи не найдена: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.NOT_FOUND.value(),
+                "Операция очереди не найдена",
+                ex.getMessage()
+        );
+        
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+
     /**
      * Обрабатывает исключения доступа запрещен
      * 
@@ -144,6 +330,26 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
     }
 
+    /**
+     * Обрабатывает исключения неуспешной аутентификации
+     * 
+     * @param ex исключение аутентификации
+     * @return ответ с ошибкой 401
+     */
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ErrorResponse> handleAuthenticationException(AuthenticationException ex) {
+        log.warn("Ошибка аутентификации: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.UNAUTHORIZED.value(),
+                "Ошибка аутентификации",
+                "Неверное имя пользователя или пароль"
+        );
+        
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+    }
+
     /**
      * Обрабатывает исключения валидации данных
      * 
@@ -0,0 +1,20 @@
+package com.example.cartridgeaccounting.exception;
+
+/**
+ * Исключение, возникающее при приёме операции в асинхронную очередь записи,
+ * когда очередь заполнена и запись в базу данных не успевает за приёмом.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public class IngestQueueFullException extends RuntimeException {
+    
+    /**
+     * Конструктор с ёмкостью очереди
+     * 
+     * @param capacity ёмкость очереди
+     */
+    public IngestQueueFullException(int capacity) {
+        super("Очередь записи операций заполнена (" + capacity + "), повторите запрос позже");
+    }
+}
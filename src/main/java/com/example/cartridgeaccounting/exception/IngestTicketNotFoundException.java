@@ -0,0 +1,22 @@
+package com.example.cartridgeaccounting.exception;
+
+import java.util.UUID;
+
+/**
+ * Исключение, возникающее при запросе состояния неизвестной операции асинхронной очереди
+ * (идентификатор не выдавался или результат уже удалён по сроку хранения).
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public class IngestTicketNotFoundException extends RuntimeException {
+    
+    /**
+     * Конструктор с идентификатором операции в очереди
+     * 
+     * @param ticketId идентификатор, выданный при приёме операции
+     */
+    public IngestTicketNotFoundException(UUID ticketId) {
+        super("Операция очереди записи с ID " + ticketId + " не найдена");
+    }
+}
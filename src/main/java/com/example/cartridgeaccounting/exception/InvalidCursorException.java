@@ -0,0 +1,19 @@
+package com.example.cartridgeaccounting.exception;
+
+/**
+ * Исключение, возникающее при передаче повреждённого курсора пагинации.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public class InvalidCursorException extends RuntimeException {
+    
+    /**
+     * Конструктор с курсором
+     * 
+     * @param cursor некорректный курсор
+     */
+    public InvalidCursorException(String cursor) {
+        super("Некорректный курсор пагинации: " + cursor);
+    }
+}
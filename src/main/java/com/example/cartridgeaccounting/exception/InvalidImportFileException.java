@@ -0,0 +1,20 @@
+package com.example.cartridgeaccounting.exception;
+
+/**
+ * Исключение, возникающее при загрузке файла импорта неверной структуры.
+ * Выбрасывается когда в CSV отсутствует заголовок или обязательные колонки.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public class InvalidImportFileException extends RuntimeException {
+    
+    /**
+     * Конструктор с сообщением
+     * 
+     * @param message описание ошибки
+     */
+    public InvalidImportFileException(String message) {
+        super("Некорректный файл импорта: " + message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.cartridgeaccounting.exception;
+
+/**
+ * Исключение, возникающее при запуске восстановления состояния картриджей,
+ * когда предыдущее восстановление ещё не завершено.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public class ProjectionRebuildInProgressException extends RuntimeException {
+    
+    /**
+     * Конструктор по умолчанию
+     */
+    public ProjectionRebuildInProgressException() {
+        super("Восстановление состояния картриджей по журналу уже выполняется");
+    }
+}
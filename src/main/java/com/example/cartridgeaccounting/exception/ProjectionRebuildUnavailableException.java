@@ -0,0 +1,23 @@
+package com.example.cartridgeaccounting.exception;
+
+/**
+ * Исключение, возникающее при запуске восстановления состояния картриджей,
+ * когда часть журнала операций перенесена в архивную схему и восстановление
+ * по оставшимся операциям сбросило бы состояние картриджей.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public class ProjectionRebuildUnavailableException extends RuntimeException {
+    
+    /**
+     * Конструктор с архивной схемой
+     * 
+     * @param archiveSchema схема с отсоединёнными секциями журнала
+     * @param partitions количество архивных секций
+     */
+    public ProjectionRebuildUnavailableException(String archiveSchema, long partitions) {
+        super("Восстановление состояния картриджей по журналу недоступно: " + partitions +
+                " секций журнала перенесено в схему " + archiveSchema);
+    }
+}
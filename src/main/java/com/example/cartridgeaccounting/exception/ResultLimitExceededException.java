@@ -0,0 +1,19 @@
+package com.example.cartridgeaccounting.exception;
+
+/**
+ * Исключение, возникающее, когда запрос без пагинации возвращает больше строк, чем допускает сервер.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public class ResultLimitExceededException extends RuntimeException {
+    
+    /**
+     * Конструктор с допустимым количеством строк
+     * 
+     * @param maxRows допустимое количество строк
+     */
+    public ResultLimitExceededException(int maxRows) {
+        super("Результат запроса превышает " + maxRows + " строк: уточните условия поиска");
+    }
+}
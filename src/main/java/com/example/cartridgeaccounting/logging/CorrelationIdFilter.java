@@ -0,0 +1,59 @@
+package com.example.cartridgeaccounting.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Фильтр идентификатора запроса для сквозного поиска записей журнала.
+ * Берёт идентификатор из заголовка {@code X-Request-Id} (или создаёт новый), кладёт его в MDC
+ * под ключом {@code requestId} на время обработки запроса и возвращает в том же заголовке ответа.
+ * Фильтр стоит первым, поэтому идентификатор есть и в записях фильтров безопасности.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+    
+    /**
+     * Заголовок запроса и ответа с идентификатором
+     */
+    public static final String HEADER = "X-Request-Id";
+    
+    /**
+     * Ключ идентификатора запроса в MDC
+     */
+    public static final String MDC_KEY = "requestId";
+    
+    // Идентификатор клиента попадает в журнал, поэтому принимается только короткое безопасное значение
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(HEADER);
+        if (requestId == null || !VALID_ID.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        
+        MDC.put(MDC_KEY, requestId);
+        response.setHeader(HEADER, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+}
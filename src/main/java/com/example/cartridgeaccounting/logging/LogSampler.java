@@ -0,0 +1,78 @@
+package com.example.cartridgeaccounting.logging;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничитель частоты записей журнала для часто вызываемых участков кода.
+ * Пропускает не более заданного числа записей за интервал, остальные отбрасывает и считает;
+ * число отброшенных записей выводится в следующей пропущенной записи. Проверка не блокирует
+ * потоки и не выделяет память, поэтому её можно вызывать на каждый запрос.
+ * 
+ * <pre>{@code
+ * if (sampler.tryAcquire()) {
+ *     log.info("Операция создана: {} (пропущено похожих записей: {})", id, sampler.takeSuppressed());
+ * }
+ * }</pre>
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public final class LogSampler {
+    
+    private final long intervalNanos;
+    private final long permitsPerInterval;
+    
+    private final AtomicLong windowStart;
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    
+    /**
+     * Создаёт ограничитель
+     * 
+     * @param permitsPerInterval записей за интервал
+     * @param interval длительность интервала
+     */
+    public LogSampler(long permitsPerInterval, Duration interval) {
+        this.intervalNanos = interval.toNanos();
+        this.permitsPerInterval = permitsPerInterval;
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+    
+    /**
+     * Создаёт ограничитель на заданное число записей в секунду
+     * 
+     * @param permits записей в секунду
+     * @return ограничитель
+     */
+    public static LogSampler perSecond(long permits) {
+        return new LogSampler(permits, Duration.ofSeconds(1));
+    }
+    
+    /**
+     * Проверяет, можно ли сделать запись сейчас
+     * 
+     * @return true, если запись укладывается в лимит текущего интервала
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= intervalNanos && windowStart.compareAndSet(start, now)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() <= permitsPerInterval) {
+            return true;
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+    
+    /**
+     * Возвращает число записей, отброшенных с момента предыдущего вызова, и обнуляет счётчик
+     * 
+     * @return число отброшенных записей
+     */
+    public long takeSuppressed() {
+        return suppressed.getAndSet(0);
+    }
+}
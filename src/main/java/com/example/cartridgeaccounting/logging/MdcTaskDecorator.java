@@ -0,0 +1,39 @@
+package com.example.cartridgeaccounting.logging;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Переносит MDC (идентификатор запроса) в асинхронные задачи, запущенные при обработке запроса,
+ * например в проекцию состояния картриджей. Spring Boot применяет декоратор к пулу задач приложения.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Component
+public class MdcTaskDecorator implements TaskDecorator {
+    
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        if (context == null) {
+            return runnable;
+        }
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            MDC.setContextMap(context);
+            try {
+                runnable.run();
+            } finally {
+                if (previous != null) {
+                    MDC.setContextMap(previous);
+                } else {
+                    MDC.clear();
+                }
+            }
+        };
+    }
+}
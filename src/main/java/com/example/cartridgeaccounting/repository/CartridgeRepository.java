@@ -3,36 +3,146 @@ package com.example.cartridgeaccounting.repository;
 import com.example.cartridgeaccounting.entity.Cartridge;
 import com.example.cartridgeaccounting.entity.Location;
 import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
-public interface CartridgeRepository extends JpaRepository<Cartridge, UUID> {
+public interface CartridgeRepository extends JpaRepository<Cartridge, UUID>, JpaSpecificationExecutor<Cartridge> {
     
     Optional<Cartridge> findBySerialNumber(String serialNumber);
     
     boolean existsBySerialNumber(String serialNumber);
     
+    @Query("SELECT c.serialNumber FROM Cartridge c WHERE c.serialNumber IN :serialNumbers")
+    Set<String> findExistingSerialNumbers(@Param("serialNumbers") Collection<String> serialNumbers);
+    
+    /**
+     * Загружает картриджи с блокировкой строк на запись, пропуская строки,
+     * уже заблокированные другими транзакциями (SELECT ... FOR UPDATE SKIP LOCKED)
+     * 
+     * @param ids идентификаторы картриджей
+     * @return картриджи, которые удалось заблокировать
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT c FROM Cartridge c WHERE c.id IN :ids")
+    List<Cartridge> findAllByIdForUpdateSkipLocked(@Param("ids") Collection<UUID> ids);
+    
+    /**
+     * Загружает картриджи с блокировкой строк на запись. Строки блокируются в порядке
+     * идентификаторов, чтобы параллельные пакеты не блокировали друг друга взаимно.
+     * 
+     * @param ids идентификаторы картриджей
+     * @return заблокированные картриджи
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cartridge c WHERE c.id IN :ids ORDER BY c.id")
+    List<Cartridge> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cartridge c WHERE c.id = :id")
+    Optional<Cartridge> findByIdForUpdate(@Param("id") UUID id);
+    
+    @Query("SELECT c.id FROM Cartridge c WHERE c.id IN :ids")
+    Set<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+    
+    /**
+     * Возвращает статусы картриджей вместе с операциями журнала, ещё не учтёнными в них.
+     * Снимок и операции читаются одним запросом, поэтому результат согласован, даже если
+     * проекция параллельно обновляет картридж. Для картриджа без таких операций возвращается
+     * одна строка с пустым типом операции.
+     * 
+     * @param ids идентификаторы картриджей
+     * @param since нижняя граница даты операций (самая ранняя позиция снимка среди картриджей)
+     * @return строки, упорядоченные по картриджу и порядку журнала
+     */
+    @Query("SELECT c.id AS cartridgeId, c.status AS status, o.type AS type FROM Cartridge c " +
+           "LEFT JOIN Operation o ON o.cartridge = c AND o.operationDate >= :since " +
+           "AND (c.stateOperationDate IS NULL OR o.operationDate > c.stateOperationDate " +
+           "OR (o.operationDate = c.stateOperationDate AND o.id > c.stateOperationId)) " +
+           "WHERE c.id IN :ids ORDER BY c.id, o.operationDate, o.id")
+    List<PendingState> findStatesWithUnprojectedOperations(@Param("ids") Collection<UUID> ids,
+                                                           @Param("since") LocalDateTime since);
+    
+    @Query("SELECT c.status FROM Cartridge c WHERE c.id = :id")
+    Optional<CartridgeStatus> findStatusById(@Param("id") UUID id);
+    
     List<Cartridge> findByModel(String model);
     
-    List<Cartridge> findByStatus(CartridgeStatus status);
+    @Query(value = "SELECT c FROM Cartridge c LEFT JOIN FETCH c.currentLocation WHERE c.status = :status",
+           countQuery = "SELECT COUNT(c) FROM Cartridge c WHERE c.status = :status")
+    Page<Cartridge> findByStatus(@Param("status") CartridgeStatus status, Pageable pageable);
     
-    List<Cartridge> findByCurrentLocation(Location location);
+    @Query(value = "SELECT c FROM Cartridge c JOIN FETCH c.currentLocation l WHERE l.id = :locationId",
+           countQuery = "SELECT COUNT(c) FROM Cartridge c WHERE c.currentLocation.id = :locationId")
+    Page<Cartridge> findByCurrentLocationId(@Param("locationId") UUID locationId, Pageable pageable);
     
     List<Cartridge> findByCurrentLocationAndStatus(Location location, CartridgeStatus status);
     
-    @Query("SELECT c FROM Cartridge c WHERE c.model LIKE %:model% OR c.serialNumber LIKE %:serialNumber%")
-    Page<Cartridge> findByModelOrSerialNumberContaining(@Param("model") String model, 
-                                                        @Param("serialNumber") String serialNumber, 
-                                                        Pageable pageable);
+    /**
+     * Ищет картриджи по подстроке модели или серийного номера без учёта регистра.
+     * Условия LIKE обслуживаются триграммными GIN-индексами, результаты упорядочены
+     * по похожести на искомую строку. pg_trgm не учитывает символы, отличные от букв
+     * и цифр, поэтому похожесть вычисляется прямо по шаблону LIKE.
+     * 
+     * @param modelPattern экранированный шаблон LIKE для модели в нижнем регистре (null — не искать по модели)
+     * @param serialNumberPattern экранированный шаблон LIKE для серийного номера в нижнем регистре (null — не искать по номеру)
+     * @param pageable параметры пагинации (сортировка не применяется)
+     * @return страница найденных картриджей
+     */
+    @Query(value = "SELECT c.* FROM cartridges c " +
+                   "WHERE lower(c.model) LIKE CAST(:modelPattern AS text) ESCAPE '\\' " +
+                   "OR lower(c.serial_number) LIKE CAST(:serialNumberPattern AS text) ESCAPE '\\' " +
+                   "ORDER BY GREATEST(similarity(lower(c.model), CAST(:modelPattern AS text)), " +
+                   "similarity(lower(c.serial_number), CAST(:serialNumberPattern AS text))) DESC, c.serial_number, c.id",
+           countQuery = "SELECT COUNT(*) FROM cartridges c " +
+                        "WHERE lower(c.model) LIKE CAST(:modelPattern AS text) ESCAPE '\\' " +
+                        "OR lower(c.serial_number) LIKE CAST(:serialNumberPattern AS text) ESCAPE '\\'",
+           nativeQuery = true)
+    Page<Cartridge> searchByModelOrSerialNumber(@Param("modelPattern") String modelPattern,
+                                                @Param("serialNumberPattern") String serialNumberPattern,
+                                                Pageable pageable);
+    
+    @Query("SELECT c FROM Cartridge c WHERE lower(c.serialNumber) LIKE :pattern ESCAPE '\\' " +
+           "ORDER BY lower(c.serialNumber)")
+    List<Cartridge> findBySerialNumberPrefix(@Param("pattern") String pattern, Pageable pageable);
+    
+    @Query("SELECT c.currentLocation.id AS locationId, c.status AS status, COUNT(c) AS count " +
+           "FROM Cartridge c GROUP BY c.currentLocation.id, c.status")
+    List<StockCount> countGroupedByLocationAndStatus();
+    
+    /**
+     * Возвращает статус и местоположение указанных картриджей; используется при пересчёте
+     * сводки остатков, чтобы сверить с ним события, пришедшие во время пересчёта
+     * 
+     * @param cartridgeIds идентификаторы картриджей
+     * @return статусы и местоположения найденных картриджей
+     */
+    @Query("SELECT c.id AS id, c.currentLocation.id AS locationId, c.status AS status " +
+           "FROM Cartridge c WHERE c.id IN :cartridgeIds")
+    List<StockState> findStockStates(@Param("cartridgeIds") Collection<UUID> cartridgeIds);
+    
+    @Query("SELECT c.currentLocation.id AS locationId, c.model AS model, COUNT(c) AS count " +
+           "FROM Cartridge c WHERE c.status = :status AND c.currentLocation IS NOT NULL " +
+           "GROUP BY c.currentLocation.id, c.model")
+    List<ModelStockCount> countByLocationAndModel(@Param("status") CartridgeStatus status);
     
     @Query("SELECT COUNT(c) FROM Cartridge c WHERE c.status = :status")
     long countByStatus(@Param("status") CartridgeStatus status);
@@ -40,4 +150,97 @@ public interface CartridgeRepository extends JpaRepository<Cartridge, UUID> {
     @Query("SELECT COUNT(c) FROM Cartridge c WHERE c.currentLocation = :location AND c.status = :status")
     long countByLocationAndStatus(@Param("location") Location location, 
                                  @Param("status") CartridgeStatus status);
-} 
\ No newline at end of file
+    
+    /**
+     * Возвращает сведения обо всех картриджах с серийным номером для индекса сканирования
+     * 
+     * @return сведения о картриджах
+     */
+    @Query("SELECT c.id AS id, c.serialNumber AS serialNumber, c.model AS model, c.resourcePages AS resourcePages, " +
+           "c.description AS description, c.status AS status, c.currentLocation.id AS locationId, " +
+           "c.createdAt AS createdAt, c.updatedAt AS updatedAt FROM Cartridge c WHERE c.serialNumber IS NOT NULL")
+    List<SerialSummary> findAllSerialSummaries();
+    
+    /**
+     * Возвращает сведения о картриджах с указанными серийными номерами
+     * 
+     * @param serialNumbers серийные номера
+     * @return сведения о найденных картриджах
+     */
+    @Query("SELECT c.id AS id, c.serialNumber AS serialNumber, c.model AS model, c.resourcePages AS resourcePages, " +
+           "c.description AS description, c.status AS status, c.currentLocation.id AS locationId, " +
+           "c.createdAt AS createdAt, c.updatedAt AS updatedAt FROM Cartridge c WHERE c.serialNumber IN :serialNumbers")
+    List<SerialSummary> findSerialSummaries(@Param("serialNumbers") Collection<String> serialNumbers);
+    
+    /**
+     * Количество картриджей в ячейке "объект × статус"
+     */
+    interface StockCount {
+        
+        UUID getLocationId();
+        
+        CartridgeStatus getStatus();
+        
+        long getCount();
+    }
+    
+    /**
+     * Статус и местоположение картриджа
+     */
+    interface StockState {
+        
+        UUID getId();
+        
+        UUID getLocationId();
+        
+        CartridgeStatus getStatus();
+    }
+    
+    /**
+     * Количество картриджей модели на объекте
+     */
+    interface ModelStockCount {
+        
+        UUID getLocationId();
+        
+        String getModel();
+        
+        long getCount();
+    }
+    
+    /**
+     * Статус картриджа по снимку и тип очередной неприменённой операции (null, если таких нет)
+     */
+    interface PendingState {
+        
+        UUID getCartridgeId();
+        
+        CartridgeStatus getStatus();
+        
+        OperationType getType();
+    }
+    
+    /**
+     * Сведения о картридже без загрузки сущности и объекта
+     */
+    interface SerialSummary {
+        
+        UUID getId();
+        
+        String getSerialNumber();
+        
+        String getModel();
+        
+        Integer getResourcePages();
+        
+        String getDescription();
+        
+        CartridgeStatus getStatus();
+        
+        UUID getLocationId();
+        
+        LocalDateTime getCreatedAt();
+        
+        LocalDateTime getUpdatedAt();
+    }
+}
\ No newline at end of file
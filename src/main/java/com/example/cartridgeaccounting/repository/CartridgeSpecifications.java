@@ -0,0 +1,134 @@
+package com.example.cartridgeaccounting.repository;
+
+import com.example.cartridgeaccounting.dto.CartridgeQueryRequest;
+import com.example.cartridgeaccounting.entity.Cartridge;
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Условия динамического отбора картриджей для {@link CartridgeRepository#findAll(Specification, org.springframework.data.domain.Pageable)}.
+ * Каждое условие для пустого значения возвращает {@code null} и при объединении пропускается.
+ * Условия записаны так, чтобы PostgreSQL мог использовать составные индексы
+ * changeset {@code 11-cartridges-filter-indexes.sql}: модель сравнивается через {@code lower(model)},
+ * периоды — полуинтервалами.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public final class CartridgeSpecifications {
+    
+    private CartridgeSpecifications() {
+    }
+    
+    /**
+     * Объединяет все заданные условия запроса
+     * 
+     * @param request условия отбора
+     * @return условие для репозитория
+     */
+    public static Specification<Cartridge> matching(CartridgeQueryRequest request) {
+        return Specification.where(fetchLocation())
+                .and(hasModel(request.getModel()))
+                .and(hasStatusIn(request.getStatus()))
+                .and(atLocation(request.getLocationId()))
+                .and(resourcePagesBetween(request.getMinResourcePages(), request.getMaxResourcePages()))
+                .and(within("createdAt", request.getCreatedFrom(), request.getCreatedTo()))
+                .and(within("updatedAt", request.getUpdatedFrom(), request.getUpdatedTo()));
+    }
+    
+    /**
+     * Модель совпадает с указанной без учёта регистра
+     * 
+     * @param model модель картриджа
+     * @return условие или {@code null}, если модель не задана
+     */
+    public static Specification<Cartridge> hasModel(String model) {
+        if (model == null || model.isBlank()) {
+            return null;
+        }
+        String value = model.trim().toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("model")), value);
+    }
+    
+    /**
+     * Статус картриджа входит в указанный набор
+     * 
+     * @param statuses допустимые статусы
+     * @return условие или {@code null}, если статусы не заданы
+     */
+    public static Specification<Cartridge> hasStatusIn(Collection<CartridgeStatus> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> statuses.size() == 1
+                ? cb.equal(root.get("status"), statuses.iterator().next())
+                : root.get("status").in(statuses);
+    }
+    
+    /**
+     * Картридж находится на указанном объекте
+     * 
+     * @param locationId идентификатор объекта
+     * @return условие или {@code null}, если объект не задан
+     */
+    public static Specification<Cartridge> atLocation(UUID locationId) {
+        if (locationId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("currentLocation").get("id"), locationId);
+    }
+    
+    /**
+     * Ресурс картриджа в страницах попадает в диапазон (границы включительно)
+     * 
+     * @param min минимальный ресурс
+     * @param max максимальный ресурс
+     * @return условие или {@code null}, если границы не заданы
+     */
+    public static Specification<Cartridge> resourcePagesBetween(Integer min, Integer max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (min == null) {
+                return cb.le(root.get("resourcePages"), max);
+            }
+            if (max == null) {
+                return cb.ge(root.get("resourcePages"), min);
+            }
+            return cb.between(root.get("resourcePages"), min, max);
+        };
+    }
+    
+    // Полуинтервал [from, to): соседние периоды не пересекаются
+    private static Specification<Cartridge> within(String attribute, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThan(root.get(attribute), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get(attribute), from);
+            }
+            return cb.and(cb.greaterThanOrEqualTo(root.get(attribute), from), cb.lessThan(root.get(attribute), to));
+        };
+    }
+    
+    // Объект загружается тем же запросом, что и страница; в запросе количества строк соединение не нужно
+    private static Specification<Cartridge> fetchLocation() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("currentLocation", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.cartridgeaccounting.repository;
 
 import com.example.cartridgeaccounting.entity.Location;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -13,9 +14,9 @@ public interface LocationRepository extends JpaRepository<Location, UUID> {
     
     Optional<Location> findByName(String name);
     
-    List<Location> findByActive(boolean active);
+    List<Location> findByActive(boolean active, Limit limit);
     
-    List<Location> findByAddressContainingIgnoreCase(String address);
+    List<Location> findByAddressContainingIgnoreCase(String address, Limit limit);
     
-    List<Location> findByContactPersonContainingIgnoreCase(String contactPerson);
+    List<Location> findByContactPersonContainingIgnoreCase(String contactPerson, Limit limit);
 } 
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.cartridgeaccounting.repository;
+
+import com.example.cartridgeaccounting.entity.OperationDailyStat;
+import com.example.cartridgeaccounting.entity.OperationDailyStatId;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface OperationDailyStatRepository extends JpaRepository<OperationDailyStat, OperationDailyStatId> {
+    
+    @Query("SELECT COALESCE(SUM(s.operationCount), 0) FROM OperationDailyStat s " +
+           "WHERE s.id.type = :type AND s.id.statDate BETWEEN :startDate AND :endDate")
+    long sumOperationCount(@Param("type") OperationType type,
+                           @Param("startDate") LocalDate startDate,
+                           @Param("endDate") LocalDate endDate);
+}
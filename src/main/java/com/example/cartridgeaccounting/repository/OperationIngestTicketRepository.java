@@ -0,0 +1,24 @@
+package com.example.cartridgeaccounting.repository;
+
+import com.example.cartridgeaccounting.entity.OperationIngestTicket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+public interface OperationIngestTicketRepository extends JpaRepository<OperationIngestTicket, UUID> {
+    
+    @Query("SELECT t.ticketId FROM OperationIngestTicket t WHERE t.ticketId IN :ticketIds")
+    Set<UUID> findExistingIds(@Param("ticketIds") Collection<UUID> ticketIds);
+    
+    @Modifying
+    @Query("DELETE FROM OperationIngestTicket t WHERE t.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
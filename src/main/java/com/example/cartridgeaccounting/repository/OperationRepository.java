@@ -1,47 +1,184 @@
 package com.example.cartridgeaccounting.repository;
 
-import com.example.cartridgeaccounting.entity.Cartridge;
-import com.example.cartridgeaccounting.entity.Location;
 import com.example.cartridgeaccounting.entity.Operation;
-import com.example.cartridgeaccounting.entity.User;
 import com.example.cartridgeaccounting.entity.enums.OperationType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface OperationRepository extends JpaRepository<Operation, UUID> {
     
-    List<Operation> findByCartridge(Cartridge cartridge);
+    @Query(value = "SELECT o FROM Operation o JOIN FETCH o.cartridge LEFT JOIN FETCH o.location JOIN FETCH o.performedBy",
+           countQuery = "SELECT COUNT(o) FROM Operation o")
+    Page<Operation> findAllWithDetails(Pageable pageable);
     
-    List<Operation> findByLocation(Location location);
+    @Query(value = "SELECT o FROM Operation o JOIN FETCH o.cartridge LEFT JOIN FETCH o.location JOIN FETCH o.performedBy " +
+                   "WHERE o.cartridge.id = :cartridgeId ORDER BY o.operationDate DESC",
+           countQuery = "SELECT COUNT(o) FROM Operation o WHERE o.cartridge.id = :cartridgeId")
+    Page<Operation> findByCartridgeOrderByDateDesc(@Param("cartridgeId") UUID cartridgeId, Pageable pageable);
     
-    List<Operation> findByPerformedBy(User user);
+    @Query(value = "SELECT o FROM Operation o JOIN FETCH o.cartridge LEFT JOIN FETCH o.location JOIN FETCH o.performedBy " +
+                   "WHERE o.location.id = :locationId ORDER BY o.operationDate DESC",
+           countQuery = "SELECT COUNT(o) FROM Operation o WHERE o.location.id = :locationId")
+    Page<Operation> findByLocationOrderByDateDesc(@Param("locationId") UUID locationId, Pageable pageable);
     
-    List<Operation> findByType(OperationType type);
+    @Query(value = "SELECT o FROM Operation o JOIN FETCH o.cartridge LEFT JOIN FETCH o.location JOIN FETCH o.performedBy " +
+                   "WHERE o.operationDate BETWEEN :startDate AND :endDate ORDER BY o.operationDate DESC",
+           countQuery = "SELECT COUNT(o) FROM Operation o WHERE o.operationDate BETWEEN :startDate AND :endDate")
+    Page<Operation> findByDateRangeOrderByDateDesc(@Param("startDate") LocalDateTime startDate, 
+                                                  @Param("endDate") LocalDateTime endDate, 
+                                                  Pageable pageable);
     
-    List<Operation> findByOperationDateBetween(LocalDateTime startDate, LocalDateTime endDate);
+    @Query("SELECT o FROM Operation o JOIN FETCH o.cartridge LEFT JOIN FETCH o.location JOIN FETCH o.performedBy " +
+           "WHERE o.operationDate <= :afterDate " +
+           "AND (o.operationDate < :afterDate OR o.id < :afterId) " +
+           "ORDER BY o.operationDate DESC, o.id DESC")
+    List<Operation> findJournalAfter(@Param("afterDate") LocalDateTime afterDate, 
+                                     @Param("afterId") UUID afterId, 
+                                     Pageable pageable);
     
-    @Query("SELECT o FROM Operation o WHERE o.cartridge = :cartridge ORDER BY o.operationDate DESC")
-    Page<Operation> findByCartridgeOrderByDateDesc(@Param("cartridge") Cartridge cartridge, Pageable pageable);
+    @Query("SELECT o FROM Operation o JOIN FETCH o.cartridge LEFT JOIN FETCH o.location JOIN FETCH o.performedBy " +
+           "WHERE o.cartridge.id = :cartridgeId AND o.operationDate <= :afterDate " +
+           "AND (o.operationDate < :afterDate OR o.id < :afterId) " +
+           "ORDER BY o.operationDate DESC, o.id DESC")
+    List<Operation> findJournalByCartridgeAfter(@Param("cartridgeId") UUID cartridgeId, 
+                                                @Param("afterDate") LocalDateTime afterDate, 
+                                                @Param("afterId") UUID afterId, 
+                                                Pageable pageable);
     
-    @Query("SELECT o FROM Operation o WHERE o.location = :location ORDER BY o.operationDate DESC")
-    Page<Operation> findByLocationOrderByDateDesc(@Param("location") Location location, Pageable pageable);
+    @Query("SELECT o FROM Operation o JOIN FETCH o.cartridge LEFT JOIN FETCH o.location JOIN FETCH o.performedBy " +
+           "WHERE o.location.id = :locationId AND o.operationDate <= :afterDate " +
+           "AND (o.operationDate < :afterDate OR o.id < :afterId) " +
+           "ORDER BY o.operationDate DESC, o.id DESC")
+    List<Operation> findJournalByLocationAfter(@Param("locationId") UUID locationId, 
+                                               @Param("afterDate") LocalDateTime afterDate, 
+                                               @Param("afterId") UUID afterId, 
+                                               Pageable pageable);
     
-    @Query("SELECT o FROM Operation o WHERE o.operationDate BETWEEN :startDate AND :endDate ORDER BY o.operationDate DESC")
-    Page<Operation> findByDateRangeOrderByDateDesc(@Param("startDate") LocalDateTime startDate, 
-                                                  @Param("endDate") LocalDateTime endDate, 
-                                                  Pageable pageable);
+    @Query("SELECT o FROM Operation o JOIN FETCH o.cartridge LEFT JOIN FETCH o.location JOIN FETCH o.performedBy " +
+           "WHERE o.type = :type AND o.operationDate <= :afterDate " +
+           "AND (o.operationDate < :afterDate OR o.id < :afterId) " +
+           "ORDER BY o.operationDate DESC, o.id DESC")
+    List<Operation> findJournalByTypeAfter(@Param("type") OperationType type, 
+                                           @Param("afterDate") LocalDateTime afterDate, 
+                                           @Param("afterId") UUID afterId, 
+                                           Pageable pageable);
+    
+    @Query("SELECT o FROM Operation o JOIN FETCH o.cartridge LEFT JOIN FETCH o.location JOIN FETCH o.performedBy " +
+           "WHERE o.operationDate BETWEEN :startDate AND :endDate AND o.operationDate <= :afterDate " +
+           "AND (o.operationDate < :afterDate OR o.id < :afterId) " +
+           "ORDER BY o.operationDate DESC, o.id DESC")
+    List<Operation> findJournalByDateRangeAfter(@Param("startDate") LocalDateTime startDate, 
+                                                @Param("endDate") LocalDateTime endDate, 
+                                                @Param("afterDate") LocalDateTime afterDate, 
+                                                @Param("afterId") UUID afterId, 
+                                                Pageable pageable);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT o FROM Operation o JOIN FETCH o.cartridge LEFT JOIN FETCH o.location JOIN FETCH o.performedBy " +
+           "WHERE o.operationDate BETWEEN :startDate AND :endDate ORDER BY o.operationDate, o.id")
+    Stream<Operation> streamByDateRange(@Param("startDate") LocalDateTime startDate, 
+                                        @Param("endDate") LocalDateTime endDate);
     
     @Query("SELECT COUNT(o) FROM Operation o WHERE o.type = :type AND o.operationDate BETWEEN :startDate AND :endDate")
     long countByTypeAndDateRange(@Param("type") OperationType type, 
                                 @Param("startDate") LocalDateTime startDate, 
                                 @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Считает операции типа в полуинтервале [from, to); используется для неполных
+     * дней на границах диапазона, остальные дни берутся из суточной статистики
+     * 
+     * @param type тип операции
+     * @param from начало интервала (включительно)
+     * @param to конец интервала (не включительно)
+     * @return количество операций
+     */
+    @Query("SELECT COUNT(o) FROM Operation o WHERE o.type = :type AND o.operationDate >= :from AND o.operationDate < :to")
+    long countByTypeInInterval(@Param("type") OperationType type, 
+                               @Param("from") LocalDateTime from, 
+                               @Param("to") LocalDateTime to);
+    
+    /**
+     * Отбирает из указанных операции, записанные в полуинтервале [from, to)
+     * 
+     * @param ids идентификаторы операций
+     * @param from начало интервала (включительно)
+     * @param to конец интервала (не включительно)
+     * @return идентификаторы найденных операций
+     */
+    @Query("SELECT o.id FROM Operation o WHERE o.id IN :ids AND o.operationDate >= :from AND o.operationDate < :to")
+    Set<UUID> findExistingIdsInInterval(@Param("ids") Collection<UUID> ids,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
+    
+    @Query("SELECT MIN(o.operationDate) FROM Operation o")
+    LocalDateTime findFirstOperationDate();
+    
+    @Query("SELECT MAX(o.operationDate) FROM Operation o")
+    LocalDateTime findLastOperationDate();
+    
+    /**
+     * Возвращает операции, ещё не учтённые в состоянии картриджей: записанные после
+     * позиции снимка (state_operation_date, state_operation_id), в порядке журнала.
+     * Нижняя граница даты позволяет PostgreSQL не просматривать секции журнала старше снимков.
+     * 
+     * @param cartridgeIds идентификаторы картриджей
+     * @param since самая ранняя позиция снимка среди картриджей
+     * @return неприменённые операции, упорядоченные по картриджу, дате и идентификатору
+     */
+    @Query("SELECT o.cartridge.id AS cartridgeId, o.id AS id, o.operationDate AS operationDate, " +
+           "o.type AS type, o.location.id AS locationId " +
+           "FROM Operation o JOIN o.cartridge c WHERE c.id IN :cartridgeIds AND o.operationDate >= :since " +
+           "AND (c.stateOperationDate IS NULL OR o.operationDate > c.stateOperationDate " +
+           "OR (o.operationDate = c.stateOperationDate AND o.id > c.stateOperationId)) " +
+           "ORDER BY c.id, o.operationDate, o.id")
+    List<JournalEntry> findUnprojectedOperations(@Param("cartridgeIds") Collection<UUID> cartridgeIds,
+                                                 @Param("since") LocalDateTime since);
+    
+    /**
+     * Находит картриджи, у которых есть операции после позиции снимка, начиная с указанной даты
+     * 
+     * @param since нижняя граница даты операций
+     * @param pageable ограничение количества
+     * @return идентификаторы отстающих картриджей
+     */
+    @Query("SELECT DISTINCT c.id FROM Operation o JOIN o.cartridge c WHERE o.operationDate >= :since " +
+           "AND (c.stateOperationDate IS NULL OR o.operationDate > c.stateOperationDate " +
+           "OR (o.operationDate = c.stateOperationDate AND o.id > c.stateOperationId))")
+    List<UUID> findCartridgeIdsBehindJournal(@Param("since") LocalDateTime since, Pageable pageable);
+    
+    /**
+     * Запись журнала, достаточная для вычисления состояния картриджа
+     */
+    interface JournalEntry {
+        
+        UUID getCartridgeId();
+        
+        UUID getId();
+        
+        LocalDateTime getOperationDate();
+        
+        OperationType getType();
+        
+        UUID getLocationId();
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.example.cartridgeaccounting.repository;
+
+import com.example.cartridgeaccounting.exception.ResultLimitExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Ограничение количества строк в запросах, возвращающих список без пагинации.
+ * Запрос выполняется с LIMIT на одну строку больше допустимого: если эта строка пришла,
+ * результат не помещается в лимит и вызов завершается исключением, не загружая
+ * в память остальные строки.
+ * 
+ * <pre>{@code
+ * List<User> users = guard.check(userRepository.findByEnabled(true, guard.limit()));
+ * }</pre>
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Component
+public class ResultLimitGuard {
+    
+    @Value("${app.query.max-rows:5000}")
+    private int maxRows;
+    
+    /**
+     * Возвращает ограничение для запроса: на одну строку больше допустимого
+     * 
+     * @return ограничение количества строк
+     */
+    public Limit limit() {
+        return Limit.of(maxRows + 1);
+    }
+    
+    /**
+     * Проверяет, что результат запроса, выполненного с {@link #limit()}, помещается в лимит
+     * 
+     * @param rows результат запроса
+     * @return тот же результат
+     * @throws ResultLimitExceededException если строк больше допустимого
+     */
+    public <T> List<T> check(List<T> rows) {
+        if (rows.size() > maxRows) {
+            throw new ResultLimitExceededException(maxRows);
+        }
+        return rows;
+    }
+}
@@ -2,6 +2,9 @@ package com.example.cartridgeaccounting.repository;
 
 import com.example.cartridgeaccounting.entity.User;
 import com.example.cartridgeaccounting.entity.enums.UserRole;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -16,7 +19,7 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     
     boolean existsByUsername(String username);
     
-    List<User> findByRole(UserRole role);
+    Page<User> findByRole(UserRole role, Pageable pageable);
     
-    List<User> findByEnabled(boolean enabled);
+    List<User> findByEnabled(boolean enabled, Limit limit);
 } 
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.example.cartridgeaccounting.security;
+
+import com.example.cartridgeaccounting.event.UserCredentialsChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Провайдер аутентификации по имени пользователя и паролю с кэшем проверенных учётных данных.
+ * Первая проверка выполняется штатно (загрузка пользователя из БД и сверка BCrypt-хэша),
+ * после чего на короткое время запоминается солёный SHA-256 отпечаток пароля, и повторные
+ * запросы HTTP Basic с теми же учётными данными не требуют ни запроса к БД, ни BCrypt.
+ * Неуспешные попытки не кэшируются.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Component
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+    
+    private final DaoAuthenticationProvider delegate;
+    private final Cache<String, CachedAuthentication> cache;
+    
+    /**
+     * Случайная соль процесса: отпечатки не совпадают между запусками и не хранятся вне памяти
+     */
+    private final byte[] salt = new byte[32];
+    
+    /**
+     * Количество сбросов: результат проверки, во время которой был сброс, в кэше не остаётся
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    public CachingAuthenticationProvider(UserDetailsService userDetailsService,
+                                         PasswordEncoder passwordEncoder,
+                                         @Value("${app.security.basic-cache.ttl:PT5M}") Duration ttl,
+                                         @Value("${app.security.basic-cache.maximum-size:10000}") long maximumSize) {
+        this.delegate = new DaoAuthenticationProvider(passwordEncoder);
+        this.delegate.setUserDetailsService(userDetailsService);
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .build();
+        new SecureRandom().nextBytes(salt);
+    }
+    
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+        
+        byte[] fingerprint = fingerprint(username, credentials.toString());
+        CachedAuthentication cached = cache.getIfPresent(username);
+        if (cached != null && MessageDigest.isEqual(cached.fingerprint(), fingerprint)) {
+            return cached.authentication();
+        }
+        
+        long stamp = invalidations.get();
+        Authentication result = delegate.authenticate(authentication);
+        cache.put(username, new CachedAuthentication(fingerprint,
+                UsernamePasswordAuthenticationToken.authenticated(result.getPrincipal(), null, result.getAuthorities())));
+        // Пользователь мог быть прочитан до фиксации изменения, сброс которого уже прошёл
+        if (invalidations.get() != stamp) {
+            cache.invalidate(username);
+        }
+        return result;
+    }
+    
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+    
+    /**
+     * Сбрасывает кэш после фиксации изменения учётных данных пользователя.
+     * До фиксации параллельный вход прочитал бы прежние данные и снова положил их в кэш
+     * 
+     * @param event событие изменения учётных данных
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserCredentialsChanged(UserCredentialsChangedEvent event) {
+        invalidations.incrementAndGet();
+        cache.invalidate(event.username());
+    }
+    
+    private byte[] fingerprint(String username, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 недоступен", ex);
+        }
+    }
+    
+    private record CachedAuthentication(byte[] fingerprint, Authentication authentication) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.cartridgeaccounting.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Фильтр аутентификации по заголовку {@code Authorization: Bearer <token>}.
+ * При действительном токене запрос аутентифицируется без обращения к базе данных;
+ * недействительный токен оставляет запрос неаутентифицированным.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    
+    private static final String BEARER_PREFIX = "Bearer ";
+    
+    private final JwtService jwtService;
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            jwtService.parseToken(header.substring(BEARER_PREFIX.length()).trim()).ifPresent(authentication -> {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+            });
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.cartridgeaccounting.security;
+
+import com.example.cartridgeaccounting.event.UserCredentialsChangedEvent;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сервис выпуска и проверки JWT-токенов доступа.
+ * Токен подписывается HMAC-ключом и содержит имя пользователя и его роли,
+ * поэтому проверка выполняется без обращения к базе данных.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class JwtService {
+    
+    private static final String ROLES_CLAIM = "roles";
+    
+    private final SecretKey key;
+    private final Duration ttl;
+    
+    /**
+     * Момент последнего изменения учётных данных по имени пользователя с точностью до секунды
+     * (с той же точностью в токене хранится время выпуска); токены, выпущенные раньше,
+     * считаются отозванными
+     */
+    private final Map<String, Instant> revokedBefore = new ConcurrentHashMap<>();
+    
+    public JwtService(@Value("${app.security.jwt.secret:}") String secret,
+                      @Value("${app.security.jwt.ttl:PT1H}") Duration ttl) {
+        if (secret == null || secret.isBlank()) {
+            log.warn("Ключ подписи JWT не задан (app.security.jwt.secret), используется случайный ключ: " +
+                    "токены станут недействительны после перезапуска и не принимаются другими экземплярами");
+            this.key = Jwts.SIG.HS256.key().build();
+        } else {
+            this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        }
+        this.ttl = ttl;
+    }
+    
+    /**
+     * Выпускает токен доступа для аутентифицированного пользователя
+     * 
+     * @param authentication результат аутентификации
+     * @return подписанный токен
+     */
+    public String generateToken(Authentication authentication) {
+        Instant now = Instant.now();
+        List<String> roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        return Jwts.builder()
+                .subject(authentication.getName())
+                .claim(ROLES_CLAIM, roles)
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(ttl)))
+                .signWith(key)
+                .compact();
+    }
+    
+    /**
+     * Проверяет токен и восстанавливает из него аутентификацию
+     * 
+     * @param token токен доступа
+     * @return аутентификация или пустое значение, если токен недействителен
+     */
+    public Optional<Authentication> parseToken(String token) {
+        Claims claims;
+        try {
+            claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.debug("Недействительный токен доступа: {}", ex.getMessage());
+            return Optional.empty();
+        }
+        
+        String username = claims.getSubject();
+        Instant revoked = revokedBefore.get(username);
+        if (revoked != null && claims.getIssuedAt().toInstant().isBefore(revoked)) {
+            log.debug("Токен пользователя {} отозван", username);
+            return Optional.empty();
+        }
+        
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        List<SimpleGrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .toList();
+        return Optional.of(UsernamePasswordAuthenticationToken.authenticated(username, null, authorities));
+    }
+    
+    /**
+     * Время жизни выпускаемых токенов
+     * 
+     * @return время жизни токена
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+    
+    /**
+     * Отзывает токены пользователя, выпущенные до фиксации изменения его учётных данных
+     * 
+     * @param event событие изменения учётных данных
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserCredentialsChanged(UserCredentialsChangedEvent event) {
+        // Токен, выпущенный в ту же секунду после изменения, остаётся действительным
+        revokedBefore.put(event.username(), Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.dto.ProjectionRebuildResultDto;
+import com.example.cartridgeaccounting.entity.Cartridge;
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Сервис проекции состояния картриджей из журнала операций.
+ * Статус и местоположение картриджа рассматриваются как снимок журнала: вместе с ними хранится
+ * позиция последней учтённой операции, а операции после этой позиции применяются проекцией.
+ * В режиме app.operations.event-sourced запись операции не изменяет строку картриджа,
+ * и проекция обновляет её асинхронно после фиксации транзакции.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public interface CartridgeProjectionService {
+    
+    /**
+     * Вычисляет актуальные статусы картриджей: снимок плюс ещё не применённые операции журнала
+     * 
+     * @param cartridges загруженные картриджи
+     * @return статусы по идентификаторам картриджей
+     */
+    Map<UUID, CartridgeStatus> resolveStatuses(Collection<Cartridge> cartridges);
+    
+    /**
+     * Применяет к картриджу операции журнала, записанные после его снимка
+     * 
+     * @param cartridgeId идентификатор картриджа
+     */
+    void projectCartridge(UUID cartridgeId);
+    
+    /**
+     * Восстанавливает состояние всех картриджей по журналу операций.
+     * Журнал разбивается на диапазоны идентификаторов картриджей, которые обрабатываются параллельно.
+     * Недоступно, если секции журнала перенесены в архивную схему.
+     * 
+     * @return результат восстановления
+     * @throws com.example.cartridgeaccounting.exception.ProjectionRebuildUnavailableException если часть журнала в архиве
+     */
+    ProjectionRebuildResultDto rebuildAll();
+}
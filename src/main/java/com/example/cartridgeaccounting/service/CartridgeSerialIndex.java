@@ -0,0 +1,389 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.dto.CartridgeDto;
+import com.example.cartridgeaccounting.entity.Location;
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.event.CartridgeStatusChangedEvent;
+import com.example.cartridgeaccounting.event.CartridgeUpdatedEvent;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Индекс картриджей по серийному номеру для сканеров штрихкодов.
+ * Сведения о картриджах хранятся в памяти компактными записями (строки моделей интернированы,
+ * объект — идентификатором, его название берётся из отдельного справочника), поэтому
+ * сканирование обслуживается без транзакции и обращения к базе данных.
+ * 
+ * <p>Индекс строится одним запросом при запуске и периодически пересчитывается. После фиксации
+ * изменения картриджа ({@link CartridgeStatusChangedEvent}, {@link CartridgeUpdatedEvent}) запись
+ * удаляется и при следующем сканировании читается из базы данных; так же читаются картриджи,
+ * созданные после построения индекса. Справочник названий объектов перечитывается, когда
+ * меняется версия таблицы объектов в {@link TableVersions}.</p>
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class CartridgeSerialIndex {
+    
+    /**
+     * Количество серийных номеров в одном запросе к базе данных
+     */
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    
+    private final CartridgeRepository cartridgeRepository;
+    private final LocationRepository locationRepository;
+    private final TableVersions tableVersions;
+    private final Counter hits;
+    private final Counter misses;
+    
+    /**
+     * Блокировка подмены индекса после пересчёта и удаления записей; поиск выполняется без неё
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    /**
+     * Пересчёты (при запуске, периодический и после восстановления по журналу) выполняются по одному:
+     * параллельный пересчёт сбросил бы набор картриджей, изменённых во время чтения другого
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    
+    /**
+     * Количество удалений записей: загрузка из базы данных, во время которой была удалена
+     * какая-либо запись, не сохраняет результат в индексе
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    private volatile Snapshot snapshot = new Snapshot();
+    private volatile LocationNames locationNames = new LocationNames(-1, new ConcurrentHashMap<>());
+    
+    /**
+     * Картриджи, изменённые во время пересчёта; удаляются из нового индекса перед подменой
+     */
+    private Set<UUID> invalidatedDuringRebuild;
+    
+    public CartridgeSerialIndex(CartridgeRepository cartridgeRepository,
+                                LocationRepository locationRepository,
+                                TableVersions tableVersions,
+                                MeterRegistry meterRegistry) {
+        this.cartridgeRepository = cartridgeRepository;
+        this.locationRepository = locationRepository;
+        this.tableVersions = tableVersions;
+        this.hits = Counter.builder("cartridge.serial.index.lookups")
+                .description("Поиск картриджей по серийному номеру")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cartridge.serial.index.lookups")
+                .description("Поиск картриджей по серийному номеру")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("cartridge.serial.index.size", this, CartridgeSerialIndex::size)
+                .description("Количество картриджей в индексе серийных номеров")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Строит индекс при запуске приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    /**
+     * Периодически сверяет индекс с базой данных (изменения, сделанные другими экземплярами приложения)
+     */
+    @Scheduled(fixedDelayString = "${app.serial-index.resync-interval:PT15M}",
+               initialDelayString = "${app.serial-index.resync-interval:PT15M}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+    
+    /**
+     * Перестраивает индекс по базе данных. Пересчёт, запрошенный во время другого пересчёта,
+     * ждёт его завершения и читает базу данных заново: вызывающему нужен индекс, построенный
+     * после его изменений.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            Set<UUID> invalidated = ConcurrentHashMap.newKeySet();
+            lock.lock();
+            try {
+                invalidatedDuringRebuild = invalidated;
+            } finally {
+                lock.unlock();
+            }
+            
+            Snapshot rebuilt = new Snapshot();
+            try {
+                long namesVersion = tableVersions.version(TableVersions.Table.LOCATIONS);
+                ConcurrentMap<UUID, String> names = loadLocationNames();
+                for (CartridgeRepository.SerialSummary summary : cartridgeRepository.findAllSerialSummaries()) {
+                    rebuilt.put(Entry.of(summary));
+                }
+                
+                lock.lock();
+                try {
+                    invalidated.forEach(rebuilt::remove);
+                    snapshot = rebuilt;
+                    locationNames = new LocationNames(namesVersion, names);
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                lock.lock();
+                try {
+                    invalidatedDuringRebuild = null;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            log.debug("Индекс серийных номеров построен: {} картриджей", rebuilt.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    /**
+     * Находит картридж по серийному номеру
+     * 
+     * @param serialNumber серийный номер
+     * @return картридж, если найден
+     */
+    public Optional<CartridgeDto> find(String serialNumber) {
+        Entry entry = snapshot.get(serialNumber);
+        if (entry != null) {
+            hits.increment();
+            return Optional.of(toDto(entry));
+        }
+        misses.increment();
+        return load(List.of(serialNumber)).stream().findFirst().map(this::toDto);
+    }
+    
+    /**
+     * Находит картриджи по нескольким серийным номерам; отсутствующие в индексе
+     * читаются из базы данных одним запросом
+     * 
+     * @param serialNumbers серийные номера
+     * @return найденные картриджи по серийным номерам в порядке запроса
+     */
+    public Map<String, CartridgeDto> findAll(Collection<String> serialNumbers) {
+        Snapshot current = snapshot;
+        Map<String, CartridgeDto> found = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String serialNumber : new LinkedHashSet<>(serialNumbers)) {
+            Entry entry = current.get(serialNumber);
+            if (entry != null) {
+                found.put(serialNumber, toDto(entry));
+            } else {
+                found.put(serialNumber, null);
+                missing.add(serialNumber);
+            }
+        }
+        hits.increment(found.size() - missing.size());
+        misses.increment(missing.size());
+        for (Entry entry : load(missing)) {
+            found.put(entry.serialNumber(), toDto(entry));
+        }
+        found.values().removeIf(dto -> dto == null);
+        return found;
+    }
+    
+    /**
+     * Удаляет запись картриджа после фиксации изменения его статуса или местоположения
+     * 
+     * @param event событие изменения статуса
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartridgeStatusChanged(CartridgeStatusChangedEvent event) {
+        invalidate(event.cartridgeId());
+    }
+    
+    /**
+     * Удаляет запись картриджа после фиксации изменения его атрибутов
+     * 
+     * @param event событие изменения картриджа
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartridgeUpdated(CartridgeUpdatedEvent event) {
+        invalidate(event.cartridgeId());
+    }
+    
+    /**
+     * Возвращает количество картриджей в индексе
+     * 
+     * @return количество записей
+     */
+    public int size() {
+        return snapshot.size();
+    }
+    
+    private void invalidate(UUID cartridgeId) {
+        invalidations.incrementAndGet();
+        lock.lock();
+        try {
+            snapshot.remove(cartridgeId);
+            if (invalidatedDuringRebuild != null) {
+                invalidatedDuringRebuild.add(cartridgeId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Читает картриджи из базы данных и добавляет их в индекс, если за время чтения ни одна запись не удалялась
+    private List<Entry> load(List<String> serialNumbers) {
+        if (serialNumbers.isEmpty()) {
+            return List.of();
+        }
+        long stamp = invalidations.get();
+        List<Entry> loaded = new ArrayList<>(serialNumbers.size());
+        for (int from = 0; from < serialNumbers.size(); from += LOAD_CHUNK_SIZE) {
+            List<String> chunk = serialNumbers.subList(from, Math.min(from + LOAD_CHUNK_SIZE, serialNumbers.size()));
+            for (CartridgeRepository.SerialSummary summary : cartridgeRepository.findSerialSummaries(chunk)) {
+                loaded.add(Entry.of(summary));
+            }
+        }
+        
+        Snapshot current = snapshot;
+        loaded.forEach(current::put);
+        // Проверка после добавления: удаление, случившееся между проверкой и добавлением, не теряется
+        if (invalidations.get() != stamp) {
+            loaded.forEach(entry -> current.remove(entry.id()));
+        }
+        return loaded;
+    }
+    
+    private CartridgeDto toDto(Entry entry) {
+        CartridgeDto dto = new CartridgeDto();
+        dto.setId(entry.id());
+        dto.setModel(entry.model());
+        dto.setSerialNumber(entry.serialNumber());
+        dto.setResourcePages(entry.resourcePages());
+        dto.setDescription(entry.description());
+        dto.setStatus(entry.status());
+        dto.setCreatedAt(entry.createdAt());
+        dto.setUpdatedAt(entry.updatedAt());
+        if (entry.locationId() != null) {
+            dto.setCurrentLocationId(entry.locationId());
+            dto.setCurrentLocationName(locationName(entry.locationId()));
+        }
+        return dto;
+    }
+    
+    private String locationName(UUID locationId) {
+        LocationNames names = locationNames;
+        long version = tableVersions.version(TableVersions.Table.LOCATIONS);
+        if (names.version() != version) {
+            names = reloadLocationNames(version);
+        }
+        String name = names.names().get(locationId);
+        if (name == null) {
+            // Объект, созданный другим экземпляром приложения, ещё не попал в справочник.
+            // Запрос выполняется вне операции над картой, чтобы не блокировать её сегмент
+            name = locationRepository.findById(locationId).map(Location::getName).orElse(null);
+            if (name != null) {
+                names.names().putIfAbsent(locationId, name);
+            }
+        }
+        return name;
+    }
+    
+    private LocationNames reloadLocationNames(long version) {
+        lock.lock();
+        try {
+            if (locationNames.version() != version) {
+                locationNames = new LocationNames(version, loadLocationNames());
+            }
+            return locationNames;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private ConcurrentMap<UUID, String> loadLocationNames() {
+        ConcurrentMap<UUID, String> names = new ConcurrentHashMap<>();
+        for (Location location : locationRepository.findAll()) {
+            names.put(location.getId(), location.getName());
+        }
+        return names;
+    }
+    
+    /**
+     * Сведения о картридже в индексе
+     */
+    private record Entry(UUID id, String serialNumber, String model, Integer resourcePages, String description,
+                         CartridgeStatus status, UUID locationId, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        
+        static Entry of(CartridgeRepository.SerialSummary summary) {
+            // Моделей немного, а картриджей одной модели тысячи: в индексе хранится одна копия строки модели
+            return new Entry(summary.getId(), summary.getSerialNumber(), summary.getModel().intern(),
+                    summary.getResourcePages(), summary.getDescription(), summary.getStatus(),
+                    summary.getLocationId(), summary.getCreatedAt(), summary.getUpdatedAt());
+        }
+    }
+    
+    /**
+     * Справочник названий объектов с версией таблицы объектов, по которой он построен
+     */
+    private record LocationNames(long version, ConcurrentMap<UUID, String> names) {
+    }
+    
+    /**
+     * Индекс в памяти: записи по серийному номеру и серийный номер по идентификатору картриджа
+     */
+    private static final class Snapshot {
+        
+        private final ConcurrentMap<String, Entry> bySerialNumber = new ConcurrentHashMap<>();
+        private final ConcurrentMap<UUID, String> serialNumberById = new ConcurrentHashMap<>();
+        
+        Entry get(String serialNumber) {
+            return bySerialNumber.get(serialNumber);
+        }
+        
+        void put(Entry entry) {
+            String previous = serialNumberById.put(entry.id(), entry.serialNumber());
+            if (previous != null && !previous.equals(entry.serialNumber())) {
+                bySerialNumber.remove(previous);
+            }
+            bySerialNumber.put(entry.serialNumber(), entry);
+        }
+        
+        void remove(UUID cartridgeId) {
+            String serialNumber = serialNumberById.remove(cartridgeId);
+            if (serialNumber != null) {
+                bySerialNumber.computeIfPresent(serialNumber, (key, entry) -> entry.id().equals(cartridgeId) ? null : entry);
+            }
+        }
+        
+        int size() {
+            return bySerialNumber.size();
+        }
+    }
+}
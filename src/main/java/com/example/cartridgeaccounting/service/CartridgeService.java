@@ -1,29 +1,48 @@
 package com.example.cartridgeaccounting.service;
 
 import com.example.cartridgeaccounting.dto.CartridgeDto;
+import com.example.cartridgeaccounting.dto.CartridgeImportResultDto;
+import com.example.cartridgeaccounting.dto.CartridgeQueryRequest;
+import com.example.cartridgeaccounting.dto.CartridgeSerialLookupResultDto;
 import com.example.cartridgeaccounting.dto.CreateCartridgeRequest;
 import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 public interface CartridgeService {
     
     CartridgeDto createCartridge(CreateCartridgeRequest request);
     
+    CartridgeImportResultDto importCartridges(List<CreateCartridgeRequest> requests);
+    
+    CartridgeImportResultDto importCartridgesFromCsv(InputStream input) throws IOException;
+    
     CartridgeDto getCartridgeById(UUID id);
     
     CartridgeDto getCartridgeBySerialNumber(String serialNumber);
     
+    CartridgeSerialLookupResultDto lookupCartridgesBySerialNumbers(List<String> serialNumbers);
+    
+    Set<OperationType> getAllowedOperations(UUID id);
+    
     Page<CartridgeDto> getAllCartridges(Pageable pageable);
     
     Page<CartridgeDto> searchCartridges(String model, String serialNumber, Pageable pageable);
     
-    List<CartridgeDto> getCartridgesByStatus(CartridgeStatus status);
+    Page<CartridgeDto> queryCartridges(CartridgeQueryRequest request, Pageable pageable);
+    
+    List<CartridgeDto> searchCartridgesBySerialNumberPrefix(String prefix, int limit);
+    
+    Page<CartridgeDto> getCartridgesByStatus(CartridgeStatus status, Pageable pageable);
     
-    List<CartridgeDto> getCartridgesByLocation(UUID locationId);
+    Page<CartridgeDto> getCartridgesByLocation(UUID locationId, Pageable pageable);
     
     CartridgeDto updateCartridge(UUID id, CreateCartridgeRequest request);
     
@@ -0,0 +1,140 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.exception.InvalidOperationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Таблица переходов статусов картриджа.
+ * Для каждой пары "текущий статус × тип операции" заранее вычисляется переход:
+ * новый статус и правило изменения местоположения. Таблица строится один раз при запуске,
+ * поиск перехода не создаёт объектов и используется одиночными и пакетными операциями,
+ * а также при восстановлении состояния по журналу.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Component
+public class CartridgeStateMachine {
+    
+    /**
+     * Правило изменения местоположения картриджа при переходе
+     */
+    public enum LocationRule {
+        /**
+         * Картридж перемещается на объект, указанный в операции
+         */
+        FROM_OPERATION,
+        
+        /**
+         * Картридж перестаёт числиться на каком-либо объекте
+         */
+        CLEAR
+    }
+    
+    /**
+     * Переход статуса картриджа
+     * 
+     * @param targetStatus статус после операции
+     * @param locationRule правило изменения местоположения
+     */
+    public record Transition(CartridgeStatus targetStatus, LocationRule locationRule) {
+    }
+    
+    private final Map<CartridgeStatus, Map<OperationType, Transition>> transitions = new EnumMap<>(CartridgeStatus.class);
+    private final Map<CartridgeStatus, Set<OperationType>> allowedOperations = new EnumMap<>(CartridgeStatus.class);
+    private final Map<OperationType, String> rejectionReasons = new EnumMap<>(OperationType.class);
+    private final Map<OperationType, Transition> journalTransitions = new EnumMap<>(OperationType.class);
+    
+    public CartridgeStateMachine() {
+        for (CartridgeStatus status : CartridgeStatus.values()) {
+            transitions.put(status, new EnumMap<>(OperationType.class));
+        }
+        
+        allow(OperationType.RECEIPT, CartridgeStatus.IN_STOCK, LocationRule.FROM_OPERATION, CartridgeStatus.IN_STOCK);
+        allow(OperationType.ISSUE, CartridgeStatus.IN_USE, LocationRule.FROM_OPERATION, CartridgeStatus.IN_STOCK);
+        allow(OperationType.RETURN, CartridgeStatus.IN_STOCK, LocationRule.FROM_OPERATION, CartridgeStatus.IN_USE);
+        allow(OperationType.REFILL, CartridgeStatus.REFILLING, LocationRule.CLEAR, CartridgeStatus.IN_USE);
+        allow(OperationType.DISPOSAL, CartridgeStatus.DISPOSED, LocationRule.CLEAR,
+                CartridgeStatus.IN_STOCK, CartridgeStatus.IN_USE, CartridgeStatus.REFILLING);
+        
+        rejectionReasons.put(OperationType.RECEIPT, "Картридж уже не на складе");
+        rejectionReasons.put(OperationType.ISSUE, "Картридж не на складе");
+        rejectionReasons.put(OperationType.RETURN, "Картридж не в использовании");
+        rejectionReasons.put(OperationType.REFILL, "Картридж не в использовании");
+        rejectionReasons.put(OperationType.DISPOSAL, "Картридж уже списан");
+        
+        for (CartridgeStatus status : CartridgeStatus.values()) {
+            Set<OperationType> allowed = EnumSet.noneOf(OperationType.class);
+            allowed.addAll(transitions.get(status).keySet());
+            allowedOperations.put(status, Collections.unmodifiableSet(allowed));
+        }
+    }
+    
+    /**
+     * Находит переход для операции над картриджем в указанном статусе
+     * 
+     * @param status текущий статус картриджа
+     * @param type тип операции
+     * @return переход или null, если операция недопустима
+     */
+    public Transition findTransition(CartridgeStatus status, OperationType type) {
+        return transitions.get(status).get(type);
+    }
+    
+    /**
+     * Находит переход для операции, а если операция недопустима — выбрасывает исключение
+     * 
+     * @param status текущий статус картриджа
+     * @param type тип операции
+     * @return переход
+     * @throws InvalidOperationException если операция недопустима в текущем статусе
+     */
+    public Transition requireTransition(CartridgeStatus status, OperationType type) {
+        Transition transition = findTransition(status, type);
+        if (transition == null) {
+            throw new InvalidOperationException(type.name(), rejectionReasons.get(type));
+        }
+        return transition;
+    }
+    
+    /**
+     * Возвращает операции, допустимые для картриджа в указанном статусе
+     * 
+     * @param status текущий статус картриджа
+     * @return неизменяемое множество типов операций
+     */
+    public Set<OperationType> getAllowedOperations(CartridgeStatus status) {
+        return allowedOperations.get(status);
+    }
+    
+    /**
+     * Находит переход для операции из журнала. Операция, уже записанная в журнал, применяется
+     * всегда: если в текущем статусе она недопустима (например, запись сделана до появления
+     * проверок), используется переход, который операция этого типа задаёт из любого статуса.
+     * 
+     * @param status текущий статус картриджа
+     * @param type тип операции
+     * @return переход
+     */
+    public Transition findJournalTransition(CartridgeStatus status, OperationType type) {
+        Transition transition = findTransition(status, type);
+        return transition != null ? transition : journalTransitions.get(type);
+    }
+    
+    private void allow(OperationType type, CartridgeStatus targetStatus, LocationRule locationRule,
+                       CartridgeStatus... fromStatuses) {
+        Transition transition = new Transition(targetStatus, locationRule);
+        journalTransitions.put(type, transition);
+        for (CartridgeStatus from : fromStatuses) {
+            transitions.get(from).put(type, transition);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.dto.ConsumptionForecastDto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Сервис прогноза расхода картриджей.
+ * Скорость расхода по парам "объект × модель" обновляется по каждой созданной операции
+ * без перечитывания журнала; рекомендации по дозаказу сравнивают её с запасом на объекте.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public interface ConsumptionForecastService {
+    
+    /**
+     * Возвращает прогноз расхода и рекомендации по дозаказу, начиная с пар с наименьшим запасом в сутках
+     * 
+     * @param locationId объект (null — все объекты)
+     * @param reorderOnly только пары, запас которых достиг точки дозаказа
+     * @return прогнозы по парам "объект × модель"
+     */
+    List<ConsumptionForecastDto> getForecast(UUID locationId, boolean reorderOnly);
+    
+    /**
+     * Пересчитывает скорости расхода по журналу операций за период истории
+     */
+    void rebuild();
+}
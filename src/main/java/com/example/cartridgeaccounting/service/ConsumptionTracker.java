@@ -0,0 +1,162 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Скорость расхода картриджей по парам "объект × модель" на основе экспоненциально
+ * взвешенного скользящего среднего. Для каждой пары хранится сумма операций, затухающая
+ * с заданным периодом полураспада; операция учитывается за O(1) без перечитывания истории,
+ * а порядок поступления операций на результат не влияет. Скорость в операциях в сутки
+ * получается делением суммы на "вес" наблюдаемого периода.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public class ConsumptionTracker {
+    
+    private static final double MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
+    
+    /**
+     * Постоянная затухания в миллисекундах (период полураспада / ln 2)
+     */
+    private final double tauMillis;
+    
+    private final ConcurrentMap<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    
+    /**
+     * Конструктор с периодом полураспада веса операций
+     * 
+     * @param halfLife период, за который вес операции уменьшается вдвое
+     */
+    public ConsumptionTracker(Duration halfLife) {
+        this.tauMillis = halfLife.toMillis() / Math.log(2);
+    }
+    
+    /**
+     * Учитывает операцию. Расходом считается выдача (ISSUE) на объект, отправка
+     * на заправку (REFILL) учитывается отдельно; остальные операции и операции
+     * без объекта пропускаются.
+     * 
+     * @param locationId объект операции
+     * @param model модель картриджа
+     * @param resourcePages ресурс картриджа в страницах (null, если не указан)
+     * @param type тип операции
+     * @param count количество картриджей
+     * @param epochMillis время операции в миллисекундах от начала эпохи
+     */
+    public void record(UUID locationId, String model, Integer resourcePages, OperationType type, int count,
+                       long epochMillis) {
+        if (locationId == null || model == null || (type != OperationType.ISSUE && type != OperationType.REFILL)) {
+            return;
+        }
+        series.computeIfAbsent(new SeriesKey(locationId, model), key -> new Series())
+                .add(type == OperationType.ISSUE, count, resourcePages, epochMillis, tauMillis);
+    }
+    
+    /**
+     * Вычисляет скорости расхода по всем парам на указанный момент
+     * 
+     * @param nowMillis момент расчёта в миллисекундах от начала эпохи
+     * @return скорости расхода
+     */
+    public List<Rate> rates(long nowMillis) {
+        List<Rate> rates = new ArrayList<>(series.size());
+        series.forEach((key, value) -> rates.add(value.rate(key, nowMillis, tauMillis)));
+        return rates;
+    }
+    
+    /**
+     * Возвращает количество отслеживаемых пар "объект × модель"
+     * 
+     * @return количество пар
+     */
+    public int size() {
+        return series.size();
+    }
+    
+    /**
+     * Пара "объект × модель"
+     * 
+     * @param locationId идентификатор объекта
+     * @param model модель картриджа
+     */
+    public record SeriesKey(UUID locationId, String model) {
+    }
+    
+    /**
+     * Скорость расхода по паре "объект × модель"
+     * 
+     * @param key пара "объект × модель"
+     * @param issuesPerDay выдано картриджей в сутки
+     * @param pagesPerDay ресурс выданных картриджей в страницах в сутки (по картриджам с указанным ресурсом)
+     * @param refillsPerDay отправлено на заправку картриджей в сутки
+     * @param firstOperationMillis время первой учтённой операции
+     * @param lastOperationMillis время последней учтённой операции
+     * @param issueOperations количество учтённых выдач (без затухания)
+     */
+    public record Rate(SeriesKey key, double issuesPerDay, double pagesPerDay, double refillsPerDay,
+                       long firstOperationMillis, long lastOperationMillis, long issueOperations) {
+    }
+    
+    /**
+     * Затухающие суммы одной пары; изменяются под монитором экземпляра
+     */
+    private static final class Series {
+        
+        private double issues;
+        private double pages;
+        private double refills;
+        private long firstMillis;
+        private long lastMillis;
+        private long issueOperations;
+        private boolean empty = true;
+        
+        synchronized void add(boolean issue, int count, Integer resourcePages, long epochMillis, double tauMillis) {
+            double weight = 1;
+            if (empty) {
+                firstMillis = epochMillis;
+                lastMillis = epochMillis;
+                empty = false;
+            } else if (epochMillis >= lastMillis) {
+                // Суммы приводятся к моменту новой операции
+                double decay = Math.exp((lastMillis - epochMillis) / tauMillis);
+                issues *= decay;
+                pages *= decay;
+                refills *= decay;
+                lastMillis = epochMillis;
+            } else {
+                // Операция из прошлого входит в сумму сразу с затуханием до последнего момента
+                weight = Math.exp((epochMillis - lastMillis) / tauMillis);
+                firstMillis = Math.min(firstMillis, epochMillis);
+            }
+            
+            if (issue) {
+                issueOperations++;
+                issues += count * weight;
+                if (resourcePages != null) {
+                    pages += (double) count * resourcePages * weight;
+                }
+            } else {
+                refills += count * weight;
+            }
+        }
+        
+        synchronized Rate rate(SeriesKey key, long nowMillis, double tauMillis) {
+            double decay = Math.exp(-Math.max(0, nowMillis - lastMillis) / tauMillis);
+            // При постоянной скорости r сумма за наблюдаемый период T равна r·τ·(1 − e^(−T/τ)),
+            // поэтому деление на этот множитель убирает занижение оценки в начале наблюдений.
+            // На коротком периоде оценка ненадёжна: достаточность истории проверяет вызывающий код
+            double observedMillis = Math.max(nowMillis - firstMillis, MILLIS_PER_DAY);
+            double perDay = decay * MILLIS_PER_DAY / (tauMillis * (1 - Math.exp(-observedMillis / tauMillis)));
+            return new Rate(key, issues * perDay, pages * perDay, refills * perDay, firstMillis, lastMillis,
+                    issueOperations);
+        }
+    }
+}
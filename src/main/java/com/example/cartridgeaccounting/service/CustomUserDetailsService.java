@@ -1,7 +1,10 @@
 package com.example.cartridgeaccounting.service;
 
+import com.example.cartridgeaccounting.config.MetricsConfig;
 import com.example.cartridgeaccounting.entity.User;
+import com.example.cartridgeaccounting.logging.LogSampler;
 import com.example.cartridgeaccounting.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,10 +24,14 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class CustomUserDetailsService implements UserDetailsService {
     
     private final UserRepository userRepository;
     
+    // Подбор паролей и ошибки клиентов не должны засыпать журнал одинаковыми предупреждениями
+    private final LogSampler failureLogSampler = LogSampler.perSecond(5);
+    
     /**
      * Загружает пользователя по имени пользователя для Spring Security.
      * Этот метод вызывается автоматически при попытке аутентификации.
@@ -36,21 +43,27 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        log.info("Загрузка пользователя для аутентификации: {}", username);
+        log.debug("Загрузка пользователя для аутентификации: {}", username);
         
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> {
-                    log.warn("Пользователь не найден для аутентификации: {}", username);
+                    if (failureLogSampler.tryAcquire()) {
+                        log.warn("Пользователь не найден для аутентификации: {} (пропущено похожих записей: {})",
+                                username, failureLogSampler.takeSuppressed());
+                    }
                     return new UsernameNotFoundException("Пользователь с именем '" + username + "' не найден");
                 });
         
         // Проверяем, активен ли пользователь
         if (!user.isEnabled()) {
-            log.warn("Попытка входа неактивного пользователя: {}", username);
+            if (failureLogSampler.tryAcquire()) {
+                log.warn("Попытка входа неактивного пользователя: {} (пропущено похожих записей: {})",
+                        username, failureLogSampler.takeSuppressed());
+            }
             throw new UsernameNotFoundException("Пользователь '" + username + "' деактивирован");
         }
         
-        log.info("Пользователь успешно загружен для аутентификации: {} (роль: {})", 
+        log.debug("Пользователь успешно загружен для аутентификации: {} (роль: {})", 
                 username, user.getRole());
         
         return user; // User уже реализует UserDetails
@@ -0,0 +1,44 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.IngestQueueStatusDto;
+import com.example.cartridgeaccounting.dto.IngestTicketDto;
+
+import java.util.UUID;
+
+/**
+ * Сервис асинхронной записи операций.
+ * Операция подтверждается после добавления в локальный журнал очереди на диске,
+ * а в базу данных её пакетами записывает отдельный поток.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public interface OperationIngestService {
+    
+    /**
+     * Принимает операцию в очередь записи
+     * 
+     * @param request данные операции
+     * @param username имя пользователя, выполняющего операцию
+     * @return состояние принятой операции (PENDING)
+     * @throws com.example.cartridgeaccounting.exception.IngestQueueFullException если очередь заполнена
+     */
+    IngestTicketDto submit(CreateOperationRequest request, String username);
+    
+    /**
+     * Возвращает состояние операции, принятой в очередь
+     * 
+     * @param ticketId идентификатор, выданный при приёме
+     * @return состояние операции
+     * @throws com.example.cartridgeaccounting.exception.IngestTicketNotFoundException если операция неизвестна
+     */
+    IngestTicketDto getTicket(UUID ticketId);
+    
+    /**
+     * Возвращает состояние очереди записи
+     * 
+     * @return ёмкость, количество ожидающих операций и размер локального журнала
+     */
+    IngestQueueStatusDto getStatus();
+}
@@ -0,0 +1,66 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.event.OperationCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Счётчики операций с картриджами.
+ * Созданные операции учитываются по типу после фиксации транзакции, отклонённые проверкой
+ * допустимости перехода — по типу операции и статусу картриджа, в котором она недопустима.
+ * Все сочетания регистрируются при запуске, чтобы ряды в Prometheus существовали с нуля.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Component
+public class OperationMetrics {
+    
+    private final Map<OperationType, Counter> created = new EnumMap<>(OperationType.class);
+    private final Map<OperationType, Map<CartridgeStatus, Counter>> rejected = new EnumMap<>(OperationType.class);
+    
+    public OperationMetrics(MeterRegistry meterRegistry) {
+        for (OperationType type : OperationType.values()) {
+            created.put(type, Counter.builder("cartridge.operations.created")
+                    .description("Созданные операции с картриджами")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+            Map<CartridgeStatus, Counter> byStatus = new EnumMap<>(CartridgeStatus.class);
+            for (CartridgeStatus status : CartridgeStatus.values()) {
+                byStatus.put(status, Counter.builder("cartridge.operations.rejected")
+                        .description("Операции, недопустимые в текущем статусе картриджа")
+                        .tag("type", type.name())
+                        .tag("status", status.name())
+                        .register(meterRegistry));
+            }
+            rejected.put(type, byStatus);
+        }
+    }
+    
+    /**
+     * Учитывает операцию, недопустимую в текущем статусе картриджа
+     * 
+     * @param type тип операции
+     * @param status статус картриджа
+     */
+    public void recordRejected(OperationType type, CartridgeStatus status) {
+        rejected.get(type).get(status).increment();
+    }
+    
+    /**
+     * Учитывает зафиксированную операцию
+     * 
+     * @param event событие создания операции
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOperationCreated(OperationCreatedEvent event) {
+        created.get(event.type()).increment();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.cartridgeaccounting.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Обслуживание месячных секций журнала операций (PostgreSQL, changeset 07).
+ * Заранее создаёт секции на несколько месяцев вперёд, чтобы новые операции не попадали
+ * в секцию по умолчанию, и, если задан срок хранения, отсоединяет секции старых месяцев
+ * от журнала и переносит их в архивную схему. На базах без секционирования ничего не делает.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.operations.partitioning.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class OperationPartitionMaintainer {
+    
+    private static final String PARTITION_PREFIX = "operations_";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("operations_(\\d{4})_(\\d{2})");
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.operations.partitioning.months-ahead:3}")
+    private int monthsAhead;
+    
+    @Value("${app.operations.partitioning.retention-months:0}")
+    private int retentionMonths;
+    
+    @Value("${app.operations.partitioning.archive-schema:operations_archive}")
+    private String archiveSchema;
+    
+    private volatile Boolean partitioned;
+    
+    /**
+     * Проверяет секции при запуске приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+    
+    /**
+     * Ежедневное обслуживание секций
+     */
+    @Scheduled(cron = "${app.operations.partitioning.cron:0 15 3 * * *}")
+    public void scheduledMaintain() {
+        maintain();
+    }
+    
+    /**
+     * Создаёт недостающие секции текущего и следующих месяцев и архивирует устаревшие
+     */
+    public synchronized void maintain() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+        if (retentionMonths > 0) {
+            archivePartitionsBefore(current.minusMonths(retentionMonths));
+        }
+        
+        Long misplaced = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM operations_default", Long.class);
+        if (misplaced != null && misplaced > 0) {
+            log.warn("В секции журнала по умолчанию {} операций вне созданных месяцев", misplaced);
+        }
+    }
+    
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        
+        // Секцию нельзя создать, пока строки её диапазона лежат в секции по умолчанию
+        Boolean occupied = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM operations_default WHERE operation_date >= ? AND operation_date < ?)",
+                Boolean.class, from, to);
+        if (Boolean.TRUE.equals(occupied)) {
+            log.error("Секция {} не создана: секция по умолчанию содержит операции этого месяца", name);
+            return;
+        }
+        
+        // Границы вычисляются из даты, поэтому подстановка в DDL безопасна
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF operations " +
+                "FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+    
+    private void archivePartitionsBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'operations' AND pg_table_is_visible(p.oid)",
+                String.class);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(cutoff)) {
+                jdbcTemplate.execute("ALTER TABLE operations DETACH PARTITION " + partition);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + archiveSchema);
+                log.info("Секция журнала {} отсоединена и перенесена в схему {}", partition, archiveSchema);
+            }
+        }
+        dropArchivedForeignKeys();
+    }
+    
+    /**
+     * Отсоединённая секция сохраняет внешние ключи журнала как собственные ограничения,
+     * и они запрещали бы удалять картриджи, объекты и пользователей с архивными операциями.
+     * Удаляются ключи всех таблиц архивной схемы, включая секции, перенесённые ранее.
+     */
+    private void dropArchivedForeignKeys() {
+        List<Map<String, Object>> constraints = jdbcTemplate.queryForList(
+                "SELECT c.relname AS table_name, con.conname AS constraint_name FROM pg_constraint con " +
+                "JOIN pg_class c ON c.oid = con.conrelid " +
+                "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                "WHERE n.nspname = ? AND con.contype = 'f'",
+                archiveSchema);
+        for (Map<String, Object> constraint : constraints) {
+            jdbcTemplate.execute("ALTER TABLE " + archiveSchema + "." + constraint.get("table_name") +
+                    " DROP CONSTRAINT \"" + constraint.get("constraint_name") + "\"");
+            log.info("Внешний ключ {} архивной секции {} удалён", constraint.get("constraint_name"),
+                    constraint.get("table_name"));
+        }
+    }
+    
+    private boolean isPartitioned() {
+        if (partitioned == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            partitioned = "PostgreSQL".equals(product) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                    "WHERE c.relname = 'operations' AND pg_table_is_visible(c.oid))",
+                    Boolean.class));
+            if (!partitioned) {
+                log.info("Журнал операций не секционирован, обслуживание секций отключено");
+            }
+        }
+        return partitioned;
+    }
+    
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
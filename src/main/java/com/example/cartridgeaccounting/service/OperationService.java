@@ -1,11 +1,17 @@
 package com.example.cartridgeaccounting.service;
 
+import com.example.cartridgeaccounting.dto.CartridgeTimelineDto;
 import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.CursorPageDto;
+import com.example.cartridgeaccounting.dto.ExportFormat;
+import com.example.cartridgeaccounting.dto.OperationBatchResultDto;
 import com.example.cartridgeaccounting.dto.OperationDto;
 import com.example.cartridgeaccounting.entity.enums.OperationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -14,6 +20,8 @@ public interface OperationService {
     
     OperationDto createOperation(CreateOperationRequest request, String username);
     
+    OperationBatchResultDto createOperations(List<CreateOperationRequest> requests, String username);
+    
     OperationDto getOperationById(UUID id);
     
     Page<OperationDto> getAllOperations(Pageable pageable);
@@ -24,7 +32,19 @@ public interface OperationService {
     
     Page<OperationDto> getOperationsByDateRange(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
     
-    List<OperationDto> getOperationsByType(OperationType type);
+    CursorPageDto<OperationDto> getOperationsJournal(String after, int size);
+    
+    CursorPageDto<OperationDto> getOperationsJournalByCartridge(UUID cartridgeId, String after, int size);
+    
+    CartridgeTimelineDto getCartridgeTimeline(UUID cartridgeId, String after, int size);
+    
+    CursorPageDto<OperationDto> getOperationsJournalByLocation(UUID locationId, String after, int size);
+    
+    CursorPageDto<OperationDto> getOperationsJournalByDateRange(LocalDateTime startDate, LocalDateTime endDate, String after, int size);
+    
+    void exportOperations(LocalDateTime startDate, LocalDateTime endDate, ExportFormat format, OutputStream output) throws IOException;
+    
+    CursorPageDto<OperationDto> getOperationsByType(OperationType type, String after, int size);
     
     long getOperationCountByTypeAndDateRange(OperationType type, LocalDateTime startDate, LocalDateTime endDate);
 } 
\ No newline at end of file
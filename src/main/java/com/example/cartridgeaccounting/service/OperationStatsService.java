@@ -0,0 +1,54 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.dto.OperationStatsDto;
+import com.example.cartridgeaccounting.dto.StatsBackfillResultDto;
+import com.example.cartridgeaccounting.dto.StatsPeriod;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Сервис суточной статистики операций.
+ * Статистика "день × тип × объект" пополняется в транзакции каждой создаваемой операции,
+ * поэтому отчёты за произвольный период читают несколько строк на день вместо журнала.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public interface OperationStatsService {
+    
+    /**
+     * Возвращает статистику операций за диапазон дней
+     * 
+     * @param startDate первый день диапазона
+     * @param endDate последний день диапазона (включительно)
+     * @param type тип операций (null — все типы)
+     * @param locationId объект (null — все объекты)
+     * @param period период группировки
+     * @param byType группировать по типу операций
+     * @param byLocation группировать по объекту
+     * @return статистика операций
+     */
+    OperationStatsDto getStats(LocalDate startDate, LocalDate endDate, OperationType type, UUID locationId,
+                               StatsPeriod period, boolean byType, boolean byLocation);
+    
+    /**
+     * Возвращает количество операций типа за диапазон дней
+     * 
+     * @param type тип операций
+     * @param startDate первый день диапазона
+     * @param endDate последний день диапазона (включительно)
+     * @return количество операций
+     */
+    long getOperationCount(OperationType type, LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * Пересчитывает статистику по журналу операций помесячно, каждый месяц в отдельной транзакции
+     * 
+     * @param startDate первый день (null — с первой операции журнала)
+     * @param endDate последний день включительно (null — по последнюю операцию журнала)
+     * @return результат пересчёта
+     */
+    StatsBackfillResultDto backfill(LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,46 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.dto.StockSummaryDto;
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+
+import java.util.UUID;
+
+/**
+ * Сервис сводки остатков картриджей.
+ * Хранит в памяти счётчики "объект × статус", которые обновляются по событиям изменения
+ * статуса картриджей и периодически сверяются с базой данных.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public interface StockSummaryService {
+    
+    /**
+     * Возвращает сводку остатков по всем объектам и статусам
+     * 
+     * @return сводка остатков
+     */
+    StockSummaryDto getStockSummary();
+    
+    /**
+     * Возвращает количество картриджей в статусе
+     * 
+     * @param status статус картриджа
+     * @return количество картриджей
+     */
+    long getCount(CartridgeStatus status);
+    
+    /**
+     * Возвращает количество картриджей в статусе на объекте
+     * 
+     * @param locationId идентификатор объекта
+     * @param status статус картриджа
+     * @return количество картриджей
+     */
+    long getCount(UUID locationId, CartridgeStatus status);
+    
+    /**
+     * Пересчитывает счётчики одним групповым запросом к базе данных
+     */
+    void rebuild();
+}
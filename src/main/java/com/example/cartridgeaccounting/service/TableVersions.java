@@ -0,0 +1,79 @@
+package com.example.cartridgeaccounting.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Версии данных таблиц для условных GET-запросов.
+ * Сервисы увеличивают версию таблицы при каждом изменении, а контроллеры строят из версий
+ * ETag списков: пока версия не изменилась, повторный запрос получает 304 Not Modified
+ * без обращения к базе данных.
+ * 
+ * Версия увеличивается после фиксации транзакции, а читается контроллером до запроса данных,
+ * поэтому ответ никогда не получает ETag новее своих данных. Версии хранятся в памяти
+ * экземпляра приложения, как и кэши справочников; в ETag входит отметка запуска,
+ * чтобы после перезапуска ETag прежнего экземпляра не совпал с новым.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Component
+public class TableVersions {
+    
+    /**
+     * Таблицы, версии которых отслеживаются
+     */
+    public enum Table {
+        CARTRIDGES, LOCATIONS, USERS
+    }
+    
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions = new AtomicLongArray(Table.values().length);
+    
+    /**
+     * Отмечает изменение таблицы. В транзакции версия увеличивается после её фиксации
+     * 
+     * @param table изменённая таблица
+     */
+    public void bump(Table table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions.incrementAndGet(table.ordinal());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                versions.incrementAndGet(table.ordinal());
+            }
+        });
+    }
+    
+    /**
+     * Возвращает текущую версию таблицы
+     * 
+     * @param table таблица
+     * @return версия таблицы
+     */
+    public long version(Table table) {
+        return versions.get(table.ordinal());
+    }
+    
+    /**
+     * Строит ETag из текущих версий таблиц, от которых зависит ответ.
+     * ETag слабый (W/): Tomcat не сжимает ответы со строгим ETag, а If-None-Match
+     * всё равно сравнивается по слабому правилу
+     * 
+     * @param tables таблицы, данные которых входят в ответ
+     * @return значение ETag
+     */
+    public String etag(Table... tables) {
+        StringBuilder etag = new StringBuilder("W/\"").append(instance);
+        for (Table table : tables) {
+            etag.append('-').append(versions.get(table.ordinal()));
+        }
+        return etag.append('"').toString();
+    }
+}
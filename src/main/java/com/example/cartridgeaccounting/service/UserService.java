@@ -55,9 +55,10 @@ public interface UserService {
      * Получает пользователей по роли
      * 
      * @param role роль пользователя
-     * @return список пользователей
+     * @param pageable параметры пагинации
+     * @return страница пользователей
      */
-    List<UserDto> getUsersByRole(UserRole role);
+    Page<UserDto> getUsersByRole(UserRole role, Pageable pageable);
     
     /**
      * Получает пользователей по статусу активности
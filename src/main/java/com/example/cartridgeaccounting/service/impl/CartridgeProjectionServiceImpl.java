@@ -0,0 +1,436 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.config.MetricsConfig;
+import com.example.cartridgeaccounting.dto.ProjectionRebuildResultDto;
+import com.example.cartridgeaccounting.entity.Cartridge;
+import com.example.cartridgeaccounting.entity.Location;
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.event.CartridgeStatusChangedEvent;
+import com.example.cartridgeaccounting.event.OperationRecordedEvent;
+import com.example.cartridgeaccounting.exception.ProjectionRebuildInProgressException;
+import com.example.cartridgeaccounting.exception.ProjectionRebuildUnavailableException;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.repository.OperationRepository;
+import com.example.cartridgeaccounting.service.CartridgeProjectionService;
+import com.example.cartridgeaccounting.service.CartridgeSerialIndex;
+import com.example.cartridgeaccounting.service.CartridgeStateMachine;
+import com.example.cartridgeaccounting.service.StockSummaryService;
+import com.example.cartridgeaccounting.service.TableVersions;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Реализация сервиса проекции состояния картриджей.
+ * Одиночные картриджи проецируются через JPA под блокировкой строки, а полное восстановление
+ * читает журнал курсором через JDBC: диапазон идентификаторов картриджей делится на секции,
+ * каждая секция в отдельной транзакции сворачивает свои операции по порядку журнала
+ * и записывает состояния пакетными UPDATE.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class CartridgeProjectionServiceImpl implements CartridgeProjectionService {
+    
+    private static final int REPLAY_FETCH_SIZE = 5000;
+    private static final int REPLAY_BATCH_SIZE = 1000;
+    private static final int CATCH_UP_LIMIT = 1000;
+    
+    /**
+     * Нижняя граница поиска операций для картриджа без снимка
+     */
+    private static final LocalDateTime JOURNAL_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    private static final String REPLAY_SELECT = "SELECT cartridge_id, id, operation_date, type, location_id " +
+            "FROM operations WHERE cartridge_id >= ?";
+    private static final String REPLAY_ORDER = " ORDER BY cartridge_id, operation_date, id";
+    
+    /**
+     * Снимок не перезаписывается, если проекция успела применить более поздние операции
+     */
+    private static final String REPLAY_UPDATE = "UPDATE cartridges SET status = ?, current_location_id = ?, " +
+            "state_operation_date = ?, state_operation_id = ?, version = version + 1, updated_at = ? " +
+            "WHERE id = ? AND (state_operation_date IS NULL OR state_operation_date < ? " +
+            "OR (state_operation_date = ? AND state_operation_id <= ?))";
+    
+    private static final String RESET_UPDATE = "UPDATE cartridges SET status = 'IN_STOCK', current_location_id = NULL, " +
+            "state_operation_date = NULL, state_operation_id = NULL, version = version + 1, updated_at = ? " +
+            "WHERE id >= ?";
+    private static final String RESET_CONDITION = " AND (status <> 'IN_STOCK' OR current_location_id IS NOT NULL) " +
+            "AND NOT EXISTS (SELECT 1 FROM operations o WHERE o.cartridge_id = cartridges.id)";
+    
+    private final CartridgeRepository cartridgeRepository;
+    private final OperationRepository operationRepository;
+    private final LocationRepository locationRepository;
+    private final StockSummaryService stockSummaryService;
+    private final CartridgeStateMachine stateMachine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final TableVersions tableVersions;
+    private final CartridgeSerialIndex cartridgeSerialIndex;
+    
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    
+    @Value("${app.operations.event-sourced:false}")
+    private boolean eventSourced;
+    
+    @Value("${app.operations.projection.catch-up-window:PT1H}")
+    private Duration catchUpWindow;
+    
+    @Value("${app.operations.projection.replay-partitions:0}")
+    private int replayPartitions;
+    
+    @Value("${app.operations.partitioning.archive-schema:operations_archive}")
+    private String archiveSchema;
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, CartridgeStatus> resolveStatuses(Collection<Cartridge> cartridges) {
+        Map<UUID, CartridgeStatus> statuses = new HashMap<>();
+        if (cartridges.isEmpty()) {
+            return statuses;
+        }
+        // Позиция снимка только растёт, поэтому уже прочитанная позиция — надёжная нижняя граница
+        LocalDateTime since = cartridges.stream()
+                .map(this::snapshotDate)
+                .min(LocalDateTime::compareTo)
+                .orElse(JOURNAL_START);
+        List<UUID> ids = cartridges.stream().map(Cartridge::getId).toList();
+        for (CartridgeRepository.PendingState row : cartridgeRepository.findStatesWithUnprojectedOperations(ids, since)) {
+            CartridgeStatus status = statuses.getOrDefault(row.getCartridgeId(), row.getStatus());
+            if (row.getType() != null) {
+                status = stateMachine.findJournalTransition(status, row.getType()).targetStatus();
+            }
+            statuses.put(row.getCartridgeId(), status);
+        }
+        return statuses;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void projectCartridge(UUID cartridgeId) {
+        Cartridge cartridge = cartridgeRepository.findByIdForUpdate(cartridgeId).orElse(null);
+        if (cartridge == null) {
+            return;
+        }
+        List<OperationRepository.JournalEntry> entries = operationRepository.findUnprojectedOperations(
+                List.of(cartridgeId), snapshotDate(cartridge));
+        if (entries.isEmpty()) {
+            return;
+        }
+        
+        CartridgeStatus previousStatus = cartridge.getStatus();
+        UUID previousLocationId = locationId(cartridge.getCurrentLocation());
+        ProjectionState state = new ProjectionState();
+        state.reset(previousStatus, previousLocationId);
+        long anomalies = 0;
+        for (OperationRepository.JournalEntry entry : entries) {
+            if (!state.apply(stateMachine, entry.getType(), entry.getLocationId())) {
+                anomalies++;
+            }
+            state.moveTo(entry.getOperationDate(), entry.getId());
+        }
+        if (anomalies > 0) {
+            log.warn("Картридж {}: {} операций журнала недопустимы в статусе на момент записи", cartridgeId, anomalies);
+        }
+        
+        cartridge.setStatus(state.status);
+        if (!Objects.equals(previousLocationId, state.locationId)) {
+            cartridge.setCurrentLocation(state.locationId != null ? locationRepository.getReferenceById(state.locationId) : null);
+        }
+        cartridge.setStateOperationDate(state.operationDate);
+        cartridge.setStateOperationId(state.operationId);
+        
+        if (previousStatus != state.status || !Objects.equals(previousLocationId, state.locationId)) {
+            eventPublisher.publishEvent(new CartridgeStatusChangedEvent(cartridgeId,
+                    previousStatus, previousLocationId, state.status, state.locationId));
+            tableVersions.bump(TableVersions.Table.CARTRIDGES);
+        }
+        log.debug("Картридж {}: применено {} операций журнала", cartridgeId, entries.size());
+    }
+    
+    /**
+     * Обновляет состояние картриджа после фиксации транзакции, записавшей операции в журнал
+     * 
+     * @param event событие записи операций
+     */
+    @Async
+    @TransactionalEventListener
+    public void onOperationRecorded(OperationRecordedEvent event) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> projectCartridge(event.cartridgeId()));
+    }
+    
+    /**
+     * Досчитывает картриджи, проекция которых не была обновлена после записи операции
+     * (ошибка обработчика, остановка приложения до обработки события)
+     */
+    @Scheduled(fixedDelayString = "${app.operations.projection.catch-up-interval:PT1M}")
+    public void catchUp() {
+        if (!eventSourced) {
+            return;
+        }
+        List<UUID> cartridgeIds = operationRepository.findCartridgeIdsBehindJournal(
+                LocalDateTime.now().minus(catchUpWindow), PageRequest.of(0, CATCH_UP_LIMIT));
+        if (cartridgeIds.isEmpty()) {
+            return;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (UUID cartridgeId : cartridgeIds) {
+            transactionTemplate.executeWithoutResult(status -> projectCartridge(cartridgeId));
+        }
+        log.info("Проекция догнала журнал для {} картриджей", cartridgeIds.size());
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ProjectionRebuildResultDto rebuildAll() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new ProjectionRebuildInProgressException();
+        }
+        try {
+            // Без архивных операций картриджи сбросились бы к состоянию по оставшейся части журнала
+            Long archived = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = ?", Long.class, archiveSchema);
+            if (archived != null && archived > 0) {
+                throw new ProjectionRebuildUnavailableException(archiveSchema, archived);
+            }
+            
+            int partitions = replayPartitions > 0 ? replayPartitions : Runtime.getRuntime().availableProcessors();
+            log.info("Восстановление состояния картриджей по журналу в {} секциях", partitions);
+            long started = System.nanoTime();
+            
+            UUID[] bounds = partitionBounds(partitions);
+            List<Future<PartitionReplay>> futures = new ArrayList<>(partitions);
+            ExecutorService executor = Executors.newFixedThreadPool(partitions);
+            ProjectionRebuildResultDto result = new ProjectionRebuildResultDto();
+            result.setPartitions(partitions);
+            try {
+                for (int i = 0; i < partitions; i++) {
+                    UUID lower = bounds[i];
+                    UUID upper = bounds[i + 1];
+                    futures.add(executor.submit(() -> replayPartition(lower, upper)));
+                }
+                for (Future<PartitionReplay> future : futures) {
+                    PartitionReplay replay = await(future);
+                    result.setOperations(result.getOperations() + replay.operations);
+                    result.setCartridges(result.getCartridges() + replay.cartridges);
+                    result.setResetCartridges(result.getResetCartridges() + replay.resetCartridges);
+                    result.setAnomalies(result.getAnomalies() + replay.anomalies);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            
+            stockSummaryService.rebuild();
+            cartridgeSerialIndex.rebuild();
+            result.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            log.info("Состояние картриджей восстановлено: {} операций, {} картриджей, {} сброшено, {} аномалий за {} мс",
+                    result.getOperations(), result.getCartridges(), result.getResetCartridges(),
+                    result.getAnomalies(), result.getDurationMillis());
+            return result;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+    
+    private PartitionReplay replayPartition(UUID lower, UUID upper) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            // Отдельный шаблон с fetch size: журнал секции читается курсором, а не загружается целиком
+            JdbcTemplate streaming = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+            streaming.setFetchSize(REPLAY_FETCH_SIZE);
+            
+            PartitionReplay replay = new PartitionReplay();
+            if (upper != null) {
+                streaming.query(REPLAY_SELECT + " AND cartridge_id < ?" + REPLAY_ORDER, replay, lower, upper);
+                replay.resetCartridges = jdbcTemplate.update(RESET_UPDATE + " AND id < ?" + RESET_CONDITION,
+                        Timestamp.valueOf(LocalDateTime.now()), lower, upper);
+            } else {
+                streaming.query(REPLAY_SELECT + REPLAY_ORDER, replay, lower);
+                replay.resetCartridges = jdbcTemplate.update(RESET_UPDATE + RESET_CONDITION,
+                        Timestamp.valueOf(LocalDateTime.now()), lower);
+            }
+            replay.finish();
+            tableVersions.bump(TableVersions.Table.CARTRIDGES);
+            return replay;
+        });
+    }
+    
+    private PartitionReplay await(Future<PartitionReplay> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Восстановление состояния картриджей прервано", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Ошибка восстановления состояния картриджей", ex.getCause());
+        }
+    }
+    
+    /**
+     * Делит пространство UUID на равные диапазоны по старшим 64 битам.
+     * PostgreSQL сравнивает UUID побайтно, поэтому границы задают непересекающиеся секции.
+     */
+    private static UUID[] partitionBounds(int partitions) {
+        UUID[] bounds = new UUID[partitions + 1];
+        long step = Long.divideUnsigned(-1L, partitions);
+        for (int i = 0; i < partitions; i++) {
+            bounds[i] = new UUID(step * i, 0L);
+        }
+        return bounds;
+    }
+    
+    private LocalDateTime snapshotDate(Cartridge cartridge) {
+        return cartridge.getStateOperationDate() != null ? cartridge.getStateOperationDate() : JOURNAL_START;
+    }
+    
+    private UUID locationId(Location location) {
+        return location != null ? location.getId() : null;
+    }
+    
+    /**
+     * Состояние картриджа при свёртке журнала; один экземпляр переиспользуется для всех картриджей секции
+     */
+    private static final class ProjectionState {
+        
+        private CartridgeStatus status;
+        private UUID locationId;
+        private LocalDateTime operationDate;
+        private UUID operationId;
+        
+        void reset(CartridgeStatus status, UUID locationId) {
+            this.status = status;
+            this.locationId = locationId;
+            this.operationDate = null;
+            this.operationId = null;
+        }
+        
+        /**
+         * @return false, если операция недопустима в текущем статусе и применена принудительно
+         */
+        boolean apply(CartridgeStateMachine stateMachine, OperationType type, UUID operationLocationId) {
+            CartridgeStateMachine.Transition transition = stateMachine.findTransition(status, type);
+            boolean allowed = transition != null;
+            if (!allowed) {
+                transition = stateMachine.findJournalTransition(status, type);
+            }
+            status = transition.targetStatus();
+            locationId = transition.locationRule() == CartridgeStateMachine.LocationRule.FROM_OPERATION
+                    ? operationLocationId
+                    : null;
+            return allowed;
+        }
+        
+        void moveTo(LocalDateTime operationDate, UUID operationId) {
+            this.operationDate = operationDate;
+            this.operationId = operationId;
+        }
+    }
+    
+    /**
+     * Свёртка журнала одной секции: строки приходят упорядоченными по картриджу,
+     * состояние картриджа записывается при переходе к следующему картриджу
+     */
+    private final class PartitionReplay implements RowCallbackHandler {
+        
+        private final ProjectionState state = new ProjectionState();
+        private final List<Object[]> updates = new ArrayList<>(REPLAY_BATCH_SIZE);
+        private UUID cartridgeId;
+        private long operations;
+        private long cartridges;
+        private long resetCartridges;
+        private long anomalies;
+        
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            UUID rowCartridgeId = rs.getObject(1, UUID.class);
+            if (!rowCartridgeId.equals(cartridgeId)) {
+                completeCartridge();
+                cartridgeId = rowCartridgeId;
+                // Картридж создаётся на складе без объекта, далее его состояние задаёт только журнал
+                state.reset(CartridgeStatus.IN_STOCK, null);
+            }
+            if (!state.apply(stateMachine, OperationType.valueOf(rs.getString(4)), rs.getObject(5, UUID.class))) {
+                anomalies++;
+            }
+            state.moveTo(rs.getTimestamp(3).toLocalDateTime(), rs.getObject(2, UUID.class));
+            operations++;
+        }
+        
+        void finish() {
+            completeCartridge();
+            flush();
+        }
+        
+        private void completeCartridge() {
+            if (cartridgeId == null) {
+                return;
+            }
+            Timestamp position = Timestamp.valueOf(state.operationDate);
+            updates.add(new Object[] {
+                    state.status.name(), state.locationId, position, state.operationId,
+                    Timestamp.valueOf(LocalDateTime.now()), cartridgeId,
+                    position, position, state.operationId
+            });
+            cartridges++;
+            if (updates.size() >= REPLAY_BATCH_SIZE) {
+                flush();
+            }
+        }
+        
+        private void flush() {
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(REPLAY_UPDATE, updates);
+                updates.clear();
+            }
+        }
+    }
+}
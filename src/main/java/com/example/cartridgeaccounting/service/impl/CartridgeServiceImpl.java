@@ -1,24 +1,58 @@
 package com.example.cartridgeaccounting.service.impl;
 
+import com.example.cartridgeaccounting.config.MetricsConfig;
 import com.example.cartridgeaccounting.dto.CartridgeDto;
+import com.example.cartridgeaccounting.dto.CartridgeImportResultDto;
+import com.example.cartridgeaccounting.dto.CartridgeQueryRequest;
+import com.example.cartridgeaccounting.dto.CartridgeSerialLookupResultDto;
 import com.example.cartridgeaccounting.dto.CreateCartridgeRequest;
 import com.example.cartridgeaccounting.entity.Cartridge;
-import com.example.cartridgeaccounting.entity.Location;
 import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.event.CartridgeStatusChangedEvent;
+import com.example.cartridgeaccounting.event.CartridgeUpdatedEvent;
 import com.example.cartridgeaccounting.exception.CartridgeNotFoundException;
 import com.example.cartridgeaccounting.exception.DuplicateSerialNumberException;
+import com.example.cartridgeaccounting.exception.InvalidImportFileException;
 import com.example.cartridgeaccounting.exception.LocationNotFoundException;
 import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.CartridgeSpecifications;
 import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.service.CartridgeProjectionService;
+import com.example.cartridgeaccounting.service.CartridgeSerialIndex;
 import com.example.cartridgeaccounting.service.CartridgeService;
+import com.example.cartridgeaccounting.service.CartridgeStateMachine;
+import com.example.cartridgeaccounting.service.StockSummaryService;
+import com.example.cartridgeaccounting.service.TableVersions;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -33,10 +67,37 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class CartridgeServiceImpl implements CartridgeService {
     
+    /**
+     * Количество вставок, после которого контекст персистентности сбрасывается в БД и очищается
+     */
+    private static final int IMPORT_FLUSH_SIZE = 500;
+    
+    /**
+     * Количество серийных номеров в одном запросе проверки существования
+     */
+    private static final int SERIAL_LOOKUP_CHUNK_SIZE = 1000;
+    
+    /**
+     * Максимальное количество подсказок при поиске по префиксу серийного номера
+     */
+    private static final int MAX_PREFIX_SEARCH_LIMIT = 50;
+    
     private final CartridgeRepository cartridgeRepository;
     private final LocationRepository locationRepository;
+    private final StockSummaryService stockSummaryService;
+    private final CartridgeStateMachine stateMachine;
+    private final CartridgeProjectionService projectionService;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TableVersions tableVersions;
+    private final CartridgeSerialIndex cartridgeSerialIndex;
+    
+    @Value("${app.operations.event-sourced:false}")
+    private boolean eventSourced;
     
     /**
      * {@inheritDoc}
@@ -52,26 +113,74 @@ public class CartridgeServiceImpl implements CartridgeService {
             }
         }
         
-        Cartridge cartridge = new Cartridge();
-        cartridge.setModel(request.getModel());
-        cartridge.setSerialNumber(request.getSerialNumber());
-        cartridge.setResourcePages(request.getResourcePages());
-        cartridge.setDescription(request.getDescription());
-        cartridge.setStatus(CartridgeStatus.IN_STOCK);
-        
-        Cartridge savedCartridge = cartridgeRepository.save(cartridge);
+        Cartridge savedCartridge = cartridgeRepository.save(buildCartridge(request));
+        tableVersions.bump(TableVersions.Table.CARTRIDGES);
+        publishCreated(savedCartridge);
         log.info("Картридж создан с ID: {}", savedCartridge.getId());
         
         return convertToDto(savedCartridge);
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CartridgeImportResultDto importCartridges(List<CreateCartridgeRequest> requests) {
+        return importRows(requests, Map.of());
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CartridgeImportResultDto importCartridgesFromCsv(InputStream input) throws IOException {
+        log.info("Импорт картриджей из CSV");
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            throw new InvalidImportFileException("файл пуст");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(normalizeCsvColumn(header.get(i)), i);
+        }
+        if (!columns.containsKey("model")) {
+            throw new InvalidImportFileException("в заголовке отсутствует колонка model");
+        }
+        
+        List<CreateCartridgeRequest> requests = new ArrayList<>();
+        Map<Integer, String> parseErrors = new HashMap<>();
+        List<String> record;
+        while ((record = readCsvRecord(reader)) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            CreateCartridgeRequest request = new CreateCartridgeRequest();
+            request.setModel(csvValue(record, columns, "model"));
+            request.setSerialNumber(csvValue(record, columns, "serialnumber"));
+            request.setDescription(csvValue(record, columns, "description"));
+            String resourcePages = csvValue(record, columns, "resourcepages");
+            if (resourcePages != null) {
+                try {
+                    request.setResourcePages(Integer.valueOf(resourcePages));
+                } catch (NumberFormatException ex) {
+                    parseErrors.put(requests.size(), "Ресурс страниц должен быть целым числом");
+                }
+            }
+            requests.add(request);
+        }
+        
+        return importRows(requests, parseErrors);
+    }
+    
     /**
      * {@inheritDoc}
      */
     @Override
     @Transactional(readOnly = true)
     public CartridgeDto getCartridgeById(UUID id) {
-        log.info("Получение картриджа по ID: {}", id);
+        log.debug("Получение картриджа по ID: {}", id);
         Cartridge cartridge = cartridgeRepository.findById(id)
                 .orElseThrow(() -> new CartridgeNotFoundException(id));
         return convertToDto(cartridge);
@@ -81,12 +190,44 @@ public class CartridgeServiceImpl implements CartridgeService {
      * {@inheritDoc}
      */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public CartridgeDto getCartridgeBySerialNumber(String serialNumber) {
-        log.info("Получение картриджа по серийному номеру: {}", serialNumber);
-        Cartridge cartridge = cartridgeRepository.findBySerialNumber(serialNumber)
+        log.debug("Получение картриджа по серийному номеру: {}", serialNumber);
+        return cartridgeSerialIndex.find(serialNumber)
                 .orElseThrow(() -> new CartridgeNotFoundException(serialNumber, "не найден"));
-        return convertToDto(cartridge);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CartridgeSerialLookupResultDto lookupCartridgesBySerialNumbers(List<String> serialNumbers) {
+        log.debug("Поиск картриджей по {} серийным номерам", serialNumbers.size());
+        Map<String, CartridgeDto> found = cartridgeSerialIndex.findAll(serialNumbers);
+        List<String> notFound = serialNumbers.stream()
+                .distinct()
+                .filter(serialNumber -> !found.containsKey(serialNumber))
+                .toList();
+        return new CartridgeSerialLookupResultDto(new ArrayList<>(found.values()), notFound);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Set<OperationType> getAllowedOperations(UUID id) {
+        log.debug("Получение допустимых операций для картриджа с ID: {}", id);
+        if (eventSourced) {
+            // Проекция обновляется асинхронно: статус вычисляется с учётом ещё не применённых операций
+            Cartridge cartridge = cartridgeRepository.findById(id)
+                    .orElseThrow(() -> new CartridgeNotFoundException(id));
+            return stateMachine.getAllowedOperations(projectionService.resolveStatuses(List.of(cartridge)).get(id));
+        }
+        CartridgeStatus status = cartridgeRepository.findStatusById(id)
+                .orElseThrow(() -> new CartridgeNotFoundException(id));
+        return stateMachine.getAllowedOperations(status);
     }
     
     /**
@@ -95,7 +236,7 @@ public class CartridgeServiceImpl implements CartridgeService {
     @Override
     @Transactional(readOnly = true)
     public Page<CartridgeDto> getAllCartridges(Pageable pageable) {
-        log.info("Получение всех картриджей с пагинацией");
+        log.debug("Получение всех картриджей с пагинацией");
         return cartridgeRepository.findAll(pageable).map(this::convertToDto);
     }
     
@@ -105,8 +246,16 @@ public class CartridgeServiceImpl implements CartridgeService {
     @Override
     @Transactional(readOnly = true)
     public Page<CartridgeDto> searchCartridges(String model, String serialNumber, Pageable pageable) {
-        log.info("Поиск картриджей с моделью: {}, серийным номером: {}", model, serialNumber);
-        return cartridgeRepository.findByModelOrSerialNumberContaining(model, serialNumber, pageable)
+        log.debug("Поиск картриджей с моделью: {}, серийным номером: {}", model, serialNumber);
+        String modelTerm = normalizeSearchTerm(model);
+        String serialNumberTerm = normalizeSearchTerm(serialNumber);
+        if (modelTerm == null && serialNumberTerm == null) {
+            return cartridgeRepository.findAll(pageable).map(this::convertToDto);
+        }
+        // Порядок определяется ранжированием по похожести, поэтому сортировка из запроса не применяется
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        return cartridgeRepository.searchByModelOrSerialNumber(
+                        containsPattern(modelTerm), containsPattern(serialNumberTerm), unsorted)
                 .map(this::convertToDto);
     }
     
@@ -115,11 +264,13 @@ public class CartridgeServiceImpl implements CartridgeService {
      */
     @Override
     @Transactional(readOnly = true)
-    public List<CartridgeDto> getCartridgesByStatus(CartridgeStatus status) {
-        log.info("Получение картриджей по статусу: {}", status);
-        return cartridgeRepository.findByStatus(status).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public Page<CartridgeDto> queryCartridges(CartridgeQueryRequest request, Pageable pageable) {
+        log.debug("Отбор картриджей по условиям: {}", request);
+        // Без сортировки из запроса — сначала новые; идентификатор делает порядок однозначным между страницами
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by(Sort.Direction.DESC, "createdAt");
+        Pageable ordered = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                sort.and(Sort.by(Sort.Direction.DESC, "id")));
+        return cartridgeRepository.findAll(CartridgeSpecifications.matching(request), ordered).map(this::convertToDto);
     }
     
     /**
@@ -127,16 +278,43 @@ public class CartridgeServiceImpl implements CartridgeService {
      */
     @Override
     @Transactional(readOnly = true)
-    public List<CartridgeDto> getCartridgesByLocation(UUID locationId) {
-        log.info("Получение картриджей по объекту с ID: {}", locationId);
-        Location location = locationRepository.findById(locationId)
-                .orElseThrow(() -> new LocationNotFoundException(locationId));
-        
-        return cartridgeRepository.findByCurrentLocation(location).stream()
+    public List<CartridgeDto> searchCartridgesBySerialNumberPrefix(String prefix, int limit) {
+        log.debug("Поиск картриджей по префиксу серийного номера: {}", prefix);
+        String term = normalizeSearchTerm(prefix);
+        if (term == null) {
+            return List.of();
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PREFIX_SEARCH_LIMIT));
+        return cartridgeRepository.findBySerialNumberPrefix(escapeLike(term) + "%", PageRequest.of(0, size)).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CartridgeDto> getCartridgesByStatus(CartridgeStatus status, Pageable pageable) {
+        log.debug("Получение картриджей по статусу: {}", status);
+        return cartridgeRepository.findByStatus(status, pageable).map(this::convertToDto);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CartridgeDto> getCartridgesByLocation(UUID locationId, Pageable pageable) {
+        log.debug("Получение картриджей по объекту с ID: {}", locationId);
+        Page<Cartridge> cartridges = cartridgeRepository.findByCurrentLocationId(locationId, pageable);
+        // Существование объекта проверяется только для пустой страницы: на непустой оно уже доказано
+        if (cartridges.isEmpty() && !locationRepository.existsById(locationId)) {
+            throw new LocationNotFoundException(locationId);
+        }
+        return cartridges.map(this::convertToDto);
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -159,6 +337,8 @@ public class CartridgeServiceImpl implements CartridgeService {
         cartridge.setDescription(request.getDescription());
         
         Cartridge updatedCartridge = cartridgeRepository.save(cartridge);
+        tableVersions.bump(TableVersions.Table.CARTRIDGES);
+        eventPublisher.publishEvent(new CartridgeUpdatedEvent(updatedCartridge.getId()));
         log.info("Картридж обновлен с ID: {}", updatedCartridge.getId());
         
         return convertToDto(updatedCartridge);
@@ -170,10 +350,12 @@ public class CartridgeServiceImpl implements CartridgeService {
     @Override
     public void deleteCartridge(UUID id) {
         log.info("Удаление картриджа с ID: {}", id);
-        if (!cartridgeRepository.existsById(id)) {
-            throw new CartridgeNotFoundException(id);
-        }
-        cartridgeRepository.deleteById(id);
+        Cartridge cartridge = cartridgeRepository.findById(id)
+                .orElseThrow(() -> new CartridgeNotFoundException(id));
+        cartridgeRepository.delete(cartridge);
+        tableVersions.bump(TableVersions.Table.CARTRIDGES);
+        eventPublisher.publishEvent(new CartridgeStatusChangedEvent(id, cartridge.getStatus(),
+                cartridge.getCurrentLocation() != null ? cartridge.getCurrentLocation().getId() : null, null, null));
         log.info("Картридж удален с ID: {}", id);
     }
     
@@ -183,7 +365,7 @@ public class CartridgeServiceImpl implements CartridgeService {
     @Override
     @Transactional(readOnly = true)
     public long getCartridgeCountByStatus(CartridgeStatus status) {
-        return cartridgeRepository.countByStatus(status);
+        return stockSummaryService.getCount(status);
     }
     
     /**
@@ -192,9 +374,265 @@ public class CartridgeServiceImpl implements CartridgeService {
     @Override
     @Transactional(readOnly = true)
     public long getCartridgeCountByLocationAndStatus(UUID locationId, CartridgeStatus status) {
-        Location location = locationRepository.findById(locationId)
-                .orElseThrow(() -> new LocationNotFoundException(locationId));
-        return cartridgeRepository.countByLocationAndStatus(location, status);
+        if (!locationRepository.existsById(locationId)) {
+            throw new LocationNotFoundException(locationId);
+        }
+        return stockSummaryService.getCount(locationId, status);
+    }
+    
+    /**
+     * Импортирует строки: проверяет их, отсеивает дубликаты серийных номеров в памяти,
+     * одним набором запросов находит уже существующие номера и вставляет остальные пакетами
+     * 
+     * @param requests строки импорта
+     * @param parseErrors ошибки разбора по индексу строки
+     * @return итоги импорта
+     */
+    private CartridgeImportResultDto importRows(List<CreateCartridgeRequest> requests, Map<Integer, String> parseErrors) {
+        log.info("Импорт {} картриджей", requests.size());
+        
+        List<CartridgeImportResultDto.RowIssue> issues = new ArrayList<>();
+        List<CreateCartridgeRequest> candidates = new ArrayList<>(requests.size());
+        List<Integer> candidateRows = new ArrayList<>(requests.size());
+        Set<String> serialNumbers = new HashSet<>();
+        int duplicates = 0;
+        
+        for (int i = 0; i < requests.size(); i++) {
+            CreateCartridgeRequest request = requests.get(i);
+            String serialNumber = normalizeSerialNumber(request.getSerialNumber());
+            request.setSerialNumber(serialNumber);
+            
+            String error = parseErrors.containsKey(i) ? parseErrors.get(i) : validationError(request);
+            if (error != null) {
+                issues.add(new CartridgeImportResultDto.RowIssue(i + 1, serialNumber, false, error));
+                continue;
+            }
+            if (serialNumber != null && !serialNumbers.add(serialNumber)) {
+                duplicates++;
+                issues.add(new CartridgeImportResultDto.RowIssue(i + 1, serialNumber, true,
+                        "Серийный номер повторяется в данных импорта"));
+                continue;
+            }
+            candidates.add(request);
+            candidateRows.add(i + 1);
+        }
+        
+        Set<String> existingSerialNumbers = findExistingSerialNumbers(serialNumbers);
+        
+        int created = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            CreateCartridgeRequest request = candidates.get(i);
+            if (request.getSerialNumber() != null && existingSerialNumbers.contains(request.getSerialNumber())) {
+                duplicates++;
+                issues.add(new CartridgeImportResultDto.RowIssue(candidateRows.get(i), request.getSerialNumber(), true,
+                        new DuplicateSerialNumberException(request.getSerialNumber()).getMessage()));
+                continue;
+            }
+            Cartridge cartridge = buildCartridge(request);
+            entityManager.persist(cartridge);
+            publishCreated(cartridge);
+            if (++created % IMPORT_FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        if (created > 0) {
+            tableVersions.bump(TableVersions.Table.CARTRIDGES);
+        }
+        
+        issues.sort(Comparator.comparingInt(CartridgeImportResultDto.RowIssue::getRow));
+        int rejected = issues.size() - duplicates;
+        log.info("Импорт завершён: создано {}, дубликатов {}, отклонено {}", created, duplicates, rejected);
+        
+        return new CartridgeImportResultDto(requests.size(), created, duplicates, rejected, issues);
+    }
+    
+    /**
+     * Возвращает серийные номера, которые уже есть в базе, запрашивая их порциями
+     * 
+     * @param serialNumbers проверяемые серийные номера
+     * @return существующие серийные номера
+     */
+    private Set<String> findExistingSerialNumbers(Set<String> serialNumbers) {
+        Set<String> existing = new HashSet<>();
+        List<String> chunk = new ArrayList<>(SERIAL_LOOKUP_CHUNK_SIZE);
+        for (String serialNumber : serialNumbers) {
+            chunk.add(serialNumber);
+            if (chunk.size() == SERIAL_LOOKUP_CHUNK_SIZE) {
+                existing.addAll(cartridgeRepository.findExistingSerialNumbers(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            existing.addAll(cartridgeRepository.findExistingSerialNumbers(chunk));
+        }
+        return existing;
+    }
+    
+    /**
+     * Проверяет строку импорта по аннотациям валидации запроса
+     * 
+     * @param request строка импорта
+     * @return текст ошибки или null, если строка корректна
+     */
+    private String validationError(CreateCartridgeRequest request) {
+        Set<ConstraintViolation<CreateCartridgeRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+    
+    /**
+     * Приводит серийный номер к единому виду: убирает пробелы, пустую строку заменяет на null
+     * 
+     * @param serialNumber серийный номер
+     * @return нормализованный серийный номер
+     */
+    private String normalizeSerialNumber(String serialNumber) {
+        if (serialNumber == null || serialNumber.trim().isEmpty()) {
+            return null;
+        }
+        return serialNumber.trim();
+    }
+    
+    /**
+     * Приводит строку поиска к нижнему регистру без крайних пробелов
+     * 
+     * @param value исходная строка
+     * @return нормализованная строка или null, если строка пуста
+     */
+    private String normalizeSearchTerm(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Строит шаблон LIKE для поиска по подстроке
+     * 
+     * @param term нормализованная строка поиска
+     * @return шаблон или null, если строка не задана
+     */
+    private String containsPattern(String term) {
+        return term != null ? "%" + escapeLike(term) + "%" : null;
+    }
+    
+    /**
+     * Экранирует служебные символы LIKE, чтобы они искались буквально
+     * 
+     * @param term строка поиска
+     * @return экранированная строка
+     */
+    private String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+    
+    /**
+     * Публикует событие появления нового картриджа на складе
+     * 
+     * @param cartridge сохранённый картридж
+     */
+    private void publishCreated(Cartridge cartridge) {
+        eventPublisher.publishEvent(new CartridgeStatusChangedEvent(cartridge.getId(),
+                null, null, cartridge.getStatus(), null));
+    }
+    
+    /**
+     * Создает новую сущность картриджа со статусом "На складе"
+     * 
+     * @param request данные картриджа
+     * @return сущность картриджа
+     */
+    private Cartridge buildCartridge(CreateCartridgeRequest request) {
+        Cartridge cartridge = new Cartridge();
+        cartridge.setModel(request.getModel());
+        cartridge.setSerialNumber(request.getSerialNumber());
+        cartridge.setResourcePages(request.getResourcePages());
+        cartridge.setDescription(request.getDescription());
+        cartridge.setStatus(CartridgeStatus.IN_STOCK);
+        return cartridge;
+    }
+    
+    /**
+     * Читает одну запись CSV (RFC 4180): поля в кавычках могут содержать запятые,
+     * переводы строк и удвоенные кавычки
+     * 
+     * @param reader источник данных
+     * @return значения полей или null, если данные закончились
+     * @throws IOException при ошибке чтения
+     */
+    private List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        int ch = reader.read();
+        if (ch == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (ch != -1) {
+            if (quoted) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                break;
+            } else if (ch != '\r') {
+                field.append((char) ch);
+            }
+            ch = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+    
+    /**
+     * Приводит название колонки CSV к виду без регистра, пробелов, подчёркиваний и BOM
+     * 
+     * @param column название колонки из заголовка
+     * @return нормализованное название
+     */
+    private String normalizeCsvColumn(String column) {
+        return column.replace("\uFEFF", "").replace("_", "").trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Возвращает значение колонки записи CSV
+     * 
+     * @param record значения полей записи
+     * @param columns индексы колонок по нормализованному названию
+     * @param column нормализованное название колонки
+     * @return значение без крайних пробелов или null, если оно пустое
+     */
+    private String csvValue(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
     }
     
     /**
@@ -0,0 +1,302 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.config.MetricsConfig;
+import com.example.cartridgeaccounting.dto.ConsumptionForecastDto;
+import com.example.cartridgeaccounting.entity.Location;
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.event.OperationCreatedEvent;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.repository.OperationRepository;
+import com.example.cartridgeaccounting.service.ConsumptionForecastService;
+import com.example.cartridgeaccounting.service.ConsumptionTracker;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация сервиса прогноза расхода картриджей.
+ * Скорости расхода хранятся в {@link ConsumptionTracker}: при запуске и периодически он строится
+ * одним проходом курсора по журналу за период истории, а между пересчётами пополняется
+ * по событиям {@link OperationCreatedEvent} после фиксации транзакций. События, обработанные
+ * во время пересчёта, сверяются с его снимком журнала: к новому экземпляру перед подменой
+ * применяются только операции, которых пересчёт не прочитал.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ConsumptionForecastServiceImpl implements ConsumptionForecastService {
+    
+    private static final int REBUILD_FETCH_SIZE = 5000;
+    
+    private static final String REBUILD_SELECT = "SELECT o.location_id, c.model, c.resource_pages, o.type, o.count, " +
+            "o.operation_date FROM operations o JOIN cartridges c ON c.id = o.cartridge_id " +
+            "WHERE o.type IN ('ISSUE', 'REFILL') AND o.location_id IS NOT NULL " +
+            "AND o.operation_date >= ? AND o.operation_date < ?";
+    
+    private final CartridgeRepository cartridgeRepository;
+    private final LocationRepository locationRepository;
+    private final OperationRepository operationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Value("${app.forecast.half-life:P30D}")
+    private Duration halfLife;
+    
+    @Value("${app.forecast.history:P365D}")
+    private Duration history;
+    
+    @Value("${app.forecast.lead-time:P14D}")
+    private Duration leadTime;
+    
+    @Value("${app.forecast.safety-stock:P7D}")
+    private Duration safetyStock;
+    
+    @Value("${app.forecast.review-period:P30D}")
+    private Duration reviewPeriod;
+    
+    @Value("${app.forecast.min-history:P14D}")
+    private Duration minHistory;
+    
+    @Value("${app.forecast.min-issues:3}")
+    private long minIssues;
+    
+    /**
+     * Блокировка на запись берётся только при начале пересчёта и подмене трекера,
+     * обработчики событий работают параллельно под блокировкой на чтение
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private volatile ConsumptionTracker tracker;
+    
+    /**
+     * События, обработанные во время пересчёта (null вне пересчёта)
+     */
+    private volatile Queue<OperationCreatedEvent> pendingEvents;
+    
+    /**
+     * Строит скорости расхода при запуске приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    /**
+     * Периодически пересчитывает скорости расхода по журналу
+     * (учитывает операции, созданные другими экземплярами приложения)
+     */
+    @Scheduled(fixedDelayString = "${app.forecast.resync-interval:PT6H}",
+               initialDelayString = "${app.forecast.resync-interval:PT6H}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+    
+    /**
+     * Учитывает созданную операцию после фиксации транзакции.
+     * Во время пересчёта событие также откладывается для сверки со снимком пересчёта
+     * 
+     * @param event событие создания операции
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOperationCreated(OperationCreatedEvent event) {
+        lock.readLock().lock();
+        try {
+            ConsumptionTracker current = tracker;
+            if (current != null) {
+                apply(current, event);
+            }
+            // Дата операции задаётся до фиксации, поэтому по ней нельзя судить, прочитал ли её пересчёт
+            Queue<OperationCreatedEvent> pending = pendingEvents;
+            if (pending != null) {
+                pending.add(event);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now();
+        LocalDateTime from = cutoff.minus(history);
+        Queue<OperationCreatedEvent> pending = new ConcurrentLinkedQueue<>();
+        lock.writeLock().lock();
+        try {
+            pendingEvents = pending;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        ConsumptionTracker rebuilt = new ConsumptionTracker(halfLife);
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> {
+                // Отдельный шаблон с fetch size: журнал читается курсором, а не загружается целиком
+                JdbcTemplate streaming = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+                streaming.setFetchSize(REBUILD_FETCH_SIZE);
+                streaming.query(REBUILD_SELECT, rs -> {
+                    int resourcePages = rs.getInt(3);
+                    rebuilt.record(rs.getObject(1, UUID.class), rs.getString(2), rs.wasNull() ? null : resourcePages,
+                            OperationType.valueOf(rs.getString(4)), rs.getInt(5),
+                            rs.getTimestamp(6).getTime());
+                }, Timestamp.valueOf(from), Timestamp.valueOf(cutoff));
+                swap(rebuilt, pending, from, cutoff);
+            });
+        } finally {
+            pendingEvents = null;
+        }
+        log.debug("Скорости расхода пересчитаны: {} пар объект/модель за {} мс",
+                rebuilt.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    // Журнал и операции отложенных событий читаются из одного снимка базы данных
+    private void swap(ConsumptionTracker rebuilt, Queue<OperationCreatedEvent> pending,
+                      LocalDateTime from, LocalDateTime cutoff) {
+        lock.writeLock().lock();
+        try {
+            List<OperationCreatedEvent> events = new ArrayList<>(pending);
+            if (!events.isEmpty()) {
+                Set<UUID> operationIds = events.stream()
+                        .map(OperationCreatedEvent::operationId)
+                        .collect(Collectors.toSet());
+                // Операция, которую пересчёт уже прочитал из журнала, второй раз не учитывается
+                Set<UUID> scanned = operationRepository.findExistingIdsInInterval(operationIds, from, cutoff);
+                events.stream()
+                        .filter(event -> !scanned.contains(event.operationId()))
+                        .forEach(event -> apply(rebuilt, event));
+            }
+            tracker = rebuilt;
+            pendingEvents = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ConsumptionForecastDto> getForecast(UUID locationId, boolean reorderOnly) {
+        ConsumptionTracker current = tracker;
+        if (current == null) {
+            return List.of();
+        }
+        
+        Map<ConsumptionTracker.SeriesKey, Long> stock = new HashMap<>();
+        for (CartridgeRepository.ModelStockCount count : cartridgeRepository.countByLocationAndModel(CartridgeStatus.IN_STOCK)) {
+            stock.put(new ConsumptionTracker.SeriesKey(count.getLocationId(), count.getModel()), count.getCount());
+        }
+        
+        double coverDays = toDays(leadTime) + toDays(safetyStock);
+        double targetDays = coverDays + toDays(reviewPeriod);
+        LocalDate today = LocalDate.now();
+        long nowMillis = System.currentTimeMillis();
+        List<ConsumptionForecastDto> forecasts = new ArrayList<>();
+        for (ConsumptionTracker.Rate rate : current.rates(nowMillis)) {
+            if (locationId != null && !locationId.equals(rate.key().locationId())) {
+                continue;
+            }
+            long inStock = stock.getOrDefault(rate.key(), 0L);
+            
+            ConsumptionForecastDto dto = new ConsumptionForecastDto();
+            dto.setLocationId(rate.key().locationId());
+            dto.setModel(rate.key().model());
+            dto.setLastOperationDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(rate.lastOperationMillis()),
+                    ZoneId.systemDefault()));
+            dto.setInStock(inStock);
+            // Одна-две выдачи новой пары дали бы расход порядка картриджа в сутки и большой дозаказ
+            if (nowMillis - rate.firstOperationMillis() < minHistory.toMillis() || rate.issueOperations() < minIssues) {
+                dto.setInsufficientHistory(true);
+                if (!reorderOnly) {
+                    forecasts.add(dto);
+                }
+                continue;
+            }
+            
+            double perDay = rate.issuesPerDay();
+            dto.setIssuesPerDay(round(perDay));
+            dto.setPagesPerDay(round(rate.pagesPerDay()));
+            dto.setRefillsPerDay(round(rate.refillsPerDay()));
+            if (perDay > 0) {
+                double daysOfCover = inStock / perDay;
+                dto.setDaysOfCover(round(daysOfCover));
+                dto.setStockoutDate(today.plusDays((long) Math.min(daysOfCover, 36_500)));
+            }
+            dto.setReorderPoint((long) Math.ceil(perDay * coverDays));
+            dto.setReorderNeeded(perDay > 0 && inStock <= dto.getReorderPoint());
+            dto.setRecommendedQuantity(dto.isReorderNeeded()
+                    ? Math.max(0, (long) Math.ceil(perDay * targetDays) - inStock)
+                    : 0);
+            if (!reorderOnly || dto.isReorderNeeded()) {
+                forecasts.add(dto);
+            }
+        }
+        
+        Set<UUID> locationIds = forecasts.stream()
+                .map(ConsumptionForecastDto::getLocationId)
+                .collect(Collectors.toSet());
+        Map<UUID, String> names = locationRepository.findAllById(locationIds).stream()
+                .collect(Collectors.toMap(Location::getId, Location::getName));
+        forecasts.forEach(dto -> dto.setLocationName(names.get(dto.getLocationId())));
+        forecasts.sort(Comparator.comparing(ConsumptionForecastDto::getDaysOfCover,
+                        Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(ConsumptionForecastDto::getLocationName, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(ConsumptionForecastDto::getModel));
+        return forecasts;
+    }
+    
+    private void apply(ConsumptionTracker target, OperationCreatedEvent event) {
+        target.record(event.locationId(), event.cartridgeModel(), event.resourcePages(), event.type(), event.count(),
+                event.operationDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+    
+    private static double toDays(Duration duration) {
+        return duration.toMillis() / (double) Duration.ofDays(1).toMillis();
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
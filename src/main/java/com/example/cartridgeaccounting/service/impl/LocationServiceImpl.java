@@ -1,13 +1,21 @@
 package com.example.cartridgeaccounting.service.impl;
 
+import com.example.cartridgeaccounting.config.CacheConfig;
+import com.example.cartridgeaccounting.config.MetricsConfig;
 import com.example.cartridgeaccounting.dto.CreateLocationRequest;
 import com.example.cartridgeaccounting.dto.LocationDto;
 import com.example.cartridgeaccounting.entity.Location;
 import com.example.cartridgeaccounting.exception.LocationNotFoundException;
 import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.repository.ResultLimitGuard;
 import com.example.cartridgeaccounting.service.LocationService;
+import com.example.cartridgeaccounting.service.TableVersions;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -28,14 +36,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class LocationServiceImpl implements LocationService {
     
     private final LocationRepository locationRepository;
+    private final TableVersions tableVersions;
+    private final ResultLimitGuard resultLimitGuard;
     
     /**
      * {@inheritDoc}
      */
     @Override
+    @CacheEvict(cacheNames = CacheConfig.ACTIVE_LOCATIONS, allEntries = true)
     public LocationDto createLocation(CreateLocationRequest request) {
         log.info("Создание объекта с названием: {}", request.getName());
         
@@ -48,6 +60,7 @@ public class LocationServiceImpl implements LocationService {
         location.setActive(request.isActive());
         
         Location savedLocation = locationRepository.save(location);
+        tableVersions.bump(TableVersions.Table.LOCATIONS);
         log.info("Объект создан с ID: {}", savedLocation.getId());
         
         return convertToDto(savedLocation);
@@ -57,9 +70,10 @@ public class LocationServiceImpl implements LocationService {
      * {@inheritDoc}
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.LOCATIONS, key = "#id")
     @Transactional(readOnly = true)
     public LocationDto getLocationById(UUID id) {
-        log.info("Получение объекта по ID: {}", id);
+        log.debug("Получение объекта по ID: {}", id);
         Location location = locationRepository.findById(id)
                 .orElseThrow(() -> new LocationNotFoundException(id));
         return convertToDto(location);
@@ -71,7 +85,7 @@ public class LocationServiceImpl implements LocationService {
     @Override
     @Transactional(readOnly = true)
     public LocationDto getLocationByName(String name) {
-        log.info("Получение объекта по названию: {}", name);
+        log.debug("Получение объекта по названию: {}", name);
         Location location = locationRepository.findByName(name)
                 .orElseThrow(() -> new LocationNotFoundException(name));
         return convertToDto(location);
@@ -83,7 +97,7 @@ public class LocationServiceImpl implements LocationService {
     @Override
     @Transactional(readOnly = true)
     public Page<LocationDto> getAllLocations(Pageable pageable) {
-        log.info("Получение всех объектов с пагинацией");
+        log.debug("Получение всех объектов с пагинацией");
         return locationRepository.findAll(pageable).map(this::convertToDto);
     }
     
@@ -91,10 +105,11 @@ public class LocationServiceImpl implements LocationService {
      * {@inheritDoc}
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.ACTIVE_LOCATIONS, key = "'all'")
     @Transactional(readOnly = true)
     public List<LocationDto> getActiveLocations() {
-        log.info("Получение активных объектов");
-        return locationRepository.findByActive(true).stream()
+        log.debug("Получение активных объектов");
+        return resultLimitGuard.check(locationRepository.findByActive(true, resultLimitGuard.limit())).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -105,8 +120,8 @@ public class LocationServiceImpl implements LocationService {
     @Override
     @Transactional(readOnly = true)
     public List<LocationDto> searchLocationsByAddress(String address) {
-        log.info("Поиск объектов по адресу: {}", address);
-        return locationRepository.findByAddressContainingIgnoreCase(address).stream()
+        log.debug("Поиск объектов по адресу: {}", address);
+        return resultLimitGuard.check(locationRepository.findByAddressContainingIgnoreCase(address, resultLimitGuard.limit())).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -117,8 +132,8 @@ public class LocationServiceImpl implements LocationService {
     @Override
     @Transactional(readOnly = true)
     public List<LocationDto> searchLocationsByContactPerson(String contactPerson) {
-        log.info("Поиск объектов по контактному лицу: {}", contactPerson);
-        return locationRepository.findByContactPersonContainingIgnoreCase(contactPerson).stream()
+        log.debug("Поиск объектов по контактному лицу: {}", contactPerson);
+        return resultLimitGuard.check(locationRepository.findByContactPersonContainingIgnoreCase(contactPerson, resultLimitGuard.limit())).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -127,6 +142,10 @@ public class LocationServiceImpl implements LocationService {
      * {@inheritDoc}
      */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.LOCATIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ACTIVE_LOCATIONS, allEntries = true)
+    })
     public LocationDto updateLocation(UUID id, CreateLocationRequest request) {
         log.info("Обновление объекта с ID: {}", id);
         Location location = locationRepository.findById(id)
@@ -140,6 +159,7 @@ public class LocationServiceImpl implements LocationService {
         location.setActive(request.isActive());
         
         Location updatedLocation = locationRepository.save(location);
+        tableVersions.bump(TableVersions.Table.LOCATIONS);
         log.info("Объект обновлен с ID: {}", updatedLocation.getId());
         
         return convertToDto(updatedLocation);
@@ -149,12 +169,17 @@ public class LocationServiceImpl implements LocationService {
      * {@inheritDoc}
      */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.LOCATIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ACTIVE_LOCATIONS, allEntries = true)
+    })
     public void deleteLocation(UUID id) {
         log.info("Удаление объекта с ID: {}", id);
         if (!locationRepository.existsById(id)) {
             throw new LocationNotFoundException(id);
         }
         locationRepository.deleteById(id);
+        tableVersions.bump(TableVersions.Table.LOCATIONS);
         log.info("Объект удален с ID: {}", id);
     }
     
@@ -162,6 +187,10 @@ public class LocationServiceImpl implements LocationService {
      * {@inheritDoc}
      */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.LOCATIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ACTIVE_LOCATIONS, allEntries = true)
+    })
     public void changeLocationStatus(UUID id, boolean active) {
         log.info("Изменение статуса объекта с ID: {} на активный: {}", id, active);
         Location location = locationRepository.findById(id)
@@ -169,6 +198,7 @@ public class LocationServiceImpl implements LocationService {
         
         location.setActive(active);
         locationRepository.save(location);
+        tableVersions.bump(TableVersions.Table.LOCATIONS);
         log.info("Статус объекта изменен для ID: {}", id);
     }
     
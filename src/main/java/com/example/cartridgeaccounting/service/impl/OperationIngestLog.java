@@ -0,0 +1,281 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Локальный журнал асинхронной очереди записи операций.
+ * Операции дописываются построчно (JSON) в файлы-сегменты ограниченного размера;
+ * сегмент удаляется, когда все его операции записаны в базу данных.
+ * Принудительная запись на диск (fsync) группируется: один вызов подтверждает
+ * все строки, дописанные к этому моменту параллельными потоками. Блокировки — {@link ReentrantLock},
+ * а не synchronized: ожидание записи на диск не закрепляет виртуальный поток за потоком-носителем.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Slf4j
+final class OperationIngestLog implements Closeable {
+    
+    private static final Pattern SEGMENT_NAME = Pattern.compile("operations-(\\d{12})\\.log");
+    
+    private final Path directory;
+    private final long segmentSize;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+    
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private Segment current;
+    private long nextSequence;
+    private long appended;
+    private volatile long synced;
+    
+    OperationIngestLog(Path directory, long segmentSize, boolean fsync, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Открывает журнал и читает операции, оставшиеся незаписанными после прошлого запуска
+     * 
+     * @return операции в порядке приёма
+     */
+    List<Entry> open() throws IOException {
+        lock.lock();
+        try {
+            Files.createDirectories(directory);
+            TreeMap<Long, Path> files = new TreeMap<>();
+            try (Stream<Path> paths = Files.list(directory)) {
+                paths.forEach(path -> {
+                    Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                    if (matcher.matches()) {
+                        files.put(Long.parseLong(matcher.group(1)), path);
+                    }
+                });
+            }
+            
+            List<Entry> entries = new ArrayList<>();
+            for (var file : files.entrySet()) {
+                Segment segment = new Segment(file.getKey(), file.getValue());
+                segment.size = Files.size(file.getValue());
+                try (BufferedReader reader = Files.newBufferedReader(file.getValue(), StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        try {
+                            entries.add(new Entry(objectMapper.readValue(line, Record.class), segment.sequence, 0));
+                            segment.pending++;
+                        } catch (JsonProcessingException ex) {
+                            // Оборванная строка: процесс остановился во время записи, операция не была подтверждена
+                            log.warn("Пропущена повреждённая строка журнала очереди {}", file.getValue());
+                        }
+                    }
+                }
+                if (segment.pending == 0) {
+                    Files.deleteIfExists(segment.path);
+                } else {
+                    segments.put(segment.sequence, segment);
+                }
+                nextSequence = file.getKey() + 1;
+            }
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Дописывает операцию в текущий сегмент
+     * 
+     * @param record операция
+     * @return запись журнала с позицией, до которой нужно вызвать {@link #sync(long)}
+     */
+    Entry append(Record record) throws IOException {
+        lock.lock();
+        try {
+            byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+            if (current == null || current.size >= segmentSize) {
+                roll();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                current.channel.write(buffer);
+            }
+            current.size += line.length;
+            current.pending++;
+            appended += line.length;
+            return new Entry(record, current.sequence, appended);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Гарантирует, что журнал записан на диск до указанной позиции
+     * 
+     * @param position позиция, возвращённая {@link #append(Record)}
+     */
+    void sync(long position) throws IOException {
+        if (!fsync || synced >= position) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (synced >= position) {
+                return;
+            }
+            long target;
+            FileChannel channel;
+            lock.lock();
+            try {
+                target = appended;
+                channel = current.channel;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException ex) {
+                // Сегмент закрыт при переключении, а перед закрытием записан на диск
+            }
+            synced = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+    
+    /**
+     * Отмечает операцию сегмента записанной в базу данных
+     * 
+     * @param sequence номер сегмента
+     */
+    void complete(long sequence) throws IOException {
+        lock.lock();
+        try {
+            Segment segment = segments.get(sequence);
+            if (segment == null || --segment.pending > 0) {
+                return;
+            }
+            if (segment == current) {
+                // Все операции текущего сегмента записаны: файл очищается и используется дальше
+                current.channel.truncate(0);
+                current.channel.position(0);
+                current.size = 0;
+            } else {
+                segment.close();
+                Files.deleteIfExists(segment.path);
+                segments.remove(sequence);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    long sizeInBytes() {
+        lock.lock();
+        try {
+            return segments.values().stream().mapToLong(segment -> segment.size).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void roll() throws IOException {
+        if (current != null) {
+            if (fsync) {
+                current.channel.force(false);
+            }
+            if (current.pending == 0) {
+                current.close();
+                Files.deleteIfExists(current.path);
+                segments.remove(current.sequence);
+            }
+        }
+        long sequence = nextSequence++;
+        current = new Segment(sequence, directory.resolve(String.format("operations-%012d.log", sequence)));
+        current.channel = FileChannel.open(current.path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segments.put(sequence, current);
+    }
+    
+    /**
+     * Операция в журнале очереди
+     */
+    record Record(UUID ticketId, String username, LocalDateTime acceptedAt, CreateOperationRequest request) {
+    }
+    
+    /**
+     * Операция с номером сегмента, в котором она записана
+     */
+    record Entry(Record record, long segment, long position) {
+    }
+    
+    private static final class Segment {
+        
+        private final long sequence;
+        private final Path path;
+        private FileChannel channel;
+        private long size;
+        private int pending;
+        
+        private Segment(long sequence, Path path) {
+            this.sequence = sequence;
+            this.path = path;
+        }
+        
+        private void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
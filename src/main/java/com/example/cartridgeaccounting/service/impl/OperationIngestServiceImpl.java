@@ -0,0 +1,457 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.config.MetricsConfig;
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.IngestQueueStatusDto;
+import com.example.cartridgeaccounting.dto.IngestTicketDto;
+import com.example.cartridgeaccounting.dto.OperationBatchResultDto;
+import com.example.cartridgeaccounting.entity.enums.IngestStatus;
+import com.example.cartridgeaccounting.exception.IngestQueueFullException;
+import com.example.cartridgeaccounting.exception.IngestTicketNotFoundException;
+import com.example.cartridgeaccounting.repository.OperationIngestTicketRepository;
+import com.example.cartridgeaccounting.service.OperationIngestService;
+import com.example.cartridgeaccounting.service.OperationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Реализация асинхронной записи операций (включается {@code app.operations.ingest.enabled}).
+ * Принятая операция дописывается в {@link OperationIngestLog} и ставится в очередь в памяти;
+ * ёмкость очереди ограничена, при заполнении приём отклоняется с 429. Единственный поток записи
+ * забирает операции пакетами и создаёт их через {@link OperationService#createOperations},
+ * сохраняя в той же транзакции результат по каждой операции в {@code operation_ingest_tickets}.
+ * После перезапуска незавершённые операции читаются из журнала очереди; уже записанные
+ * определяются по таблице результатов и повторно не создаются.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Service
+@ConditionalOnProperty(name = "app.operations.ingest.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class OperationIngestServiceImpl implements OperationIngestService {
+    
+    private static final String INSERT_TICKET = "INSERT INTO operation_ingest_tickets " +
+            "(ticket_id, status, operation_id, message, accepted_at, processed_at) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    private static final int MESSAGE_MAX_LENGTH = 500;
+    private static final long RETRY_INITIAL_DELAY_MS = 100;
+    private static final long RETRY_MAX_DELAY_MS = 30_000;
+    
+    private final OperationService operationService;
+    private final OperationIngestTicketRepository ticketRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${app.operations.ingest.queue-capacity:10000}")
+    private int capacity;
+    
+    @Value("${app.operations.ingest.log-dir:./data/ingest}")
+    private String logDir;
+    
+    @Value("${app.operations.ingest.segment-size:16MB}")
+    private DataSize segmentSize;
+    
+    @Value("${app.operations.ingest.fsync:true}")
+    private boolean fsync;
+    
+    @Value("${app.operations.ingest.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${app.operations.ingest.ticket-retention:P7D}")
+    private Duration ticketRetention;
+    
+    @Value("${app.operations.ingest.shutdown-timeout:PT30S}")
+    private Duration shutdownTimeout;
+    
+    private final BlockingDeque<PendingOperation> queue = new LinkedBlockingDeque<>();
+    private final Map<UUID, PendingOperation> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    
+    private OperationIngestLog ingestLog;
+    private Semaphore permits;
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile LocalDateTime writingSince;
+    private volatile String lastError;
+    private volatile LocalDateTime lastErrorAt;
+    
+    /**
+     * Открывает журнал очереди и ставит в очередь операции, не записанные до остановки
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        ingestLog = new OperationIngestLog(Path.of(logDir), segmentSize.toBytes(), fsync, objectMapper);
+        List<OperationIngestLog.Entry> entries = ingestLog.open();
+        for (OperationIngestLog.Entry entry : entries) {
+            PendingOperation operation = new PendingOperation(entry, true);
+            queue.add(operation);
+            pending.put(operation.ticketId(), operation);
+        }
+        // Восстановленные операции занимают место в очереди, даже если их больше ёмкости
+        permits = new Semaphore(capacity - entries.size());
+        Gauge.builder("cartridge.ingest.pending", pending, Map::size)
+                .description("Операции асинхронной очереди, ожидающие записи в базу данных")
+                .register(meterRegistry);
+        if (!entries.isEmpty()) {
+            log.info("Из журнала очереди {} восстановлено {} незаписанных операций", logDir, entries.size());
+        }
+    }
+    
+    /**
+     * Запускает поток записи после полного старта приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWriter() {
+        running = true;
+        writer = new Thread(this::runWriter, "operation-ingest-writer");
+        writer.start();
+    }
+    
+    /**
+     * Останавливает поток записи; незаписанные операции остаются в журнале очереди до следующего запуска
+     */
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(shutdownTimeout.toMillis());
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join();
+            }
+        }
+        ingestLog.close();
+        if (!pending.isEmpty()) {
+            log.info("Очередь записи остановлена, в журнале очереди осталось {} операций", pending.size());
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IngestTicketDto submit(CreateOperationRequest request, String username) {
+        if (!permits.tryAcquire()) {
+            throw new IngestQueueFullException(capacity);
+        }
+        
+        PendingOperation operation;
+        try {
+            // Порядок строк в журнале совпадает с порядком очереди: операции одного картриджа
+            // применяются в том порядке, в котором были приняты
+            appendLock.lock();
+            try {
+                OperationIngestLog.Entry entry = ingestLog.append(new OperationIngestLog.Record(
+                        UUID.randomUUID(), username, LocalDateTime.now(), request));
+                operation = new PendingOperation(entry, false);
+                pending.put(operation.ticketId(), operation);
+                queue.add(operation);
+            } finally {
+                appendLock.unlock();
+            }
+            ingestLog.sync(operation.entry().position());
+        } catch (IOException ex) {
+            permits.release();
+            throw new UncheckedIOException("Не удалось записать операцию в журнал очереди", ex);
+        }
+        
+        return toPendingDto(operation);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IngestTicketDto getTicket(UUID ticketId) {
+        PendingOperation operation = pending.get(ticketId);
+        if (operation != null) {
+            return toPendingDto(operation);
+        }
+        
+        return ticketRepository.findById(ticketId)
+                .map(ticket -> new IngestTicketDto(ticket.getTicketId(), ticket.getStatus(), ticket.getAcceptedAt(),
+                        ticket.getOperationId(), ticket.getMessage(), ticket.getProcessedAt()))
+                .orElseThrow(() -> new IngestTicketNotFoundException(ticketId));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IngestQueueStatusDto getStatus() {
+        PendingOperation head = queue.peekFirst();
+        LocalDateTime oldest = writingSince != null ? writingSince : head != null ? head.record().acceptedAt() : null;
+        return new IngestQueueStatusDto(capacity, pending.size(), oldest, createdCount.get(), rejectedCount.get(),
+                ingestLog.segmentCount(), ingestLog.sizeInBytes(), lastError, lastErrorAt);
+    }
+    
+    /**
+     * Удаляет результаты обработки старше срока хранения
+     */
+    @Scheduled(cron = "${app.operations.ingest.cleanup-cron:0 45 3 * * *}")
+    public void deleteExpiredTickets() {
+        LocalDateTime before = LocalDateTime.now().minus(ticketRetention);
+        Integer deleted = transactionTemplate.execute(status -> ticketRepository.deleteProcessedBefore(before));
+        log.info("Удалено {} результатов очереди записи старше {}", deleted, before);
+    }
+    
+    private void runWriter() {
+        List<PendingOperation> batch = new ArrayList<>(batchSize);
+        long delay = RETRY_INITIAL_DELAY_MS;
+        while (running) {
+            try {
+                PendingOperation first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writingSince = first.record().acceptedAt();
+                writeBatch(batch);
+                delay = RETRY_INITIAL_DELAY_MS;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                // Незавершённые операции пакета возвращаются в начало очереди в прежнем порядке
+                recordError(ex);
+                log.error("Ошибка потока записи очереди операций, повтор через {} мс", delay, ex);
+                requeue(batch);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                delay = Math.min(delay * 2, RETRY_MAX_DELAY_MS);
+            } finally {
+                writingSince = null;
+                batch.clear();
+            }
+        }
+    }
+    
+    private void requeue(List<PendingOperation> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            PendingOperation operation = batch.get(i);
+            if (pending.containsKey(operation.ticketId())) {
+                queue.addFirst(operation);
+            }
+        }
+    }
+    
+    private void writeBatch(List<PendingOperation> batch) throws InterruptedException {
+        List<PendingOperation> operations = skipProcessed(batch);
+        
+        // Пакетная запись выполняется от имени одного пользователя, поэтому пакет делится
+        // на последовательные участки с одинаковым пользователем
+        int start = 0;
+        for (int i = 1; i <= operations.size(); i++) {
+            if (i == operations.size()
+                    || !operations.get(i).record().username().equals(operations.get(start).record().username())) {
+                if (!write(operations.subList(start, i))) {
+                    return;
+                }
+                start = i;
+            }
+        }
+    }
+    
+    /**
+     * Записывает операции одного пользователя. Временные ошибки базы данных повторяются
+     * с нарастающей паузой, пока поток работает; при прочих ошибках участок записывается
+     * по одной операции, чтобы отклонить только ту, которую невозможно сохранить. Если не удаётся
+     * сохранить и отклонение, операция снимается с очереди, а запись пакета продолжается.
+     * 
+     * @return false, если поток остановлен до записи
+     */
+    private boolean write(List<PendingOperation> operations) throws InterruptedException {
+        long delay = RETRY_INITIAL_DELAY_MS;
+        String rejection = null;
+        while (running) {
+            try {
+                String reason = rejection;
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (reason == null) {
+                        persist(operations);
+                    } else {
+                        insertTickets(operations, null, reason);
+                    }
+                });
+                complete(operations);
+                if (reason != null) {
+                    rejectedCount.addAndGet(operations.size());
+                }
+                return true;
+            } catch (TransientDataAccessException | DataAccessResourceFailureException | TransactionException ex) {
+                recordError(ex);
+                log.warn("Не удалось записать {} операций из очереди, повтор через {} мс: {}",
+                        operations.size(), delay, ex.getMessage());
+                Thread.sleep(delay);
+                delay = Math.min(delay * 2, RETRY_MAX_DELAY_MS);
+            } catch (RuntimeException ex) {
+                recordError(ex);
+                if (rejection != null) {
+                    // Иначе операция занимала бы место в очереди до перезапуска и повторялась бы снова
+                    log.error("Не удалось сохранить отклонение операции очереди {}, операция снята с очереди",
+                            operations.get(0).ticketId(), ex);
+                    complete(operations);
+                    rejectedCount.addAndGet(operations.size());
+                    return true;
+                }
+                if (operations.size() > 1) {
+                    for (PendingOperation operation : operations) {
+                        if (!write(List.of(operation))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+                log.warn("Операция очереди {} отклонена: {}", operations.get(0).ticketId(), ex.getMessage());
+                rejection = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+            }
+        }
+        return false;
+    }
+    
+    private void persist(List<PendingOperation> operations) {
+        List<CreateOperationRequest> requests = operations.stream()
+                .map(operation -> operation.record().request())
+                .toList();
+        OperationBatchResultDto result = operationService.createOperations(requests, operations.get(0).record().username());
+        insertTickets(operations, result.getItems(), null);
+        createdCount.addAndGet(result.getCreated());
+        rejectedCount.addAndGet(result.getRejected());
+    }
+    
+    private void insertTickets(List<PendingOperation> operations, List<OperationBatchResultDto.ItemResult> items,
+                               String rejection) {
+        Timestamp processedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            PendingOperation operation = operations.get(i);
+            OperationBatchResultDto.ItemResult item = items != null ? items.get(i) : null;
+            boolean created = item != null && item.isSuccess();
+            String message = item != null ? item.getError() : rejection;
+            rows.add(new Object[]{
+                    operation.ticketId(),
+                    (created ? IngestStatus.CREATED : IngestStatus.REJECTED).name(),
+                    created ? item.getOperationId() : null,
+                    message != null && message.length() > MESSAGE_MAX_LENGTH ? message.substring(0, MESSAGE_MAX_LENGTH) : message,
+                    Timestamp.valueOf(operation.record().acceptedAt()),
+                    processedAt
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_TICKET, rows);
+    }
+    
+    /**
+     * Исключает восстановленные из журнала операции, результат которых уже сохранён:
+     * процесс мог остановиться после фиксации транзакции, но до удаления сегмента
+     */
+    private List<PendingOperation> skipProcessed(List<PendingOperation> batch) {
+        List<UUID> replayed = batch.stream()
+                .filter(PendingOperation::replayed)
+                .map(PendingOperation::ticketId)
+                .toList();
+        if (replayed.isEmpty()) {
+            return batch;
+        }
+        
+        Set<UUID> processed = ticketRepository.findExistingIds(replayed);
+        if (processed.isEmpty()) {
+            return batch;
+        }
+        List<PendingOperation> skipped = batch.stream()
+                .filter(operation -> processed.contains(operation.ticketId()))
+                .toList();
+        complete(skipped);
+        log.info("Пропущено {} операций журнала очереди, уже записанных до перезапуска", skipped.size());
+        return batch.stream()
+                .filter(operation -> !processed.contains(operation.ticketId()))
+                .toList();
+    }
+    
+    private void complete(List<PendingOperation> operations) {
+        for (PendingOperation operation : operations) {
+            pending.remove(operation.ticketId());
+            try {
+                ingestLog.complete(operation.entry().segment());
+            } catch (IOException ex) {
+                log.warn("Не удалось удалить записанный сегмент журнала очереди: {}", ex.getMessage());
+            }
+        }
+        permits.release(operations.size());
+    }
+    
+    private void recordError(Exception ex) {
+        lastError = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        lastErrorAt = LocalDateTime.now();
+    }
+    
+    private IngestTicketDto toPendingDto(PendingOperation operation) {
+        return new IngestTicketDto(operation.ticketId(), IngestStatus.PENDING, operation.record().acceptedAt(),
+                null, null, null);
+    }
+    
+    /**
+     * Операция, ожидающая записи в базу данных
+     */
+    private record PendingOperation(OperationIngestLog.Entry entry, boolean replayed) {
+        
+        UUID ticketId() {
+            return entry.record().ticketId();
+        }
+        
+        OperationIngestLog.Record record() {
+            return entry.record();
+        }
+    }
+}
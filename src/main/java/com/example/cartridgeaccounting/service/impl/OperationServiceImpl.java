@@ -1,84 +1,294 @@
 package com.example.cartridgeaccounting.service.impl;
 
+import com.example.cartridgeaccounting.config.MetricsConfig;
+import com.example.cartridgeaccounting.dto.CartridgeTimelineDto;
 import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.CursorPageDto;
+import com.example.cartridgeaccounting.dto.ExportFormat;
+import com.example.cartridgeaccounting.dto.LocationDto;
+import com.example.cartridgeaccounting.dto.OperationBatchResultDto;
+import com.example.cartridgeaccounting.dto.OperationCursor;
 import com.example.cartridgeaccounting.dto.OperationDto;
+import com.example.cartridgeaccounting.dto.UserDto;
 import com.example.cartridgeaccounting.entity.Cartridge;
 import com.example.cartridgeaccounting.entity.Location;
 import com.example.cartridgeaccounting.entity.Operation;
 import com.example.cartridgeaccounting.entity.User;
 import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
 import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.event.CartridgeStatusChangedEvent;
+import com.example.cartridgeaccounting.event.OperationCreatedEvent;
+import com.example.cartridgeaccounting.event.OperationRecordedEvent;
 import com.example.cartridgeaccounting.exception.CartridgeNotFoundException;
 import com.example.cartridgeaccounting.exception.InvalidOperationException;
 import com.example.cartridgeaccounting.exception.LocationNotFoundException;
-import com.example.cartridgeaccounting.exception.UserNotFoundException;
+import com.example.cartridgeaccounting.logging.LogSampler;
 import com.example.cartridgeaccounting.repository.CartridgeRepository;
 import com.example.cartridgeaccounting.repository.LocationRepository;
 import com.example.cartridgeaccounting.repository.OperationRepository;
 import com.example.cartridgeaccounting.repository.UserRepository;
+import com.example.cartridgeaccounting.service.CartridgeProjectionService;
+import com.example.cartridgeaccounting.service.CartridgeStateMachine;
+import com.example.cartridgeaccounting.service.LocationService;
+import com.example.cartridgeaccounting.service.OperationMetrics;
 import com.example.cartridgeaccounting.service.OperationService;
+import com.example.cartridgeaccounting.service.OperationStatsService;
+import com.example.cartridgeaccounting.service.TableVersions;
+import com.example.cartridgeaccounting.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class OperationServiceImpl implements OperationService {
     
+    private static final int MAX_JOURNAL_PAGE_SIZE = 100;
+    private static final int MAX_TIMELINE_PAGE_SIZE = 1000;
+    private static final int EXPORT_CLEAR_INTERVAL = 500;
+    private static final String CSV_HEADER = "id,operationDate,type,count,cartridgeId,cartridgeModel,cartridgeSerialNumber," +
+            "locationId,locationName,performedById,performedByUsername,notes";
+    
+    // Строка картриджа соединяется со страницей операций, поэтому отдельная проверка существования
+    // картриджа не нужна. Столбцы операций входят в индекс idx_operations_cartridge_timeline,
+    // страница читается из индекса без обращения к таблице
+    private static final String TIMELINE_QUERY = "SELECT c.id, c.model, c.serial_number, c.status, " +
+            "o.id, o.operation_date, o.type, o.count, o.location_id, l.name, o.performed_by, u.username " +
+            "FROM cartridges c LEFT JOIN (" +
+            "SELECT id, operation_date, type, count, location_id, performed_by FROM operations " +
+            "WHERE cartridge_id = ? AND operation_date <= ? AND (operation_date < ? OR id < ?) " +
+            "ORDER BY operation_date DESC, id DESC LIMIT ?) o ON TRUE " +
+            "LEFT JOIN locations l ON l.id = o.location_id " +
+            "LEFT JOIN users u ON u.id = o.performed_by " +
+            "WHERE c.id = ? ORDER BY o.operation_date DESC, o.id DESC";
+    
     private final OperationRepository operationRepository;
     private final CartridgeRepository cartridgeRepository;
     private final LocationRepository locationRepository;
     private final UserRepository userRepository;
+    private final UserService userService;
+    private final LocationService locationService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CartridgeStateMachine stateMachine;
+    private final CartridgeProjectionService projectionService;
+    private final OperationStatsService operationStatsService;
+    private final OperationMetrics operationMetrics;
+    private final JdbcTemplate jdbcTemplate;
+    private final TableVersions tableVersions;
+    
+    // Создание операции — самый частый вызов: в журнал попадает не больше 10 записей в секунду
+    private final LogSampler createdLogSampler = LogSampler.perSecond(10);
+    
+    @Value("${app.operations.batch.skip-locked:false}")
+    private boolean batchSkipLocked;
+    
+    @Value("${app.operations.event-sourced:false}")
+    private boolean eventSourced;
     
     @Override
+    @Retryable(retryFor = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${app.operations.retry.max-attempts:3}",
+            backoff = @Backoff(delayExpression = "${app.operations.retry.delay-ms:20}", multiplier = 2, random = true))
     public OperationDto createOperation(CreateOperationRequest request, String username) {
-        log.info("Creating operation of type: {} for cartridge: {} by user: {}", 
+        log.debug("Creating operation of type: {} for cartridge: {} by user: {}", 
                 request.getType(), request.getCartridgeId(), username);
         
-        Cartridge cartridge = cartridgeRepository.findById(request.getCartridgeId())
+        // В режиме журнала строка картриджа не изменяется, поэтому проверки переходов
+        // по одному картриджу упорядочиваются блокировкой строки, а не версией
+        Cartridge cartridge = (eventSourced
+                ? cartridgeRepository.findByIdForUpdate(request.getCartridgeId())
+                : cartridgeRepository.findById(request.getCartridgeId()))
                 .orElseThrow(() -> new CartridgeNotFoundException(request.getCartridgeId()));
         
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UserNotFoundException(username));
+        // Пользователь и объект берутся из кэша, в операцию подставляются ссылки без загрузки сущностей
+        UserDto user = userService.getUserByUsername(username);
+        LocationDto location = request.getLocationId() != null
+                ? locationService.getLocationById(request.getLocationId())
+                : null;
+        Location locationReference = location != null ? locationRepository.getReferenceById(location.getId()) : null;
         
-        Location location = null;
-        if (request.getLocationId() != null) {
-            location = locationRepository.findById(request.getLocationId())
-                    .orElseThrow(() -> new LocationNotFoundException(request.getLocationId()));
+        CartridgeStatus currentStatus = eventSourced
+                ? projectionService.resolveStatuses(List.of(cartridge)).get(cartridge.getId())
+                : cartridge.getStatus();
+        CartridgeStateMachine.Transition transition = requireTransition(currentStatus, request.getType());
+        
+        Operation operation = buildOperation(request, cartridge, locationReference,
+                userRepository.getReferenceById(user.getId()));
+        
+        Operation savedOperation = operationRepository.save(operation);
+        publishOperationCreated(savedOperation, locationReference);
+        if (eventSourced) {
+            // Журнал — источник истины: состояние картриджа обновит проекция после фиксации транзакции
+            eventPublisher.publishEvent(new OperationRecordedEvent(cartridge.getId()));
+        } else {
+            updateCartridgeStatus(cartridge, transition, locationReference, savedOperation);
+        }
+        if (createdLogSampler.tryAcquire()) {
+            log.info("Operation created with ID: {} ({} similar messages suppressed)",
+                    savedOperation.getId(), createdLogSampler.takeSuppressed());
         }
         
-        validateOperation(cartridge, request.getType(), request.getCount());
+        OperationDto dto = convertOperationFields(savedOperation);
+        if (location != null) {
+            dto.setLocationId(location.getId());
+            dto.setLocationName(location.getName());
+        }
+        dto.setPerformedById(user.getId());
+        dto.setPerformedByUsername(user.getUsername());
+        return dto;
+    }
+    
+    @Override
+    @Retryable(retryFor = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${app.operations.retry.max-attempts:3}",
+            backoff = @Backoff(delayExpression = "${app.operations.retry.delay-ms:20}", multiplier = 2, random = true))
+    public OperationBatchResultDto createOperations(List<CreateOperationRequest> requests, String username) {
+        log.info("Creating batch of {} operations by user: {}", requests.size(), username);
         
-        Operation operation = new Operation();
-        operation.setType(request.getType());
-        operation.setCount(request.getCount());
-        operation.setCartridge(cartridge);
-        operation.setLocation(location);
-        operation.setPerformedBy(user);
-        operation.setNotes(request.getNotes());
+        User user = userRepository.getReferenceById(userService.getUserByUsername(username).getId());
         
-        updateCartridgeStatus(cartridge, request.getType(), location);
+        Set<UUID> cartridgeIds = requests.stream()
+                .map(CreateOperationRequest::getCartridgeId)
+                .collect(Collectors.toSet());
+        Set<UUID> locationIds = requests.stream()
+                .map(CreateOperationRequest::getLocationId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
         
-        Operation savedOperation = operationRepository.save(operation);
-        log.info("Operation created with ID: {}", savedOperation.getId());
+        // В режиме SKIP LOCKED картриджи, которые сейчас меняет другая транзакция, не ждут освобождения,
+        // а отклоняются в отчёте, чтобы клиент повторил их позже
+        Map<UUID, Cartridge> cartridges = (batchSkipLocked
+                ? cartridgeRepository.findAllByIdForUpdateSkipLocked(cartridgeIds)
+                : eventSourced
+                        ? cartridgeRepository.findAllByIdForUpdate(cartridgeIds)
+                        : cartridgeRepository.findAllById(cartridgeIds)).stream()
+                .collect(Collectors.toMap(Cartridge::getId, Function.identity()));
+        Map<UUID, CartridgeStatus> statuses = eventSourced ? projectionService.resolveStatuses(cartridges.values()) : null;
+        Set<UUID> lockedCartridgeIds = batchSkipLocked && cartridges.size() < cartridgeIds.size()
+                ? cartridgeRepository.findExistingIds(cartridgeIds.stream()
+                        .filter(id -> !cartridges.containsKey(id))
+                        .collect(Collectors.toSet()))
+                : Set.of();
+        Map<UUID, Location> locations = locationIds.isEmpty() ? Map.of() : locationRepository.findAllById(locationIds).stream()
+                .collect(Collectors.toMap(Location::getId, Function.identity()));
+        
+        // Операции применяются по порядку: один картридж может встречаться в пакете несколько раз,
+        // и каждая следующая операция проверяется по уже изменённому статусу
+        OperationBatchResultDto.ItemResult[] items = new OperationBatchResultDto.ItemResult[requests.size()];
+        Map<Integer, Operation> accepted = new LinkedHashMap<>();
+        Map<UUID, Cartridge> touchedCartridges = new LinkedHashMap<>();
+        LocalDateTime lastOperationDate = LocalDateTime.MIN;
+        
+        for (int i = 0; i < requests.size(); i++) {
+            CreateOperationRequest request = requests.get(i);
+            Cartridge cartridge = cartridges.get(request.getCartridgeId());
+            if (cartridge == null) {
+                items[i] = OperationBatchResultDto.ItemResult.rejected(i, request.getCartridgeId(),
+                        lockedCartridgeIds.contains(request.getCartridgeId())
+                                ? "Картридж изменяется параллельной операцией, повторите позже"
+                                : new CartridgeNotFoundException(request.getCartridgeId()).getMessage());
+                continue;
+            }
+            
+            Location location = null;
+            if (request.getLocationId() != null) {
+                location = locations.get(request.getLocationId());
+                if (location == null) {
+                    items[i] = OperationBatchResultDto.ItemResult.rejected(i, request.getCartridgeId(),
+                            new LocationNotFoundException(request.getLocationId()).getMessage());
+                    continue;
+                }
+            }
+            
+            CartridgeStateMachine.Transition transition;
+            try {
+                transition = requireTransition(
+                        eventSourced ? statuses.get(cartridge.getId()) : cartridge.getStatus(), request.getType());
+            } catch (InvalidOperationException ex) {
+                items[i] = OperationBatchResultDto.ItemResult.rejected(i, request.getCartridgeId(), ex.getMessage());
+                continue;
+            }
+            
+            // Время операций пакета строго возрастает, чтобы порядок журнала совпадал с порядком применения
+            Operation operation = buildOperation(request, cartridge, location, user);
+            lastOperationDate = nextOperationDate(lastOperationDate);
+            operation.setOperationDate(lastOperationDate);
+            accepted.put(i, operation);
+            if (eventSourced) {
+                statuses.put(cartridge.getId(), transition.targetStatus());
+            } else {
+                applyCartridgeStatus(cartridge, transition, location);
+            }
+            touchedCartridges.put(cartridge.getId(), cartridge);
+        }
+        
+        // Вставки и обновления уходят в БД пакетами (hibernate.jdbc.batch_size) при flush в конце транзакции
+        operationRepository.saveAll(accepted.values());
+        accepted.values().forEach(operation -> publishOperationCreated(operation, operation.getLocation()));
+        if (eventSourced) {
+            touchedCartridges.keySet().forEach(id -> eventPublisher.publishEvent(new OperationRecordedEvent(id)));
+        } else {
+            accepted.values().forEach(operation -> markProjected(operation.getCartridge(), operation));
+            cartridgeRepository.saveAll(touchedCartridges.values());
+            if (!touchedCartridges.isEmpty()) {
+                tableVersions.bump(TableVersions.Table.CARTRIDGES);
+            }
+        }
+        
+        accepted.forEach((index, operation) -> items[index] = OperationBatchResultDto.ItemResult.created(
+                index, operation.getCartridge().getId(), operation.getId()));
         
-        return convertToDto(savedOperation);
+        int created = accepted.size();
+        log.info("Batch processed: {} created, {} rejected", created, requests.size() - created);
+        
+        return new OperationBatchResultDto(requests.size(), created, requests.size() - created, List.of(items));
     }
     
     @Override
     @Transactional(readOnly = true)
     public OperationDto getOperationById(UUID id) {
-        log.info("Getting operation by ID: {}", id);
+        log.debug("Getting operation by ID: {}", id);
         Operation operation = operationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Operation not found with ID: " + id));
         return convertToDto(operation);
@@ -87,112 +297,329 @@ public class OperationServiceImpl implements OperationService {
     @Override
     @Transactional(readOnly = true)
     public Page<OperationDto> getAllOperations(Pageable pageable) {
-        log.info("Getting all operations with pagination");
-        return operationRepository.findAll(pageable).map(this::convertToDto);
+        log.debug("Getting all operations with pagination");
+        return operationRepository.findAllWithDetails(pageable).map(this::convertToDto);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Page<OperationDto> getOperationsByCartridge(UUID cartridgeId, Pageable pageable) {
-        log.info("Getting operations by cartridge ID: {}", cartridgeId);
-        Cartridge cartridge = cartridgeRepository.findById(cartridgeId)
-                .orElseThrow(() -> new CartridgeNotFoundException(cartridgeId));
+        log.debug("Getting operations by cartridge ID: {}", cartridgeId);
+        Page<Operation> operations = operationRepository.findByCartridgeOrderByDateDesc(cartridgeId, pageable);
+        // Существование картриджа проверяется только для пустой страницы, чтобы не делать лишний запрос
+        if (operations.isEmpty() && !cartridgeRepository.existsById(cartridgeId)) {
+            throw new CartridgeNotFoundException(cartridgeId);
+        }
         
-        return operationRepository.findByCartridgeOrderByDateDesc(cartridge, pageable)
-                .map(this::convertToDto);
+        return operations.map(this::convertToDto);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Page<OperationDto> getOperationsByLocation(UUID locationId, Pageable pageable) {
-        log.info("Getting operations by location ID: {}", locationId);
-        Location location = locationRepository.findById(locationId)
-                .orElseThrow(() -> new LocationNotFoundException(locationId));
+        log.debug("Getting operations by location ID: {}", locationId);
+        Page<Operation> operations = operationRepository.findByLocationOrderByDateDesc(locationId, pageable);
+        if (operations.isEmpty() && !locationRepository.existsById(locationId)) {
+            throw new LocationNotFoundException(locationId);
+        }
         
-        return operationRepository.findByLocationOrderByDateDesc(location, pageable)
-                .map(this::convertToDto);
+        return operations.map(this::convertToDto);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Page<OperationDto> getOperationsByDateRange(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        log.info("Getting operations by date range: {} to {}", startDate, endDate);
+        log.debug("Getting operations by date range: {} to {}", startDate, endDate);
         return operationRepository.findByDateRangeOrderByDateDesc(startDate, endDate, pageable)
                 .map(this::convertToDto);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<OperationDto> getOperationsByType(OperationType type) {
-        log.info("Getting operations by type: {}", type);
-        return operationRepository.findByType(type).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public CursorPageDto<OperationDto> getOperationsJournal(String after, int size) {
+        log.debug("Getting operations journal after cursor: {}", after);
+        OperationCursor cursor = OperationCursor.decode(after);
+        int pageSize = journalPageSize(size);
+        return toCursorPage(operationRepository.findJournalAfter(
+                cursor.operationDate(), cursor.id(), PageRequest.of(0, pageSize + 1)), pageSize);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public long getOperationCountByTypeAndDateRange(OperationType type, LocalDateTime startDate, LocalDateTime endDate) {
-        return operationRepository.countByTypeAndDateRange(type, startDate, endDate);
+    public CursorPageDto<OperationDto> getOperationsJournalByCartridge(UUID cartridgeId, String after, int size) {
+        log.debug("Getting operations journal by cartridge ID: {} after cursor: {}", cartridgeId, after);
+        OperationCursor cursor = OperationCursor.decode(after);
+        int pageSize = journalPageSize(size);
+        List<Operation> operations = operationRepository.findJournalByCartridgeAfter(
+                cartridgeId, cursor.operationDate(), cursor.id(), PageRequest.of(0, pageSize + 1));
+        if (operations.isEmpty() && !cartridgeRepository.existsById(cartridgeId)) {
+            throw new CartridgeNotFoundException(cartridgeId);
+        }
+        return toCursorPage(operations, pageSize);
     }
     
-    private void validateOperation(Cartridge cartridge, OperationType type, Integer count) {
-        switch (type) {
-            case RECEIPT:
-                if (cartridge.getStatus() != CartridgeStatus.IN_STOCK) {
-                    throw new InvalidOperationException("RECEIPT", "Картридж уже не на складе");
-                }
-                break;
-            case ISSUE:
-                if (cartridge.getStatus() != CartridgeStatus.IN_STOCK) {
-                    throw new InvalidOperationException("ISSUE", "Картридж не на складе");
-                }
-                break;
-            case RETURN:
-                if (cartridge.getStatus() != CartridgeStatus.IN_USE) {
-                    throw new InvalidOperationException("RETURN", "Картридж не в использовании");
-                }
-                break;
-            case REFILL:
-                if (cartridge.getStatus() != CartridgeStatus.IN_USE) {
-                    throw new InvalidOperationException("REFILL", "Картридж не в использовании");
+    @Override
+    @Transactional(readOnly = true)
+    public CartridgeTimelineDto getCartridgeTimeline(UUID cartridgeId, String after, int size) {
+        log.debug("Getting timeline of cartridge ID: {} after cursor: {}", cartridgeId, after);
+        OperationCursor cursor = OperationCursor.decode(after);
+        int pageSize = Math.max(1, Math.min(size, MAX_TIMELINE_PAGE_SIZE));
+        
+        CartridgeTimelineDto timeline = new CartridgeTimelineDto();
+        CartridgeTimelineDto.Columns columns = timeline.getOperations();
+        Map<UUID, Integer> locationIndex = new HashMap<>();
+        Map<UUID, Integer> userIndex = new HashMap<>();
+        jdbcTemplate.query(TIMELINE_QUERY, (RowCallbackHandler) rs -> {
+            if (timeline.getCartridgeId() == null) {
+                timeline.setCartridgeId(rs.getObject(1, UUID.class));
+                timeline.setModel(rs.getString(2));
+                timeline.setSerialNumber(rs.getString(3));
+                timeline.setStatus(CartridgeStatus.valueOf(rs.getString(4)));
+            }
+            UUID operationId = rs.getObject(5, UUID.class);
+            if (operationId == null) {
+                return;
+            }
+            // Лишняя строка сверх размера страницы означает наличие следующей страницы
+            if (columns.getId().size() == pageSize) {
+                timeline.setHasNext(true);
+                return;
+            }
+            columns.getId().add(operationId);
+            columns.getOperationDate().add(rs.getObject(6, LocalDateTime.class));
+            columns.getType().add(OperationType.valueOf(rs.getString(7)));
+            columns.getCount().add(rs.getInt(8));
+            columns.getLocation().add(referenceIndex(timeline.getLocations(), locationIndex,
+                    rs.getObject(9, UUID.class), rs.getString(10)));
+            columns.getPerformedBy().add(referenceIndex(timeline.getUsers(), userIndex,
+                    rs.getObject(11, UUID.class), rs.getString(12)));
+        }, cartridgeId, cursor.operationDate(), cursor.operationDate(), cursor.id(), pageSize + 1, cartridgeId);
+        
+        if (timeline.getCartridgeId() == null) {
+            throw new CartridgeNotFoundException(cartridgeId);
+        }
+        if (timeline.isHasNext()) {
+            int last = pageSize - 1;
+            timeline.setNextCursor(new OperationCursor(
+                    columns.getOperationDate().get(last), columns.getId().get(last)).encode());
+        }
+        return timeline;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<OperationDto> getOperationsJournalByLocation(UUID locationId, String after, int size) {
+        log.debug("Getting operations journal by location ID: {} after cursor: {}", locationId, after);
+        OperationCursor cursor = OperationCursor.decode(after);
+        int pageSize = journalPageSize(size);
+        List<Operation> operations = operationRepository.findJournalByLocationAfter(
+                locationId, cursor.operationDate(), cursor.id(), PageRequest.of(0, pageSize + 1));
+        if (operations.isEmpty() && !locationRepository.existsById(locationId)) {
+            throw new LocationNotFoundException(locationId);
+        }
+        return toCursorPage(operations, pageSize);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<OperationDto> getOperationsJournalByDateRange(LocalDateTime startDate, LocalDateTime endDate, 
+                                                                      String after, int size) {
+        log.debug("Getting operations journal by date range: {} to {} after cursor: {}", startDate, endDate, after);
+        OperationCursor cursor = OperationCursor.decode(after);
+        int pageSize = journalPageSize(size);
+        return toCursorPage(operationRepository.findJournalByDateRangeAfter(
+                startDate, endDate, cursor.operationDate(), cursor.id(), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOperations(LocalDateTime startDate, LocalDateTime endDate, ExportFormat format, 
+                                 OutputStream output) throws IOException {
+        log.info("Exporting operations as {} for date range: {} to {}", format, startDate, endDate);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        
+        long exported = 0;
+        try (Stream<Operation> operations = operationRepository.streamByDateRange(startDate, endDate)) {
+            for (Operation operation : (Iterable<Operation>) operations::iterator) {
+                OperationDto dto = convertToDto(operation);
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, dto);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
                 }
-                break;
-            case DISPOSAL:
-                if (cartridge.getStatus() == CartridgeStatus.DISPOSED) {
-                    throw new InvalidOperationException("DISPOSAL", "Картридж уже списан");
+                // Очищаем контекст персистентности, чтобы память не росла вместе с объёмом выгрузки
+                if (++exported % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                    writer.flush();
                 }
-                break;
-        }
-    }
-    
-    private void updateCartridgeStatus(Cartridge cartridge, OperationType type, Location location) {
-        switch (type) {
-            case RECEIPT:
-                cartridge.setStatus(CartridgeStatus.IN_STOCK);
-                cartridge.setCurrentLocation(location);
-                break;
-            case ISSUE:
-                cartridge.setStatus(CartridgeStatus.IN_USE);
-                cartridge.setCurrentLocation(location);
-                break;
-            case RETURN:
-                cartridge.setStatus(CartridgeStatus.IN_STOCK);
-                cartridge.setCurrentLocation(location);
-                break;
-            case REFILL:
-                cartridge.setStatus(CartridgeStatus.REFILLING);
-                cartridge.setCurrentLocation(null);
-                break;
-            case DISPOSAL:
-                cartridge.setStatus(CartridgeStatus.DISPOSED);
-                cartridge.setCurrentLocation(null);
-                break;
+            }
+        }
+        writer.flush();
+        log.info("Exported {} operations", exported);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<OperationDto> getOperationsByType(OperationType type, String after, int size) {
+        log.debug("Getting operations by type: {} after cursor: {}", type, after);
+        OperationCursor cursor = OperationCursor.decode(after);
+        int pageSize = journalPageSize(size);
+        return toCursorPage(operationRepository.findJournalByTypeAfter(
+                type, cursor.operationDate(), cursor.id(), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public long getOperationCountByTypeAndDateRange(OperationType type, LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDate firstFullDay = startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? startDate.toLocalDate()
+                : startDate.toLocalDate().plusDays(1);
+        LocalDate lastFullDay = endDate.toLocalDate().minusDays(1);
+        if (firstFullDay.isAfter(lastFullDay)) {
+            return operationRepository.countByTypeAndDateRange(type, startDate, endDate);
         }
+        // Полные дни диапазона берутся из суточной статистики, журнал читается только для неполных крайних дней
+        return operationRepository.countByTypeInInterval(type, startDate, firstFullDay.atStartOfDay())
+                + operationStatsService.getOperationCount(type, firstFullDay, lastFullDay)
+                + operationRepository.countByTypeAndDateRange(type, lastFullDay.plusDays(1).atStartOfDay(), endDate);
+    }
+    
+    private Operation buildOperation(CreateOperationRequest request, Cartridge cartridge, Location location, User user) {
+        Operation operation = new Operation();
+        operation.setType(request.getType());
+        operation.setCount(request.getCount());
+        operation.setCartridge(cartridge);
+        operation.setLocation(location);
+        operation.setPerformedBy(user);
+        operation.setNotes(request.getNotes());
+        return operation;
+    }
+    
+    private CartridgeStateMachine.Transition requireTransition(CartridgeStatus status, OperationType type) {
+        try {
+            return stateMachine.requireTransition(status, type);
+        } catch (InvalidOperationException ex) {
+            operationMetrics.recordRejected(type, status);
+            throw ex;
+        }
+    }
+    
+    private void publishOperationCreated(Operation operation, Location location) {
+        eventPublisher.publishEvent(new OperationCreatedEvent(operation.getId(), operation.getCartridge().getId(),
+                operation.getCartridge().getModel(), operation.getCartridge().getResourcePages(), operation.getType(),
+                locationId(location), operation.getCount(), operation.getOperationDate()));
+    }
+    
+    private void updateCartridgeStatus(Cartridge cartridge, CartridgeStateMachine.Transition transition, Location location,
+                                       Operation operation) {
+        applyCartridgeStatus(cartridge, transition, location);
+        markProjected(cartridge, operation);
         cartridgeRepository.save(cartridge);
+        tableVersions.bump(TableVersions.Table.CARTRIDGES);
+    }
+    
+    // Состояние картриджа учитывает журнал по эту операцию включительно
+    private void markProjected(Cartridge cartridge, Operation operation) {
+        cartridge.setStateOperationDate(operation.getOperationDate());
+        cartridge.setStateOperationId(operation.getId());
+    }
+    
+    private LocalDateTime nextOperationDate(LocalDateTime previous) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        return now.isAfter(previous) ? now : previous.plus(1, ChronoUnit.MICROS);
+    }
+    
+    private void applyCartridgeStatus(Cartridge cartridge, CartridgeStateMachine.Transition transition, Location location) {
+        CartridgeStatus previousStatus = cartridge.getStatus();
+        UUID previousLocationId = locationId(cartridge.getCurrentLocation());
+        cartridge.setStatus(transition.targetStatus());
+        cartridge.setCurrentLocation(transition.locationRule() == CartridgeStateMachine.LocationRule.FROM_OPERATION
+                ? location
+                : null);
+        eventPublisher.publishEvent(new CartridgeStatusChangedEvent(cartridge.getId(),
+                previousStatus, previousLocationId, cartridge.getStatus(), locationId(cartridge.getCurrentLocation())));
+    }
+    
+    private UUID locationId(Location location) {
+        return location != null ? location.getId() : null;
+    }
+    
+    // Номер записи в справочнике ленты; запись добавляется при первом упоминании
+    private Integer referenceIndex(List<CartridgeTimelineDto.Reference> references, Map<UUID, Integer> index,
+                                   UUID id, String name) {
+        if (id == null) {
+            return null;
+        }
+        return index.computeIfAbsent(id, key -> {
+            references.add(new CartridgeTimelineDto.Reference(key, name));
+            return references.size() - 1;
+        });
+    }
+    
+    private int journalPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_JOURNAL_PAGE_SIZE));
+    }
+    
+    // Запрашивается на одну запись больше размера страницы: лишняя запись означает наличие следующей страницы
+    private CursorPageDto<OperationDto> toCursorPage(List<Operation> operations, int pageSize) {
+        boolean hasNext = operations.size() > pageSize;
+        List<Operation> page = hasNext ? operations.subList(0, pageSize) : operations;
+        String nextCursor = null;
+        if (hasNext) {
+            Operation last = page.get(page.size() - 1);
+            nextCursor = new OperationCursor(last.getOperationDate(), last.getId()).encode();
+        }
+        List<OperationDto> content = page.stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        return new CursorPageDto<>(content, nextCursor, hasNext);
+    }
+    
+    private void writeCsvRow(Writer writer, OperationDto dto) throws IOException {
+        Object[] values = {
+                dto.getId(), dto.getOperationDate(), dto.getType(), dto.getCount(),
+                dto.getCartridgeId(), dto.getCartridgeModel(), dto.getCartridgeSerialNumber(),
+                dto.getLocationId(), dto.getLocationName(),
+                dto.getPerformedById(), dto.getPerformedByUsername(), dto.getNotes()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(escapeCsv(values[i].toString()));
+            }
+        }
+        writer.write('\n');
+    }
+    
+    private String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
     }
     
     private OperationDto convertToDto(Operation operation) {
+        OperationDto dto = convertOperationFields(operation);
+        
+        if (operation.getLocation() != null) {
+            dto.setLocationId(operation.getLocation().getId());
+            dto.setLocationName(operation.getLocation().getName());
+        }
+        
+        dto.setPerformedById(operation.getPerformedBy().getId());
+        dto.setPerformedByUsername(operation.getPerformedBy().getUsername());
+        
+        return dto;
+    }
+    
+    private OperationDto convertOperationFields(Operation operation) {
         OperationDto dto = new OperationDto();
         dto.setId(operation.getId());
         dto.setType(operation.getType());
@@ -204,14 +631,6 @@ public class OperationServiceImpl implements OperationService {
         dto.setCartridgeModel(operation.getCartridge().getModel());
         dto.setCartridgeSerialNumber(operation.getCartridge().getSerialNumber());
         
-        if (operation.getLocation() != null) {
-            dto.setLocationId(operation.getLocation().getId());
-            dto.setLocationName(operation.getLocation().getName());
-        }
-        
-        dto.setPerformedById(operation.getPerformedBy().getId());
-        dto.setPerformedByUsername(operation.getPerformedBy().getUsername());
-        
         return dto;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,317 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.config.MetricsConfig;
+import com.example.cartridgeaccounting.dto.OperationStatsDto;
+import com.example.cartridgeaccounting.dto.OperationStatsRowDto;
+import com.example.cartridgeaccounting.dto.StatsBackfillResultDto;
+import com.example.cartridgeaccounting.dto.StatsPeriod;
+import com.example.cartridgeaccounting.entity.Location;
+import com.example.cartridgeaccounting.entity.OperationDailyStat;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.event.OperationCreatedEvent;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.repository.OperationDailyStatRepository;
+import com.example.cartridgeaccounting.repository.OperationRepository;
+import com.example.cartridgeaccounting.service.OperationStatsService;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация сервиса суточной статистики операций.
+ * Приращения от операций одной транзакции суммируются в памяти и записываются одним пакетом
+ * upsert перед фиксацией: строки статистики блокируются только на время фиксации и всегда
+ * в одном порядке, поэтому параллельные транзакции не взаимоблокируются, а статистика
+ * согласована с журналом. Запросы статистики группируют суточные строки в SQL.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class OperationStatsServiceImpl implements OperationStatsService {
+    
+    private static final String UPSERT_POSTGRESQL = "INSERT INTO operation_daily_stats " +
+            "(stat_date, type, location_id, operation_count, cartridge_count) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (stat_date, type, location_id) DO UPDATE SET " +
+            "operation_count = operation_daily_stats.operation_count + EXCLUDED.operation_count, " +
+            "cartridge_count = operation_daily_stats.cartridge_count + EXCLUDED.cartridge_count";
+    
+    private static final String UPSERT_MERGE = "MERGE INTO operation_daily_stats s USING (VALUES (" +
+            "CAST(? AS DATE), CAST(? AS VARCHAR(20)), CAST(? AS UUID), CAST(? AS BIGINT), CAST(? AS BIGINT))) " +
+            "AS d(stat_date, type, location_id, operation_count, cartridge_count) " +
+            "ON s.stat_date = d.stat_date AND s.type = d.type AND s.location_id = d.location_id " +
+            "WHEN MATCHED THEN UPDATE SET operation_count = s.operation_count + d.operation_count, " +
+            "cartridge_count = s.cartridge_count + d.cartridge_count " +
+            "WHEN NOT MATCHED THEN INSERT (stat_date, type, location_id, operation_count, cartridge_count) " +
+            "VALUES (d.stat_date, d.type, d.location_id, d.operation_count, d.cartridge_count)";
+    
+    private static final String BACKFILL_DELETE = "DELETE FROM operation_daily_stats WHERE stat_date BETWEEN ? AND ?";
+    
+    private static final String BACKFILL_INSERT = "INSERT INTO operation_daily_stats " +
+            "(stat_date, type, location_id, operation_count, cartridge_count) " +
+            "SELECT stat_date, type, location_id, COUNT(*), SUM(count) FROM (" +
+            "SELECT CAST(operation_date AS DATE) AS stat_date, type, COALESCE(location_id, ?) AS location_id, count " +
+            "FROM operations WHERE operation_date >= ? AND operation_date < ?) journal " +
+            "GROUP BY stat_date, type, location_id";
+    
+    /**
+     * Порядок записи строк статистики, общий для всех транзакций
+     */
+    private static final Comparator<StatKey> KEY_ORDER = Comparator.comparing(StatKey::statDate)
+            .thenComparing(StatKey::type)
+            .thenComparing(StatKey::locationId);
+    
+    private final OperationDailyStatRepository statRepository;
+    private final OperationRepository operationRepository;
+    private final LocationRepository locationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    
+    private volatile Boolean postgreSql;
+    
+    /**
+     * Добавляет операцию к приращениям статистики текущей транзакции.
+     * Приращения записываются перед фиксацией и отбрасываются вместе с откатом транзакции.
+     * 
+     * @param event событие создания операции
+     */
+    @EventListener
+    public void onOperationCreated(OperationCreatedEvent event) {
+        StatKey key = new StatKey(event.operationDate().toLocalDate(), event.type(),
+                event.locationId() != null ? event.locationId() : OperationDailyStat.NO_LOCATION);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<StatKey, long[]> deltas = new TreeMap<>(KEY_ORDER);
+            deltas.put(key, new long[] {1, event.count()});
+            upsert(deltas);
+            return;
+        }
+        
+        @SuppressWarnings("unchecked")
+        Map<StatKey, long[]> deltas = (Map<StatKey, long[]>) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            Map<StatKey, long[]> transactionDeltas = new TreeMap<>(KEY_ORDER);
+            TransactionSynchronizationManager.bindResource(this, transactionDeltas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    upsert(transactionDeltas);
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OperationStatsServiceImpl.this);
+                }
+            });
+            deltas = transactionDeltas;
+        }
+        long[] delta = deltas.computeIfAbsent(key, k -> new long[2]);
+        delta[0]++;
+        delta[1] += event.count();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public OperationStatsDto getStats(LocalDate startDate, LocalDate endDate, OperationType type, UUID locationId,
+                                      StatsPeriod period, boolean byType, boolean byLocation) {
+        // Состав группировки выбирается из фиксированного набора выражений, значения передаются параметрами
+        List<String> groupBy = new ArrayList<>(3);
+        if (period == StatsPeriod.DAY) {
+            groupBy.add("stat_date");
+        } else if (period == StatsPeriod.MONTH) {
+            groupBy.add("CAST(DATE_TRUNC('MONTH', stat_date) AS DATE)");
+        }
+        if (byType) {
+            groupBy.add("type");
+        }
+        if (byLocation) {
+            groupBy.add("location_id");
+        }
+        
+        StringBuilder sql = new StringBuilder("SELECT ");
+        groupBy.forEach(column -> sql.append(column).append(", "));
+        sql.append("SUM(operation_count), SUM(cartridge_count) FROM operation_daily_stats WHERE stat_date BETWEEN ? AND ?");
+        List<Object> args = new ArrayList<>(List.of(startDate, endDate));
+        if (type != null) {
+            sql.append(" AND type = ?");
+            args.add(type.name());
+        }
+        if (locationId != null) {
+            sql.append(" AND location_id = ?");
+            args.add(locationId);
+        }
+        if (!groupBy.isEmpty()) {
+            String columns = String.join(", ", groupBy);
+            sql.append(" GROUP BY ").append(columns).append(" ORDER BY ").append(columns);
+        }
+        
+        List<OperationStatsRowDto> rows = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            int column = 1;
+            OperationStatsRowDto row = new OperationStatsRowDto();
+            if (period != StatsPeriod.NONE) {
+                row.setPeriod(rs.getObject(column++, LocalDate.class));
+            }
+            if (byType) {
+                row.setType(OperationType.valueOf(rs.getString(column++)));
+            }
+            if (byLocation) {
+                UUID rowLocationId = rs.getObject(column++, UUID.class);
+                row.setLocationId(OperationDailyStat.NO_LOCATION.equals(rowLocationId) ? null : rowLocationId);
+            }
+            row.setOperationCount(rs.getLong(column++));
+            row.setCartridgeCount(rs.getLong(column));
+            return row;
+        }, args.toArray());
+        
+        // Итог без группировки по пустому диапазону — одна строка с нулями, она не нужна
+        if (groupBy.isEmpty()) {
+            rows.removeIf(row -> row.getOperationCount() == 0);
+        }
+        if (byLocation) {
+            fillLocationNames(rows);
+        }
+        
+        long totalOperations = rows.stream().mapToLong(OperationStatsRowDto::getOperationCount).sum();
+        long totalCartridges = rows.stream().mapToLong(OperationStatsRowDto::getCartridgeCount).sum();
+        return new OperationStatsDto(startDate, endDate, period, totalOperations, totalCartridges, rows);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long getOperationCount(OperationType type, LocalDate startDate, LocalDate endDate) {
+        return statRepository.sumOperationCount(type, startDate, endDate);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StatsBackfillResultDto backfill(LocalDate startDate, LocalDate endDate) {
+        long started = System.nanoTime();
+        LocalDate from = startDate;
+        LocalDate to = endDate;
+        if (from == null) {
+            LocalDateTime first = operationRepository.findFirstOperationDate();
+            from = first != null ? first.toLocalDate() : null;
+        }
+        if (to == null) {
+            LocalDateTime last = operationRepository.findLastOperationDate();
+            to = last != null ? last.toLocalDate() : null;
+        }
+        if (from == null || to == null || from.isAfter(to)) {
+            return new StatsBackfillResultDto(from, to, 0, 0, 0);
+        }
+        
+        // Каждый месяц пересчитывается в своей транзакции: удаление и вставка видны другим
+        // транзакциям только вместе, а операции, записанные во время пересчёта, не теряются —
+        // их upsert ожидает фиксации пересчёта и прибавляется к пересчитанным строкам
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int months = 0;
+        long rows = 0;
+        for (LocalDate chunkStart = from; !chunkStart.isAfter(to); ) {
+            LocalDate monthEnd = YearMonth.from(chunkStart).atEndOfMonth();
+            LocalDate chunkEnd = monthEnd.isBefore(to) ? monthEnd : to;
+            LocalDate chunkFrom = chunkStart;
+            Integer inserted = transactionTemplate.execute(status -> {
+                jdbcTemplate.update(BACKFILL_DELETE, chunkFrom, chunkEnd);
+                return jdbcTemplate.update(BACKFILL_INSERT, OperationDailyStat.NO_LOCATION,
+                        chunkFrom.atStartOfDay(), chunkEnd.plusDays(1).atStartOfDay());
+            });
+            rows += inserted != null ? inserted : 0;
+            months++;
+            chunkStart = chunkEnd.plusDays(1);
+        }
+        
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Статистика операций пересчитана за {} - {}: {} месяцев, {} строк за {} мс",
+                from, to, months, rows, durationMillis);
+        return new StatsBackfillResultDto(from, to, months, rows, durationMillis);
+    }
+    
+    private void upsert(Map<StatKey, long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> batch.add(new Object[] {
+                key.statDate(), key.type().name(), key.locationId(), delta[0], delta[1]}));
+        if (isPostgreSql()) {
+            jdbcTemplate.batchUpdate(UPSERT_POSTGRESQL, batch);
+            return;
+        }
+        // MERGE не защищён от одновременной вставки одной строки: после конфликта строка уже есть,
+        // и повторный MERGE прибавляет приращение к ней
+        for (Object[] args : batch) {
+            try {
+                jdbcTemplate.update(UPSERT_MERGE, args);
+            } catch (DuplicateKeyException ex) {
+                jdbcTemplate.update(UPSERT_MERGE, args);
+            }
+        }
+    }
+    
+    // INSERT ... ON CONFLICT атомарно вставляет или обновляет строку; на остальных базах
+    // (H2 в тестах и бенчмарках) используется стандартный MERGE
+    private boolean isPostgreSql() {
+        if (postgreSql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgreSql = "PostgreSQL".equals(product);
+        }
+        return postgreSql;
+    }
+    
+    private void fillLocationNames(List<OperationStatsRowDto> rows) {
+        Set<UUID> locationIds = rows.stream()
+                .map(OperationStatsRowDto::getLocationId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (locationIds.isEmpty()) {
+            return;
+        }
+        Map<UUID, String> names = locationRepository.findAllById(locationIds).stream()
+                .collect(Collectors.toMap(Location::getId, Location::getName, (first, second) -> first));
+        rows.forEach(row -> row.setLocationName(row.getLocationId() != null ? names.get(row.getLocationId()) : null));
+    }
+    
+    /**
+     * Ключ строки суточной статистики
+     * 
+     * @param statDate день
+     * @param type тип операций
+     * @param locationId объект или {@link OperationDailyStat#NO_LOCATION}
+     */
+    private record StatKey(LocalDate statDate, OperationType type, UUID locationId) {
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.config.MetricsConfig;
+import com.example.cartridgeaccounting.dto.LocationStockDto;
+import com.example.cartridgeaccounting.dto.StockSummaryDto;
+import com.example.cartridgeaccounting.entity.Location;
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.event.CartridgeStatusChangedEvent;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.service.StockSummaryService;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация сервиса сводки остатков картриджей.
+ * Счётчики "объект × статус" строятся одним GROUP BY при старте, затем изменяются
+ * на ±1 по событиям {@link CartridgeStatusChangedEvent} после фиксации транзакций
+ * и периодически пересчитываются, чтобы устранить возможное расхождение
+ * (например, из-за изменений, сделанных другим экземпляром приложения).
+ * События, обработанные во время пересчёта, сверяются с его снимком базы данных,
+ * поэтому изменение не учитывается дважды.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class StockSummaryServiceImpl implements StockSummaryService {
+    
+    private final CartridgeRepository cartridgeRepository;
+    private final LocationRepository locationRepository;
+    private final PlatformTransactionManager transactionManager;
+    
+    /**
+     * Блокировка на запись берётся только при подмене счётчиков после пересчёта,
+     * обработчики событий работают параллельно под блокировкой на чтение
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * Пересчёты (при запуске, по расписанию, после восстановления состояния) выполняются по одному
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    
+    private volatile ConcurrentMap<StockKey, LongAdder> counters = new ConcurrentHashMap<>();
+    
+    /**
+     * События, обработанные во время пересчёта (null вне пересчёта)
+     */
+    private volatile Queue<CartridgeStatusChangedEvent> pendingEvents;
+    private volatile LocalDateTime rebuiltAt;
+    
+    /**
+     * Строит счётчики при запуске приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    /**
+     * Периодически сверяет счётчики с базой данных
+     */
+    @Scheduled(fixedDelayString = "${app.stock-summary.resync-interval:PT15M}",
+               initialDelayString = "${app.stock-summary.resync-interval:PT15M}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            Queue<CartridgeStatusChangedEvent> pending = new ConcurrentLinkedQueue<>();
+            lock.writeLock().lock();
+            try {
+                pendingEvents = pending;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+                transactionTemplate.setReadOnly(true);
+                transactionTemplate.executeWithoutResult(status -> swap(pending));
+            } finally {
+                pendingEvents = null;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+        log.debug("Сводка остатков пересчитана: {} ячеек", counters.size());
+    }
+    
+    /**
+     * Применяет изменение статуса картриджа к счётчикам после фиксации транзакции.
+     * Во время пересчёта событие также откладывается для сверки со снимком пересчёта
+     * 
+     * @param event событие изменения статуса
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartridgeStatusChanged(CartridgeStatusChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            apply(counters, event);
+            Queue<CartridgeStatusChangedEvent> pending = pendingEvents;
+            if (pending != null) {
+                pending.add(event);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Счётчики и состояние картриджей из отложенных событий читаются из одного снимка базы данных
+    private void swap(Queue<CartridgeStatusChangedEvent> pending) {
+        ConcurrentMap<StockKey, LongAdder> rebuilt = new ConcurrentHashMap<>();
+        for (CartridgeRepository.StockCount count : cartridgeRepository.countGroupedByLocationAndStatus()) {
+            LongAdder adder = new LongAdder();
+            adder.add(count.getCount());
+            rebuilt.put(new StockKey(count.getLocationId(), count.getStatus()), adder);
+        }
+        
+        lock.writeLock().lock();
+        try {
+            List<CartridgeStatusChangedEvent> events = new ArrayList<>(pending);
+            if (!events.isEmpty()) {
+                Set<UUID> cartridgeIds = events.stream()
+                        .map(CartridgeStatusChangedEvent::cartridgeId)
+                        .collect(Collectors.toSet());
+                Map<UUID, StockKey> seen = new HashMap<>();
+                for (CartridgeRepository.StockState state : cartridgeRepository.findStockStates(cartridgeIds)) {
+                    seen.put(state.getId(), new StockKey(state.getLocationId(), state.getStatus()));
+                }
+                // Событие применяется, только если в снимке картридж в состоянии до события:
+                // изменение, уже учтённое снимком, второй раз не считается
+                for (CartridgeStatusChangedEvent event : events) {
+                    StockKey previous = event.previousStatus() != null
+                            ? new StockKey(event.previousLocationId(), event.previousStatus()) : null;
+                    if (!Objects.equals(seen.get(event.cartridgeId()), previous)) {
+                        continue;
+                    }
+                    apply(rebuilt, event);
+                    if (event.newStatus() != null) {
+                        seen.put(event.cartridgeId(), new StockKey(event.newLocationId(), event.newStatus()));
+                    } else {
+                        seen.remove(event.cartridgeId());
+                    }
+                }
+            }
+            counters = rebuilt;
+            pendingEvents = null;
+            rebuiltAt = LocalDateTime.now();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StockSummaryDto getStockSummary() {
+        Map<CartridgeStatus, Long> totals = emptyCounts();
+        Map<UUID, Map<CartridgeStatus, Long>> byLocation = new HashMap<>();
+        counters.forEach((key, adder) -> {
+            long value = Math.max(0, adder.sum());
+            if (value == 0) {
+                return;
+            }
+            totals.merge(key.status(), value, Long::sum);
+            byLocation.computeIfAbsent(key.locationId(), id -> emptyCounts()).merge(key.status(), value, Long::sum);
+        });
+        
+        Set<UUID> locationIds = byLocation.keySet().stream()
+                .filter(id -> id != null)
+                .collect(Collectors.toSet());
+        Map<UUID, String> names = locationRepository.findAllById(locationIds).stream()
+                .collect(Collectors.toMap(Location::getId, Location::getName));
+        
+        List<LocationStockDto> locations = new ArrayList<>(byLocation.size());
+        byLocation.forEach((locationId, counts) -> locations.add(new LocationStockDto(
+                locationId,
+                locationId != null ? names.get(locationId) : null,
+                counts,
+                counts.values().stream().mapToLong(Long::longValue).sum())));
+        locations.sort(Comparator.comparing(LocationStockDto::getLocationName,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        
+        return new StockSummaryDto(totals, locations, rebuiltAt);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCount(CartridgeStatus status) {
+        return counters.entrySet().stream()
+                .filter(entry -> entry.getKey().status() == status)
+                .mapToLong(entry -> Math.max(0, entry.getValue().sum()))
+                .sum();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCount(UUID locationId, CartridgeStatus status) {
+        LongAdder adder = counters.get(new StockKey(locationId, status));
+        return adder != null ? Math.max(0, adder.sum()) : 0;
+    }
+    
+    private void apply(ConcurrentMap<StockKey, LongAdder> target, CartridgeStatusChangedEvent event) {
+        if (event.previousStatus() != null) {
+            target.computeIfAbsent(new StockKey(event.previousLocationId(), event.previousStatus()), k -> new LongAdder()).add(-1);
+        }
+        if (event.newStatus() != null) {
+            target.computeIfAbsent(new StockKey(event.newLocationId(), event.newStatus()), k -> new LongAdder()).add(1);
+        }
+    }
+    
+    private Map<CartridgeStatus, Long> emptyCounts() {
+        Map<CartridgeStatus, Long> counts = new EnumMap<>(CartridgeStatus.class);
+        for (CartridgeStatus status : CartridgeStatus.values()) {
+            counts.put(status, 0L);
+        }
+        return counts;
+    }
+    
+    /**
+     * Ячейка матрицы остатков
+     * 
+     * @param locationId идентификатор объекта (null — без объекта)
+     * @param status статус картриджа
+     */
+    private record StockKey(UUID locationId, CartridgeStatus status) {
+    }
+}
@@ -1,16 +1,26 @@
 package com.example.cartridgeaccounting.service.impl;
 
+import com.example.cartridgeaccounting.config.CacheConfig;
+import com.example.cartridgeaccounting.config.MetricsConfig;
 import com.example.cartridgeaccounting.dto.CreateUserRequest;
 import com.example.cartridgeaccounting.dto.UpdateUserRequest;
 import com.example.cartridgeaccounting.dto.UserDto;
 import com.example.cartridgeaccounting.entity.User;
 import com.example.cartridgeaccounting.entity.enums.UserRole;
+import com.example.cartridgeaccounting.event.UserCredentialsChangedEvent;
 import com.example.cartridgeaccounting.exception.DuplicateUsernameException;
 import com.example.cartridgeaccounting.exception.UserNotFoundException;
+import com.example.cartridgeaccounting.repository.ResultLimitGuard;
 import com.example.cartridgeaccounting.repository.UserRepository;
 import com.example.cartridgeaccounting.service.UserService;
+import com.example.cartridgeaccounting.service.TableVersions;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -32,10 +42,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class UserServiceImpl implements UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TableVersions tableVersions;
+    private final ResultLimitGuard resultLimitGuard;
     
     /**
      * {@inheritDoc}
@@ -57,6 +71,7 @@ public class UserServiceImpl implements UserService {
         user.setEnabled(request.isEnabled());
         
         User savedUser = userRepository.save(user);
+        tableVersions.bump(TableVersions.Table.USERS);
         log.info("Пользователь создан с ID: {}", savedUser.getId());
         
         return convertToDto(savedUser);
@@ -66,9 +81,10 @@ public class UserServiceImpl implements UserService {
      * {@inheritDoc}
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id")
     @Transactional(readOnly = true)
     public UserDto getUserById(UUID id) {
-        log.info("Получение пользователя по ID: {}", id);
+        log.debug("Получение пользователя по ID: {}", id);
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
         return convertToDto(user);
@@ -78,9 +94,10 @@ public class UserServiceImpl implements UserService {
      * {@inheritDoc}
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_USERNAME, key = "#username")
     @Transactional(readOnly = true)
     public UserDto getUserByUsername(String username) {
-        log.info("Получение пользователя по имени: {}", username);
+        log.debug("Получение пользователя по имени: {}", username);
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException(username));
         return convertToDto(user);
@@ -92,7 +109,7 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public Page<UserDto> getAllUsers(Pageable pageable) {
-        log.info("Получение всех пользователей с пагинацией");
+        log.debug("Получение всех пользователей с пагинацией");
         return userRepository.findAll(pageable).map(this::convertToDto);
     }
     
@@ -101,11 +118,9 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     @Transactional(readOnly = true)
-    public List<UserDto> getUsersByRole(UserRole role) {
-        log.info("Получение пользователей по роли: {}", role);
-        return userRepository.findByRole(role).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public Page<UserDto> getUsersByRole(UserRole role, Pageable pageable) {
+        log.debug("Получение пользователей по роли: {}", role);
+        return userRepository.findByRole(role, pageable).map(this::convertToDto);
     }
     
     /**
@@ -114,8 +129,8 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public List<UserDto> getUsersByEnabled(boolean enabled) {
-        log.info("Получение пользователей по статусу активности: {}", enabled);
-        return userRepository.findByEnabled(enabled).stream()
+        log.debug("Получение пользователей по статусу активности: {}", enabled);
+        return resultLimitGuard.check(userRepository.findByEnabled(enabled, resultLimitGuard.limit())).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -124,6 +139,10 @@ public class UserServiceImpl implements UserService {
      * {@inheritDoc}
      */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, allEntries = true)
+    })
     public UserDto updateUser(UUID id, UpdateUserRequest request) {
         log.info("Обновление пользователя с ID: {}", id);
         User user = userRepository.findById(id)
@@ -139,6 +158,8 @@ public class UserServiceImpl implements UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        tableVersions.bump(TableVersions.Table.USERS);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(updatedUser.getUsername()));
         log.info("Пользователь обновлен с ID: {}", updatedUser.getId());
         
         return convertToDto(updatedUser);
@@ -148,12 +169,17 @@ public class UserServiceImpl implements UserService {
      * {@inheritDoc}
      */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, allEntries = true)
+    })
     public void deleteUser(UUID id) {
         log.info("Удаление пользователя с ID: {}", id);
-        if (!userRepository.existsById(id)) {
-            throw new UserNotFoundException(id);
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
+        userRepository.delete(user);
+        tableVersions.bump(TableVersions.Table.USERS);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getUsername()));
         log.info("Пользователь удален с ID: {}", id);
     }
     
@@ -161,6 +187,10 @@ public class UserServiceImpl implements UserService {
      * {@inheritDoc}
      */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, allEntries = true)
+    })
     public void changeUserStatus(UUID id, boolean enabled) {
         log.info("Изменение статуса пользователя с ID: {} на активный: {}", id, enabled);
         User user = userRepository.findById(id)
@@ -168,6 +198,8 @@ public class UserServiceImpl implements UserService {
         
         user.setEnabled(enabled);
         userRepository.save(user);
+        tableVersions.bump(TableVersions.Table.USERS);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getUsername()));
         log.info("Статус пользователя изменен для ID: {}", id);
     }
     
@@ -182,6 +214,7 @@ public class UserServiceImpl implements UserService {
         
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getUsername()));
         log.info("Пароль изменен для пользователя с ID: {}", id);
     }
     
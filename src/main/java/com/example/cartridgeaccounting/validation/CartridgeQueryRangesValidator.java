@@ -0,0 +1,49 @@
+package com.example.cartridgeaccounting.validation;
+
+import com.example.cartridgeaccounting.dto.CartridgeQueryRequest;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проверяет диапазоны ресурса и периодов в {@link CartridgeQueryRequest}.
+ * Незаданная граница диапазон не ограничивает и не проверяется.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+public class CartridgeQueryRangesValidator implements ConstraintValidator<ConsistentQueryRanges, CartridgeQueryRequest> {
+    
+    @Override
+    public boolean isValid(CartridgeQueryRequest request, ConstraintValidatorContext context) {
+        if (request == null) {
+            return true;
+        }
+        context.disableDefaultConstraintViolation();
+        boolean valid = true;
+        if (request.getMinResourcePages() != null && request.getMaxResourcePages() != null
+                && request.getMinResourcePages() > request.getMaxResourcePages()) {
+            valid = reject(context, "maxResourcePages", "Максимальный ресурс меньше минимального");
+        }
+        if (!isPeriod(request.getCreatedFrom(), request.getCreatedTo())) {
+            valid = reject(context, "createdTo", "Конец периода создания должен быть позже его начала");
+        }
+        if (!isPeriod(request.getUpdatedFrom(), request.getUpdatedTo())) {
+            valid = reject(context, "updatedTo", "Конец периода изменения должен быть позже его начала");
+        }
+        return valid;
+    }
+    
+    private static boolean isPeriod(LocalDateTime from, LocalDateTime to) {
+        return from == null || to == null || from.isBefore(to);
+    }
+    
+    // Ошибка привязывается к полю, чтобы попасть в перечень полей ответа 400
+    private static boolean reject(ConstraintValidatorContext context, String field, String message) {
+        context.buildConstraintViolationWithTemplate(message)
+                .addPropertyNode(field)
+                .addConstraintViolation();
+        return false;
+    }
+}
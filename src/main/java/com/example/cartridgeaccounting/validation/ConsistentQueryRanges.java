@@ -0,0 +1,32 @@
+package com.example.cartridgeaccounting.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Проверка диапазонов условий отбора картриджей.
+ * Минимальный ресурс не должен превышать максимальный, а начало периода создания
+ * или изменения должно быть раньше его конца: иначе отбор заведомо пуст.
+ * Ошибка относится к полю верхней границы диапазона.
+ * 
+ * @author Система учёта картриджей
+ * @version 1.0
+ */
+@Documented
+@Constraint(validatedBy = CartridgeQueryRangesValidator.class)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConsistentQueryRanges {
+    
+    String message() default "Некорректный диапазон условий отбора";
+    
+    Class<?>[] groups() default {};
+    
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,9 @@
+--liquibase formatted sql
+--changeset system:03-operations-keyset-indexes splitStatements:true endDelimiter=;
+CREATE INDEX IF NOT EXISTS idx_operations_date_id ON operations(operation_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_operations_cartridge_date_id ON operations(cartridge_id, operation_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_operations_location_date_id ON operations(location_id, operation_date DESC, id DESC);
+
+-- Составные индексы покрывают поиск по префиксу, поэтому одиночные индексы больше не нужны
+DROP INDEX IF EXISTS idx_operations_date;
+DROP INDEX IF EXISTS idx_operations_cartridge;
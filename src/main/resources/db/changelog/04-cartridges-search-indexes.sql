@@ -0,0 +1,10 @@
+--liquibase formatted sql
+--changeset system:04-cartridges-search-indexes splitStatements:true endDelimiter=;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Триграммные индексы для поиска по подстроке без учёта регистра
+CREATE INDEX IF NOT EXISTS idx_cartridges_model_trgm ON cartridges USING gin (lower(model) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_cartridges_serial_number_trgm ON cartridges USING gin (lower(serial_number) gin_trgm_ops);
+
+-- Индекс для поиска серийного номера по префиксу
+CREATE INDEX IF NOT EXISTS idx_cartridges_serial_number_prefix ON cartridges (lower(serial_number) text_pattern_ops);
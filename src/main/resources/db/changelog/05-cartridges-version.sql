@@ -0,0 +1,4 @@
+--liquibase formatted sql
+--changeset system:05-cartridges-version splitStatements:true endDelimiter=;
+-- Версия записи для оптимистической блокировки картриджей
+ALTER TABLE cartridges ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,16 @@
+--liquibase formatted sql
+--changeset system:06-cartridges-projection splitStatements:true endDelimiter=;
+-- Позиция в журнале операций, по которую применено состояние картриджа (снимок проекции)
+ALTER TABLE cartridges ADD COLUMN IF NOT EXISTS state_operation_date TIMESTAMP;
+ALTER TABLE cartridges ADD COLUMN IF NOT EXISTS state_operation_id UUID;
+
+-- Состояние существующих картриджей уже учитывает все операции: снимок указывает на последнюю из них
+UPDATE cartridges c
+SET state_operation_date = last_operation.operation_date,
+    state_operation_id = last_operation.id
+FROM (
+    SELECT DISTINCT ON (cartridge_id) cartridge_id, operation_date, id
+    FROM operations
+    ORDER BY cartridge_id, operation_date DESC, id DESC
+) last_operation
+WHERE last_operation.cartridge_id = c.id;
@@ -0,0 +1,66 @@
+--liquibase formatted sql
+--changeset system:07-operations-partitioning-table splitStatements:true endDelimiter=;
+--preconditions onFail:MARK_RAN
+--precondition-sql-check expectedResult:0 SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = 'operations' AND pg_table_is_visible(c.oid)
+-- Журнал операций секционируется по месяцам даты операции.
+-- Первичный ключ секционированной таблицы обязан включать ключ секционирования
+CREATE TABLE operations_partitioned (
+    id UUID NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    count INTEGER NOT NULL DEFAULT 1,
+    cartridge_id UUID NOT NULL REFERENCES cartridges(id),
+    location_id UUID REFERENCES locations(id),
+    performed_by UUID NOT NULL REFERENCES users(id),
+    operation_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    notes TEXT,
+    PRIMARY KEY (id, operation_date)
+) PARTITION BY RANGE (operation_date);
+
+-- Секция по умолчанию принимает операции вне созданных месяцев; в норме она пуста
+CREATE TABLE operations_default PARTITION OF operations_partitioned DEFAULT;
+
+-- Схема для отсоединённых секций старых месяцев
+CREATE SCHEMA IF NOT EXISTS operations_archive;
+
+--changeset system:07-operations-partitioning-months splitStatements:false
+--preconditions onFail:MARK_RAN
+--precondition-sql-check expectedResult:1 SELECT COUNT(*) FROM pg_class c WHERE c.relname = 'operations_partitioned' AND pg_table_is_visible(c.oid)
+-- Месячные секции от первой операции журнала до трёх месяцев вперёд
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE := date_trunc('month', CURRENT_DATE + INTERVAL '3 months')::date;
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(operation_date)), date_trunc('month', CURRENT_DATE))::date
+    INTO month_start
+    FROM operations;
+
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF operations_partitioned FOR VALUES FROM (%L) TO (%L)',
+                       'operations_' || to_char(month_start, 'YYYY_MM'),
+                       month_start,
+                       (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+--changeset system:07-operations-partitioning-swap splitStatements:true endDelimiter=;
+--preconditions onFail:MARK_RAN
+--precondition-sql-check expectedResult:1 SELECT COUNT(*) FROM pg_class c WHERE c.relname = 'operations_partitioned' AND pg_table_is_visible(c.oid)
+INSERT INTO operations_partitioned (id, type, count, cartridge_id, location_id, performed_by, operation_date, notes)
+SELECT id, type, count, cartridge_id, location_id, performed_by, COALESCE(operation_date, CURRENT_TIMESTAMP), notes
+FROM operations;
+
+DROP TABLE operations;
+ALTER TABLE operations_partitioned RENAME TO operations;
+ALTER INDEX operations_partitioned_pkey RENAME TO operations_pkey;
+ALTER TABLE operations RENAME CONSTRAINT operations_partitioned_cartridge_id_fkey TO operations_cartridge_id_fkey;
+ALTER TABLE operations RENAME CONSTRAINT operations_partitioned_location_id_fkey TO operations_location_id_fkey;
+ALTER TABLE operations RENAME CONSTRAINT operations_partitioned_performed_by_fkey TO operations_performed_by_fkey;
+
+-- Индексы создаются на секционированной таблице и наследуются каждой секцией.
+-- Одиночный индекс по типу операции не восстанавливается: запросы по типу ограничены
+-- диапазоном дат, и их обслуживает отсечение секций
+CREATE INDEX IF NOT EXISTS idx_operations_date_id ON operations(operation_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_operations_cartridge_date_id ON operations(cartridge_id, operation_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_operations_location_date_id ON operations(location_id, operation_date DESC, id DESC);
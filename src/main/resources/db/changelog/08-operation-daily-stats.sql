@@ -0,0 +1,23 @@
+--liquibase formatted sql
+--changeset system:08-operation-daily-stats splitStatements:true endDelimiter=;
+-- Суточная статистика операций: день × тип × объект.
+-- Операции без объекта учитываются под нулевым UUID, чтобы ключ не содержал NULL
+CREATE TABLE IF NOT EXISTS operation_daily_stats (
+    stat_date DATE NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    location_id UUID NOT NULL,
+    operation_count BIGINT NOT NULL,
+    cartridge_count BIGINT NOT NULL,
+    PRIMARY KEY (stat_date, type, location_id)
+);
+CREATE INDEX IF NOT EXISTS idx_operation_daily_stats_location_date ON operation_daily_stats(location_id, stat_date);
+
+-- Начальное заполнение по существующему журналу
+INSERT INTO operation_daily_stats (stat_date, type, location_id, operation_count, cartridge_count)
+SELECT stat_date, type, location_id, COUNT(*), SUM(count)
+FROM (
+    SELECT CAST(operation_date AS DATE) AS stat_date, type,
+           COALESCE(location_id, '00000000-0000-0000-0000-000000000000') AS location_id, count
+    FROM operations
+) journal
+GROUP BY stat_date, type, location_id;
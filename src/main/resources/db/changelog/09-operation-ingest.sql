@@ -0,0 +1,12 @@
+--liquibase formatted sql
+--changeset system:09-operation-ingest splitStatements:true endDelimiter=;
+-- Результаты обработки асинхронной очереди записи операций
+CREATE TABLE IF NOT EXISTS operation_ingest_tickets (
+    ticket_id UUID PRIMARY KEY,
+    status VARCHAR(20) NOT NULL,
+    operation_id UUID,
+    message VARCHAR(500),
+    accepted_at TIMESTAMP NOT NULL,
+    processed_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_operation_ingest_tickets_processed_at ON operation_ingest_tickets(processed_at);
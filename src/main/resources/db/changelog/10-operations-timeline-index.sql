@@ -0,0 +1,10 @@
+--liquibase formatted sql
+--changeset system:10-operations-timeline-index splitStatements:true endDelimiter=;
+-- Покрывающий индекс ленты операций картриджа: все столбцы ленты хранятся в индексе,
+-- и страница читается сканированием только индекса (Index Only Scan) без обращения к секциям журнала.
+-- Примечания (notes) в индекс не входят и в ленту не попадают
+CREATE INDEX IF NOT EXISTS idx_operations_cartridge_timeline ON operations(cartridge_id, operation_date DESC, id DESC)
+    INCLUDE (type, count, location_id, performed_by);
+
+-- Ключ нового индекса совпадает с прежним, поэтому прежний индекс больше не нужен
+DROP INDEX IF EXISTS idx_operations_cartridge_date_id;
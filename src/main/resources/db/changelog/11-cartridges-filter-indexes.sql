@@ -0,0 +1,20 @@
+--liquibase formatted sql
+--changeset system:11-cartridges-filter-indexes splitStatements:true endDelimiter=;
+-- Составные индексы для отбора картриджей по сочетаниям условий (GET /api/cartridges/query).
+-- Индексы заканчиваются сортировкой по умолчанию (сначала новые), поэтому страница
+-- читается из индекса по порядку, без сортировки всех подходящих строк.
+-- Объект и статус: остатки объекта, в том числе с фильтром по статусу
+CREATE INDEX IF NOT EXISTS idx_cartridges_location_status ON cartridges(current_location_id, status, created_at DESC, id DESC);
+
+-- Статус и период создания
+CREATE INDEX IF NOT EXISTS idx_cartridges_status_created ON cartridges(status, created_at DESC, id DESC);
+
+-- Модель (без учёта регистра) и статус
+CREATE INDEX IF NOT EXISTS idx_cartridges_model_status ON cartridges(lower(model), status, created_at DESC, id DESC);
+
+-- Период создания без других условий и первая страница без фильтров
+CREATE INDEX IF NOT EXISTS idx_cartridges_created ON cartridges(created_at DESC, id DESC);
+
+-- Составные индексы покрывают поиск по префиксу, поэтому одиночные индексы больше не нужны
+DROP INDEX IF EXISTS idx_cartridges_location;
+DROP INDEX IF EXISTS idx_cartridges_status;
@@ -0,0 +1,69 @@
+package com.example.cartridgeaccounting;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Встроенный PostgreSQL для интеграционных тестов.
+ * Сервер запускается один раз на все тесты; каждый тестовый класс получает отдельную
+ * базу данных, схему в которой создают миграции Liquibase при запуске контекста.
+ * 
+ * <pre>
+ * &#64;DynamicPropertySource
+ * static void datasource(DynamicPropertyRegistry registry) {
+ *     PostgresTestDatabase.register(registry, "search");
+ * }
+ * </pre>
+ */
+public final class PostgresTestDatabase {
+    
+    private static EmbeddedPostgres postgres;
+    
+    private PostgresTestDatabase() {
+    }
+    
+    /**
+     * Создаёт базу данных и подключает к ней контекст Spring
+     * 
+     * @param registry свойства контекста
+     * @param database имя базы данных (уникальное для тестового класса)
+     */
+    public static void register(DynamicPropertyRegistry registry, String database) {
+        String url = create(database);
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+    
+    /**
+     * Создаёт базу данных, если её ещё нет
+     * 
+     * @param database имя базы данных
+     * @return JDBC URL базы данных
+     */
+    public static synchronized String create(String database) {
+        EmbeddedPostgres server = server();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(server.getPostgresDatabase());
+        Integer existing = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_database WHERE datname = ?",
+                Integer.class, database);
+        if (existing == 0) {
+            jdbcTemplate.execute("CREATE DATABASE " + database);
+        }
+        return server.getJdbcUrl("postgres", database);
+    }
+    
+    private static EmbeddedPostgres server() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return postgres;
+    }
+}
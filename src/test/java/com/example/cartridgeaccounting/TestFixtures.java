@@ -0,0 +1,47 @@
+package com.example.cartridgeaccounting;
+
+import com.example.cartridgeaccounting.entity.Location;
+import com.example.cartridgeaccounting.entity.User;
+import com.example.cartridgeaccounting.entity.enums.UserRole;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.repository.UserRepository;
+
+/**
+ * Справочные данные интеграционных тестов: пользователь, от имени которого
+ * выполняются операции, и объекты, на которые выдаются картриджи.
+ */
+public final class TestFixtures {
+    
+    private TestFixtures() {
+    }
+    
+    /**
+     * Сохраняет заведующего складом
+     * 
+     * @param userRepository репозиторий пользователей
+     * @param username имя пользователя (оно же полное имя)
+     * @return сохранённый пользователь
+     */
+    public static User createUser(UserRepository userRepository, String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("-");
+        user.setFullName(username);
+        user.setRole(UserRole.WAREHOUSE_MANAGER);
+        return userRepository.save(user);
+    }
+    
+    /**
+     * Сохраняет объект
+     * 
+     * @param locationRepository репозиторий объектов
+     * @param name название объекта
+     * @return сохранённый объект
+     */
+    public static Location createLocation(LocationRepository locationRepository, String name) {
+        Location location = new Location();
+        location.setName(name);
+        location.setAddress("Адрес");
+        return locationRepository.save(location);
+    }
+}
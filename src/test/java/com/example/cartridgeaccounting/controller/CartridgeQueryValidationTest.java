@@ -0,0 +1,89 @@
+package com.example.cartridgeaccounting.controller;
+
+import com.example.cartridgeaccounting.dto.CartridgeQueryRequest;
+import com.example.cartridgeaccounting.exception.GlobalExceptionHandler;
+import com.example.cartridgeaccounting.service.CartridgeService;
+import com.example.cartridgeaccounting.service.StockSummaryService;
+import com.example.cartridgeaccounting.service.TableVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверка отбора картриджей с переставленными границами диапазонов:
+ * такой запрос отклоняется с ошибкой 400 и до базы данных не доходит.
+ */
+class CartridgeQueryValidationTest {
+    
+    private CartridgeService cartridgeService;
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() {
+        cartridgeService = mock(CartridgeService.class);
+        when(cartridgeService.queryCartridges(any(CartridgeQueryRequest.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new CartridgeController(cartridgeService, mock(StockSummaryService.class),
+                        mock(TableVersions.class)))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
+                .build();
+    }
+    
+    @Test
+    void minResourceAboveMaxIsRejected() throws Exception {
+        mockMvc.perform(get("/api/cartridges/query")
+                        .param("minResourcePages", "5000")
+                        .param("maxResourcePages", "1000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("maxResourcePages")));
+        
+        verify(cartridgeService, never()).queryCartridges(any(), any());
+    }
+    
+    @Test
+    void emptyOrReversedPeriodsAreRejected() throws Exception {
+        mockMvc.perform(get("/api/cartridges/query")
+                        .param("createdFrom", "2026-01-01T00:00:00")
+                        .param("createdTo", "2026-01-01T00:00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("createdTo")));
+        mockMvc.perform(get("/api/cartridges/query")
+                        .param("updatedFrom", "2026-02-01T00:00:00")
+                        .param("updatedTo", "2026-01-01T00:00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("updatedTo")));
+        
+        verify(cartridgeService, never()).queryCartridges(any(), any());
+    }
+    
+    @Test
+    void consistentRangesAreQueried() throws Exception {
+        mockMvc.perform(get("/api/cartridges/query")
+                        .param("minResourcePages", "1000")
+                        .param("maxResourcePages", "1000")
+                        .param("createdFrom", "2026-01-01T00:00:00")
+                        .param("createdTo", "2026-02-01T00:00:00"))
+                .andExpect(status().isOk());
+        
+        verify(cartridgeService).queryCartridges(any(CartridgeQueryRequest.class), any(Pageable.class));
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.cartridgeaccounting.repository;
+
+import com.example.cartridgeaccounting.PostgresTestDatabase;
+import com.example.cartridgeaccounting.dto.CartridgeQueryRequest;
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.service.CartridgeService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка планов запросов отбора картриджей на PostgreSQL.
+ * Таблица заполняется 50 000 картриджей, отбор выполняется через
+ * {@link CartridgeService#queryCartridges}, а SQL страницы и количества строк, который
+ * Hibernate строит по {@link CartridgeSpecifications} (с соединением объекта, параметрами
+ * и offset/fetch), перехватывается на уровне JDBC вместе со значениями параметров.
+ * План каждого такого запроса должен использовать составной индекс, а не последовательное
+ * чтение таблицы.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CartridgeQueryPlanTest {
+    
+    private static final int CARTRIDGES = 50_000;
+    private static final int LOCATIONS = 50;
+    
+    /**
+     * Запросы к таблице картриджей, выполненные при включённом перехвате
+     */
+    private static final List<CapturedQuery> CAPTURED = new CopyOnWriteArrayList<>();
+    private static volatile boolean capturing;
+    
+    @Autowired
+    private CartridgeService cartridgeService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private UUID locationId;
+    
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry, "cartridge_query_plan");
+    }
+    
+    @BeforeAll
+    void createCartridges() {
+        jdbcTemplate.update("INSERT INTO locations (id, name, address) " +
+                "SELECT gen_random_uuid(), 'Объект ' || i, 'Адрес ' || i FROM generate_series(1, ?) i", LOCATIONS);
+        jdbcTemplate.update("INSERT INTO cartridges (id, model, serial_number, resource_pages, status, current_location_id, created_at) " +
+                "SELECT gen_random_uuid(), 'Model ' || (i % 200), 'SN-' || i, 1000 + (i % 50) * 100, " +
+                "CASE WHEN i % 10 < 7 THEN 'IN_STOCK' WHEN i % 10 < 9 THEN 'IN_USE' ELSE 'REFILLING' END, " +
+                "l.id, now() - i * interval '1 minute' " +
+                "FROM generate_series(1, ?) i " +
+                "JOIN (SELECT id, row_number() OVER (ORDER BY id) - 1 AS n FROM locations) l ON l.n = i % ?",
+                CARTRIDGES, LOCATIONS);
+        jdbcTemplate.execute("VACUUM ANALYZE cartridges");
+        jdbcTemplate.execute("VACUUM ANALYZE locations");
+        // Статус определяется тем же остатком, что и объект: на объекте картриджи одного статуса
+        locationId = jdbcTemplate.queryForObject(
+                "SELECT current_location_id FROM cartridges WHERE status = 'IN_USE' LIMIT 1", UUID.class);
+    }
+    
+    @Test
+    void locationAndStatusUseLocationStatusIndex() {
+        CartridgeQueryRequest request = new CartridgeQueryRequest();
+        request.setLocationId(locationId);
+        request.setStatus(Set.of(CartridgeStatus.IN_USE));
+        
+        List<CapturedQuery> queries = capture(request);
+        
+        assertEquals(2, queries.size(), "Ожидались запросы страницы и количества строк");
+        queries.forEach(query -> assertIndexUsed("idx_cartridges_location_status", query));
+    }
+    
+    @Test
+    void statusUsesStatusCreatedIndex() {
+        CartridgeQueryRequest request = new CartridgeQueryRequest();
+        request.setStatus(Set.of(CartridgeStatus.REFILLING));
+        
+        assertIndexUsed("idx_cartridges_status_created", page(capture(request)));
+    }
+    
+    @Test
+    void statusAndCreatedPeriodUseStatusCreatedIndex() {
+        CartridgeQueryRequest request = new CartridgeQueryRequest();
+        request.setStatus(Set.of(CartridgeStatus.REFILLING));
+        request.setCreatedFrom(LocalDateTime.now().minusDays(30));
+        request.setCreatedTo(LocalDateTime.now().minusDays(20));
+        
+        List<CapturedQuery> queries = capture(request);
+        
+        // Количество строк считается без сортировки и соединения: отбор целиком по индексу.
+        // Страницу планировщик может читать по индексу даты с фильтром статуса — достаточно 20 строк
+        assertIndexUsed("idx_cartridges_status_created", count(queries));
+        assertAnyIndexUsed(List.of("idx_cartridges_status_created", "idx_cartridges_created"), page(queries));
+    }
+    
+    @Test
+    void modelAndStatusUseModelStatusIndex() {
+        CartridgeQueryRequest request = new CartridgeQueryRequest();
+        request.setModel("Model 17");
+        request.setStatus(Set.of(CartridgeStatus.IN_USE));
+        
+        assertIndexUsed("idx_cartridges_model_status", page(capture(request)));
+    }
+    
+    @Test
+    void unfilteredFirstPageUsesCreatedIndex() {
+        assertIndexUsed("idx_cartridges_created", page(capture(new CartridgeQueryRequest())));
+    }
+    
+    /**
+     * Выполняет отбор первой страницы через сервис и возвращает выполненные запросы к картриджам
+     */
+    private List<CapturedQuery> capture(CartridgeQueryRequest request) {
+        synchronized (CAPTURED) {
+            CAPTURED.clear();
+            capturing = true;
+            try {
+                cartridgeService.queryCartridges(request, PageRequest.of(0, 20));
+            } finally {
+                capturing = false;
+            }
+            return new ArrayList<>(CAPTURED);
+        }
+    }
+    
+    private static CapturedQuery page(List<CapturedQuery> queries) {
+        return queries.stream()
+                .filter(query -> !query.sql().startsWith("select count("))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Запрос страницы не выполнен: " + queries));
+    }
+    
+    private static CapturedQuery count(List<CapturedQuery> queries) {
+        return queries.stream()
+                .filter(query -> query.sql().startsWith("select count("))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Запрос количества строк не выполнен: " + queries));
+    }
+    
+    private void assertIndexUsed(String index, CapturedQuery query) {
+        assertAnyIndexUsed(List.of(index), query);
+    }
+    
+    private void assertAnyIndexUsed(List<String> indexes, CapturedQuery query) {
+        String plan = String.join("\n", jdbcTemplate.query("EXPLAIN " + query.sql(), statement -> {
+            for (Map.Entry<Integer, Object> parameter : query.parameters().entrySet()) {
+                statement.setObject(parameter.getKey(), parameter.getValue());
+            }
+        }, (rs, rowNum) -> rs.getString(1)));
+        // Имена индексов сравниваются целиком: idx_cartridges_status не засчитывается за idx_cartridges_status_created
+        List<String> used = Pattern.compile("\\b(idx_\\w+)").matcher(plan).results().map(match -> match.group(1)).toList();
+        assertTrue(used.stream().anyMatch(indexes::contains),
+                () -> "Ожидался один из индексов " + indexes + " для\n" + query.sql() + "\nплан:\n" + plan);
+        assertFalse(plan.contains("Seq Scan on cartridges"),
+                () -> "Последовательное чтение таблицы для\n" + query.sql() + "\nплан:\n" + plan);
+    }
+    
+    /**
+     * Запрос с параметрами в порядке их номеров
+     */
+    private record CapturedQuery(String sql, Map<Integer, Object> parameters) {
+    }
+    
+    /**
+     * Оборачивает источник данных приложения: подготовленные запросы к таблице картриджей
+     * запоминаются вместе с параметрами при выполнении
+     */
+    @TestConfiguration
+    static class CaptureConfig {
+        
+        @Bean
+        static BeanPostProcessor capturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(DataSource.class, dataSource) : bean;
+                }
+            };
+        }
+        
+        private static <T> T proxy(Class<T> type, T target) {
+            return type.cast(Proxy.newProxyInstance(CartridgeQueryPlanTest.class.getClassLoader(), new Class<?>[]{type},
+                    (instance, method, args) -> {
+                        Object result = invoke(method, target, args);
+                        if (result instanceof Connection connection && method.getName().equals("getConnection")) {
+                            return proxy(Connection.class, connection);
+                        }
+                        if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                            return recording(statement, (String) args[0]);
+                        }
+                        return result;
+                    }));
+        }
+        
+        private static PreparedStatement recording(PreparedStatement target, String sql) {
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(CartridgeQueryPlanTest.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (instance, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                            parameters.put(index, name.equals("setNull") ? null : args[1]);
+                        } else if (name.equals("clearParameters")) {
+                            parameters.clear();
+                        } else if (name.equals("executeQuery") && capturing && sql.contains(" from cartridges ")) {
+                            CAPTURED.add(new CapturedQuery(sql, new TreeMap<>(parameters)));
+                        }
+                        return invoke(method, target, args);
+                    });
+        }
+        
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
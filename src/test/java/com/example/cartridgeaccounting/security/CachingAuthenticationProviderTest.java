@@ -0,0 +1,42 @@
+package com.example.cartridgeaccounting.security;
+
+import com.example.cartridgeaccounting.event.UserCredentialsChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверка кэша учётных данных при изменении пользователя во время входа
+ */
+class CachingAuthenticationProviderTest {
+    
+    @Test
+    @SuppressWarnings("deprecation")
+    void credentialsReadBeforeConcurrentChangeAreNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        CachingAuthenticationProvider[] provider = new CachingAuthenticationProvider[1];
+        UserDetailsService userDetailsService = username -> {
+            // Изменение пользователя фиксируется, пока вход ещё проверяет прежние данные
+            if (loads.incrementAndGet() == 1) {
+                provider[0].onUserCredentialsChanged(new UserCredentialsChangedEvent(username));
+            }
+            return User.withUsername(username).password("secret").roles("ADMIN").build();
+        };
+        provider[0] = new CachingAuthenticationProvider(userDetailsService, NoOpPasswordEncoder.getInstance(),
+                Duration.ofMinutes(5), 100);
+        
+        provider[0].authenticate(UsernamePasswordAuthenticationToken.unauthenticated("admin", "secret"));
+        provider[0].authenticate(UsernamePasswordAuthenticationToken.unauthenticated("admin", "secret"));
+        provider[0].authenticate(UsernamePasswordAuthenticationToken.unauthenticated("admin", "secret"));
+        
+        // Первый результат отброшен, второй закэширован
+        assertEquals(2, loads.get());
+    }
+}
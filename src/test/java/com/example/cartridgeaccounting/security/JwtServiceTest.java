@@ -0,0 +1,98 @@
+package com.example.cartridgeaccounting.security;
+
+import com.example.cartridgeaccounting.event.UserCredentialsChangedEvent;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка выпуска и проверки JWT-токенов: подпись, срок действия
+ * и отзыв токенов при изменении учётных данных пользователя
+ */
+class JwtServiceTest {
+    
+    private static final String SECRET = "c2VjcmV0LWtleS1mb3Itand0LXNlcnZpY2UtdGVzdHMtMzItYnl0ZXM=";
+    private static final String OTHER_SECRET = "b3RoZXIta2V5LWZvci1qd3Qtc2VydmljZS10ZXN0cy0zMi1ieXRlcw==";
+    
+    private final JwtService jwtService = new JwtService(SECRET, Duration.ofHours(1));
+    
+    @Test
+    void issuedTokenRestoresNameAndRoles() {
+        String token = jwtService.generateToken(authentication("admin", "ROLE_ADMIN", "ROLE_WAREHOUSE_MANAGER"));
+        
+        Authentication restored = jwtService.parseToken(token).orElseThrow();
+        
+        assertEquals("admin", restored.getName());
+        assertTrue(restored.isAuthenticated());
+        assertEquals(List.of("ROLE_ADMIN", "ROLE_WAREHOUSE_MANAGER"),
+                restored.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+    
+    @Test
+    void expiredTokenIsRejected() {
+        JwtService expiring = new JwtService(SECRET, Duration.ofSeconds(-1));
+        String token = expiring.generateToken(authentication("admin", "ROLE_ADMIN"));
+        
+        assertTrue(jwtService.parseToken(token).isEmpty());
+    }
+    
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() {
+        String token = new JwtService(OTHER_SECRET, Duration.ofHours(1))
+                .generateToken(authentication("admin", "ROLE_ADMIN"));
+        
+        assertTrue(jwtService.parseToken(token).isEmpty());
+        assertTrue(jwtService.parseToken(token.substring(0, token.length() - 2)).isEmpty());
+    }
+    
+    @Test
+    void tokensIssuedBeforeCredentialsChangeAreRevoked() {
+        String previous = tokenIssuedAt("user", Instant.now().minusSeconds(5));
+        String otherUser = tokenIssuedAt("other", Instant.now().minusSeconds(5));
+        
+        jwtService.onUserCredentialsChanged(new UserCredentialsChangedEvent("user"));
+        
+        assertTrue(jwtService.parseToken(previous).isEmpty());
+        assertTrue(jwtService.parseToken(otherUser).isPresent());
+    }
+    
+    @Test
+    void tokenIssuedInSameSecondAfterCredentialsChangeIsAccepted() {
+        jwtService.onUserCredentialsChanged(new UserCredentialsChangedEvent("user"));
+        
+        String token = jwtService.generateToken(authentication("user", "ROLE_USER"));
+        
+        assertEquals("user", jwtService.parseToken(token).orElseThrow().getName());
+    }
+    
+    private static Authentication authentication(String username, String... roles) {
+        return UsernamePasswordAuthenticationToken.authenticated(username, null,
+                List.of(roles).stream().map(SimpleGrantedAuthority::new).toList());
+    }
+    
+    /**
+     * Токен, подписанный ключом сервиса и выпущенный в указанный момент
+     */
+    private static String tokenIssuedAt(String username, Instant issuedAt) {
+        return Jwts.builder()
+                .subject(username)
+                .claim("roles", List.of("ROLE_USER"))
+                .issuedAt(Date.from(issuedAt))
+                .expiration(Date.from(issuedAt.plus(Duration.ofHours(1))))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+    }
+}
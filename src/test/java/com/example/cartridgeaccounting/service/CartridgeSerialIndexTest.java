@@ -0,0 +1,178 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.dto.CartridgeDto;
+import com.example.cartridgeaccounting.entity.Location;
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.event.CartridgeStatusChangedEvent;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка индекса серийных номеров при изменении картриджа во время пересчёта.
+ * Картридж, изменённый, пока пересчёт читал базу данных, не должен попасть в индекс
+ * с прежним состоянием — в том числе когда пересчёты запрошены одновременно.
+ */
+class CartridgeSerialIndexTest {
+    
+    private static final String SERIAL_NUMBER = "SCAN-1";
+    private static final UUID CARTRIDGE_ID = UUID.randomUUID();
+    private static final UUID LOCATION_ID = UUID.randomUUID();
+    
+    private CartridgeRepository cartridgeRepository;
+    private LocationRepository locationRepository;
+    private CartridgeSerialIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        cartridgeRepository = mock(CartridgeRepository.class);
+        locationRepository = mock(LocationRepository.class);
+        index = new CartridgeSerialIndex(cartridgeRepository, locationRepository, mock(TableVersions.class),
+                new SimpleMeterRegistry());
+        // Из базы данных картридж читается уже выданным
+        when(cartridgeRepository.findSerialSummaries(anyList()))
+                .thenReturn(List.of(summary(CartridgeStatus.IN_USE)));
+    }
+    
+    @Test
+    void cartridgeChangedDuringRebuildIsReadAgain() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(cartridgeRepository.findAllSerialSummaries()).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await();
+            return List.of(summary(CartridgeStatus.IN_STOCK));
+        });
+        
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(index::rebuild);
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        issue();
+        release.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+        
+        assertEquals(CartridgeStatus.IN_USE, index.find(SERIAL_NUMBER).map(CartridgeDto::getStatus).orElseThrow());
+    }
+    
+    @Test
+    void overlappingRebuildsDoNotInstallStaleEntries() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(cartridgeRepository.findAllSerialSummaries()).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                // Первый пересчёт читает картридж до выдачи и задерживается
+                reading.countDown();
+                release.await();
+                return List.of(summary(CartridgeStatus.IN_STOCK));
+            }
+            return List.of(summary(CartridgeStatus.IN_USE));
+        });
+        
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(index::rebuild);
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> fast = CompletableFuture.runAsync(index::rebuild);
+        // Второй пересчёт ждёт первый и не читает базу данных раньше него
+        Thread.sleep(200);
+        assertFalse(fast.isDone());
+        assertEquals(1, reads.get());
+        
+        issue();
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        fast.get(5, TimeUnit.SECONDS);
+        
+        assertEquals(2, reads.get());
+        assertEquals(CartridgeStatus.IN_USE, index.find(SERIAL_NUMBER).map(CartridgeDto::getStatus).orElseThrow());
+    }
+    
+    @Test
+    void missingLocationNameIsLoadedOnceAndCached() {
+        when(cartridgeRepository.findAllSerialSummaries()).thenReturn(List.of(summary(CartridgeStatus.IN_USE)));
+        Location location = new Location();
+        location.setId(LOCATION_ID);
+        location.setName("Бухгалтерия");
+        when(locationRepository.findById(LOCATION_ID)).thenReturn(Optional.of(location));
+        index.rebuild();
+        
+        assertEquals("Бухгалтерия", index.find(SERIAL_NUMBER).orElseThrow().getCurrentLocationName());
+        assertEquals("Бухгалтерия", index.find(SERIAL_NUMBER).orElseThrow().getCurrentLocationName());
+        verify(locationRepository, times(1)).findById(LOCATION_ID);
+    }
+    
+    /**
+     * Выдача картриджа зафиксирована: обработчик события удаляет запись из индекса
+     */
+    private void issue() {
+        index.onCartridgeStatusChanged(new CartridgeStatusChangedEvent(CARTRIDGE_ID,
+                CartridgeStatus.IN_STOCK, null, CartridgeStatus.IN_USE, LOCATION_ID));
+    }
+    
+    private static CartridgeRepository.SerialSummary summary(CartridgeStatus status) {
+        return new CartridgeRepository.SerialSummary() {
+            @Override
+            public UUID getId() {
+                return CARTRIDGE_ID;
+            }
+            
+            @Override
+            public String getSerialNumber() {
+                return SERIAL_NUMBER;
+            }
+            
+            @Override
+            public String getModel() {
+                return "HP CF259A";
+            }
+            
+            @Override
+            public Integer getResourcePages() {
+                return 3000;
+            }
+            
+            @Override
+            public String getDescription() {
+                return null;
+            }
+            
+            @Override
+            public CartridgeStatus getStatus() {
+                return status;
+            }
+            
+            @Override
+            public UUID getLocationId() {
+                return status == CartridgeStatus.IN_USE ? LOCATION_ID : null;
+            }
+            
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return null;
+            }
+            
+            @Override
+            public LocalDateTime getUpdatedAt() {
+                return null;
+            }
+        };
+    }
+}
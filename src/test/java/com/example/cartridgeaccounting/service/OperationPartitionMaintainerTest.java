@@ -0,0 +1,188 @@
+package com.example.cartridgeaccounting.service;
+
+import com.example.cartridgeaccounting.PostgresTestDatabase;
+import com.example.cartridgeaccounting.TestFixtures;
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.OperationDto;
+import com.example.cartridgeaccounting.entity.Cartridge;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.exception.ProjectionRebuildUnavailableException;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка архивирования секций журнала операций на PostgreSQL.
+ * Секция месяца старше срока хранения с операцией отсоединяется и переносится
+ * в архивную схему; после этого архивные операции не мешают удалять картриджи,
+ * объекты и пользователей, а восстановление состояния по журналу отклоняется.
+ */
+@SpringBootTest(properties = {
+        "app.operations.partitioning.retention-months=3"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OperationPartitionMaintainerTest {
+    
+    private static final String USERNAME = "archive";
+    
+    @Autowired
+    private OperationPartitionMaintainer maintainer;
+    
+    @Autowired
+    private OperationService operationService;
+    
+    @Autowired
+    private CartridgeService cartridgeService;
+    
+    @Autowired
+    private LocationService locationService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private CartridgeProjectionService projectionService;
+    
+    @Autowired
+    private CartridgeRepository cartridgeRepository;
+    
+    @Autowired
+    private LocationRepository locationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private final YearMonth archivedMonth = YearMonth.now().minusMonths(6);
+    private final String partition = "operations_" + archivedMonth.format(DateTimeFormatter.ofPattern("yyyy_MM"));
+    
+    private UUID userId;
+    private UUID locationId;
+    private UUID cartridgeId;
+    private UUID currentCartridgeId;
+    
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry, "operation_partitions");
+    }
+    
+    @BeforeAll
+    void archiveOldPartition() {
+        userId = TestFixtures.createUser(userRepository, USERNAME).getId();
+        locationId = TestFixtures.createLocation(locationRepository, "Архивный объект").getId();
+        
+        cartridgeId = createCartridge("ARCHIVE-1");
+        currentCartridgeId = createCartridge("CURRENT-1");
+        
+        // Секция прошлого месяца создаётся так же, как её создавал бы обслуживающий компонент в то время
+        LocalDate from = archivedMonth.atDay(1);
+        jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF operations " +
+                "FOR VALUES FROM ('" + from + "') TO ('" + from.plusMonths(1) + "')");
+        OperationDto archived = operationService.createOperation(issue(cartridgeId), USERNAME);
+        jdbcTemplate.update("UPDATE operations SET operation_date = ? WHERE id = ?",
+                from.plusDays(14).atTime(12, 0), archived.getId());
+        operationService.createOperation(issue(currentCartridgeId), USERNAME);
+        
+        maintainer.maintain();
+    }
+    
+    @Test
+    void oldPartitionIsMovedToArchiveWithoutForeignKeys() {
+        assertEquals(Boolean.FALSE, jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE c.relname = ?)",
+                Boolean.class, partition));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM operations_archive." + partition + " WHERE cartridge_id = ?",
+                Integer.class, cartridgeId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_constraint WHERE conrelid = ?::regclass AND contype = 'f'",
+                Integer.class, "operations_archive." + partition));
+        
+        // Операция текущего месяца остаётся в журнале
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM operations WHERE cartridge_id = ?", Integer.class, currentCartridgeId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM operations WHERE cartridge_id = ?", Integer.class, cartridgeId));
+    }
+    
+    @Test
+    void repeatedMaintenanceKeepsArchiveAndCurrentPartitions() {
+        maintainer.maintain();
+        
+        assertTrue(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, "operations_archive." + partition));
+        assertTrue(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                "operations_" + YearMonth.now().format(DateTimeFormatter.ofPattern("yyyy_MM"))));
+    }
+    
+    @Test
+    void rebuildIsRefusedWhileArchiveExists() {
+        String before = jdbcTemplate.queryForObject("SELECT status FROM cartridges WHERE id = ?",
+                String.class, cartridgeId);
+        
+        assertThrows(ProjectionRebuildUnavailableException.class, projectionService::rebuildAll);
+        
+        // Картридж, операции которого только в архиве, не сброшен
+        assertEquals("IN_USE", before);
+        assertEquals(before, jdbcTemplate.queryForObject("SELECT status FROM cartridges WHERE id = ?",
+                String.class, cartridgeId));
+    }
+    
+    @Test
+    void rowsReferencedOnlyByArchivedOperationsCanBeDeleted() {
+        UUID cartridge = createCartridge("ARCHIVE-2");
+        UUID location = TestFixtures.createLocation(locationRepository, "Удаляемый объект").getId();
+        UUID deletedUserId = TestFixtures.createUser(userRepository, "archive-delete").getId();
+        
+        // Операция с теми же ссылками, записанная напрямую в архивную секцию
+        jdbcTemplate.update("INSERT INTO operations_archive." + partition + " (id, type, cartridge_id, location_id, " +
+                        "performed_by, count, operation_date) VALUES (?, 'ISSUE', ?, ?, ?, 1, ?)",
+                UUID.randomUUID(), cartridge, location, deletedUserId, archivedMonth.atDay(20).atTime(12, 0));
+        
+        cartridgeService.deleteCartridge(cartridge);
+        locationService.deleteLocation(location);
+        userService.deleteUser(deletedUserId);
+        
+        assertFalse(cartridgeRepository.existsById(cartridge));
+        assertFalse(locationRepository.existsById(location));
+        assertFalse(userRepository.existsById(deletedUserId));
+        assertTrue(userRepository.existsById(userId));
+        assertTrue(locationRepository.existsById(locationId));
+    }
+    
+    private UUID createCartridge(String serialNumber) {
+        Cartridge cartridge = new Cartridge();
+        cartridge.setModel("HP CF259A");
+        cartridge.setSerialNumber(serialNumber);
+        return cartridgeRepository.save(cartridge).getId();
+    }
+    
+    private CreateOperationRequest issue(UUID cartridge) {
+        CreateOperationRequest request = new CreateOperationRequest();
+        request.setCartridgeId(cartridge);
+        request.setCount(1);
+        request.setType(OperationType.ISSUE);
+        request.setLocationId(locationId);
+        return request;
+    }
+}
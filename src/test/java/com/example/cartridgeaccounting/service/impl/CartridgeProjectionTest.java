@@ -0,0 +1,217 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.PostgresTestDatabase;
+import com.example.cartridgeaccounting.TestFixtures;
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.ProjectionRebuildResultDto;
+import com.example.cartridgeaccounting.entity.Cartridge;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.repository.UserRepository;
+import com.example.cartridgeaccounting.service.CartridgeProjectionService;
+import com.example.cartridgeaccounting.service.OperationService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Проверка проекции состояния картриджей в режиме журнала на PostgreSQL.
+ * Операции записываются в журнал, состояние картриджей обновляют асинхронные
+ * обработчики и полное восстановление по журналу; после завершения записи состояние
+ * каждого картриджа должно совпадать с последней операцией его журнала.
+ */
+@SpringBootTest(properties = {
+        "app.operations.event-sourced=true",
+        "app.operations.projection.replay-partitions=4",
+        "app.operations.projection.catch-up-interval=PT1H"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CartridgeProjectionTest {
+    
+    private static final String USERNAME = "projection";
+    
+    /**
+     * Последняя операция каждого картриджа в порядке журнала
+     */
+    private static final String LAST_OPERATIONS = "SELECT DISTINCT ON (cartridge_id) cartridge_id, id, type, location_id " +
+            "FROM operations ORDER BY cartridge_id, operation_date DESC, id DESC";
+    
+    private static final String SNAPSHOTS = "SELECT id, status, current_location_id, state_operation_date, state_operation_id " +
+            "FROM cartridges ORDER BY id";
+    
+    @Autowired
+    private OperationService operationService;
+    
+    @Autowired
+    private CartridgeProjectionService projectionService;
+    
+    @Autowired
+    private CartridgeRepository cartridgeRepository;
+    
+    @Autowired
+    private LocationRepository locationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private UUID locationId;
+    
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry, "cartridge_projection");
+    }
+    
+    @BeforeAll
+    void createUserAndLocation() {
+        TestFixtures.createUser(userRepository, USERNAME);
+        locationId = TestFixtures.createLocation(locationRepository, "Объект проекции").getId();
+    }
+    
+    @Test
+    void asynchronousProjectionsApplyOperationsInJournalOrder() throws Exception {
+        List<UUID> cartridgeIds = createCartridges("ORDER-", 8);
+        
+        // Операции одного картриджа записываются подряд, их проекции выполняются параллельно
+        runWriters(cartridgeIds, 25, () -> { });
+        awaitProjection();
+        
+        assertSnapshotsMatchJournal(cartridgeIds);
+    }
+    
+    @Test
+    void rebuildWhileWritesContinueConvergesToJournal() throws Exception {
+        List<UUID> cartridgeIds = createCartridges("REBUILD-", 12);
+        
+        List<ProjectionRebuildResultDto> rebuilds = new ArrayList<>();
+        runWriters(cartridgeIds, 30, () -> rebuilds.add(projectionService.rebuildAll()));
+        awaitProjection();
+        
+        assertTrue(rebuilds.size() > 0);
+        assertSnapshotsMatchJournal(cartridgeIds);
+    }
+    
+    @Test
+    void replayingTwiceGivesSameState() throws Exception {
+        List<UUID> cartridgeIds = createCartridges("REPLAY-", 6);
+        runWriters(cartridgeIds, 9, () -> { });
+        awaitProjection();
+        List<Map<String, Object>> projected = jdbcTemplate.queryForList(SNAPSHOTS);
+        
+        // Испорченный снимок восстанавливается по журналу
+        jdbcTemplate.update("UPDATE cartridges SET status = 'REFILLING', current_location_id = NULL, " +
+                "state_operation_date = NULL, state_operation_id = NULL WHERE id = ?", cartridgeIds.get(0));
+        
+        projectionService.rebuildAll();
+        List<Map<String, Object>> first = jdbcTemplate.queryForList(SNAPSHOTS);
+        projectionService.rebuildAll();
+        List<Map<String, Object>> second = jdbcTemplate.queryForList(SNAPSHOTS);
+        
+        assertEquals(projected, first);
+        assertEquals(first, second);
+        assertSnapshotsMatchJournal(cartridgeIds);
+    }
+    
+    private List<UUID> createCartridges(String prefix, int count) {
+        List<UUID> cartridgeIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Cartridge cartridge = new Cartridge();
+            cartridge.setModel("HP CF259A");
+            cartridge.setSerialNumber(prefix + i);
+            cartridgeIds.add(cartridgeRepository.save(cartridge).getId());
+        }
+        return cartridgeIds;
+    }
+    
+    /**
+     * Каждый картридж выдаётся и возвращается своим потоком; пока потоки пишут,
+     * основной поток повторяет действие
+     */
+    private void runWriters(List<UUID> cartridgeIds, int operationsPerCartridge, Runnable meanwhile) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(cartridgeIds.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for (UUID cartridgeId : cartridgeIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < operationsPerCartridge; i++) {
+                    boolean issue = i % 2 == 0;
+                    CreateOperationRequest request = new CreateOperationRequest();
+                    request.setCartridgeId(cartridgeId);
+                    request.setCount(1);
+                    request.setType(issue ? OperationType.ISSUE : OperationType.RETURN);
+                    request.setLocationId(issue ? locationId : null);
+                    operationService.createOperation(request, USERNAME);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        while (futures.stream().anyMatch(future -> !future.isDone())) {
+            meanwhile.run();
+            Thread.sleep(20);
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+    
+    private void awaitProjection() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            Integer behind = jdbcTemplate.queryForObject("SELECT count(*) FROM cartridges c WHERE EXISTS " +
+                    "(SELECT 1 FROM operations o WHERE o.cartridge_id = c.id AND (c.state_operation_date IS NULL " +
+                    "OR o.operation_date > c.state_operation_date " +
+                    "OR (o.operation_date = c.state_operation_date AND o.id > c.state_operation_id)))", Integer.class);
+            if (behind == 0) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Проекция не догнала журнал за 30 секунд");
+    }
+    
+    private void assertSnapshotsMatchJournal(List<UUID> cartridgeIds) {
+        Map<UUID, Map<String, Object>> lastOperations = new HashMap<>();
+        jdbcTemplate.queryForList(LAST_OPERATIONS)
+                .forEach(row -> lastOperations.put((UUID) row.get("cartridge_id"), row));
+        for (UUID cartridgeId : cartridgeIds) {
+            Map<String, Object> last = lastOperations.get(cartridgeId);
+            Map<String, Object> snapshot = jdbcTemplate.queryForMap(
+                    "SELECT status, current_location_id, state_operation_id FROM cartridges WHERE id = ?", cartridgeId);
+            boolean issued = OperationType.ISSUE.name().equals(last.get("type"));
+            
+            assertEquals(last.get("id"), snapshot.get("state_operation_id"),
+                    "Снимок картриджа " + cartridgeId + " должен стоять на последней операции журнала");
+            assertEquals(issued ? "IN_USE" : "IN_STOCK", snapshot.get("status"),
+                    "Статус картриджа " + cartridgeId + " не совпадает с последней операцией");
+            assertTrue(Objects.equals(last.get("location_id"), snapshot.get("current_location_id")),
+                    "Объект картриджа " + cartridgeId + " не совпадает с последней операцией");
+        }
+    }
+}
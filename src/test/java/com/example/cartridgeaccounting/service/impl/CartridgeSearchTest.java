@@ -0,0 +1,93 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.PostgresTestDatabase;
+import com.example.cartridgeaccounting.dto.CartridgeDto;
+import com.example.cartridgeaccounting.dto.CreateCartridgeRequest;
+import com.example.cartridgeaccounting.service.CartridgeService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка поиска картриджей по подстроке на PostgreSQL с pg_trgm.
+ * Результатов больше, чем помещается на страницу, поэтому Spring Data выполняет
+ * и запрос страницы, и запрос количества строк.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CartridgeSearchTest {
+    
+    private static final int HP_CARTRIDGES = 25;
+    
+    @Autowired
+    private CartridgeService cartridgeService;
+    
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry, "cartridge_search");
+    }
+    
+    @BeforeAll
+    void createCartridges() {
+        for (int i = 0; i < HP_CARTRIDGES; i++) {
+            cartridgeService.createCartridge(request("HP 85A", "SRCH-" + i));
+        }
+        for (int i = 0; i < 5; i++) {
+            cartridgeService.createCartridge(request("Canon 725", "CN-" + i));
+        }
+    }
+    
+    @Test
+    void modelSearchReturnsFullPagesAndTotal() {
+        Page<CartridgeDto> first = cartridgeService.searchCartridges("hp", null, PageRequest.of(0, 10));
+        Page<CartridgeDto> second = cartridgeService.searchCartridges("hp", null, PageRequest.of(1, 10));
+        Page<CartridgeDto> last = cartridgeService.searchCartridges("hp", null, PageRequest.of(2, 10));
+        
+        assertEquals(10, first.getContent().size());
+        assertEquals(10, second.getContent().size());
+        assertEquals(5, last.getContent().size());
+        assertEquals(HP_CARTRIDGES, first.getTotalElements());
+        assertEquals(3, first.getTotalPages());
+        
+        Set<String> serialNumbers = new HashSet<>();
+        for (Page<CartridgeDto> page : List.of(first, second, last)) {
+            page.getContent().forEach(cartridge -> {
+                assertEquals("HP 85A", cartridge.getModel());
+                serialNumbers.add(cartridge.getSerialNumber());
+            });
+        }
+        assertEquals(HP_CARTRIDGES, serialNumbers.size());
+    }
+    
+    @Test
+    void serialNumberSearchRanksClosestMatchFirst() {
+        // SRCH-1 и SRCH-10 … SRCH-19
+        Page<CartridgeDto> page = cartridgeService.searchCartridges(null, "srch-1", PageRequest.of(0, 10));
+        
+        assertEquals(10, page.getContent().size());
+        assertEquals(11, page.getTotalElements());
+        assertEquals("SRCH-1", page.getContent().get(0).getSerialNumber());
+        assertTrue(page.getContent().stream().allMatch(cartridge -> cartridge.getSerialNumber().startsWith("SRCH-1")));
+    }
+    
+    private static CreateCartridgeRequest request(String model, String serialNumber) {
+        CreateCartridgeRequest request = new CreateCartridgeRequest();
+        request.setModel(model);
+        request.setSerialNumber(serialNumber);
+        request.setResourcePages(1500);
+        return request;
+    }
+}
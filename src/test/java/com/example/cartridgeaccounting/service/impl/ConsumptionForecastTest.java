@@ -0,0 +1,274 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.PostgresTestDatabase;
+import com.example.cartridgeaccounting.TestFixtures;
+import com.example.cartridgeaccounting.dto.ConsumptionForecastDto;
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.OperationDto;
+import com.example.cartridgeaccounting.entity.Cartridge;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.repository.UserRepository;
+import com.example.cartridgeaccounting.service.ConsumptionForecastService;
+import com.example.cartridgeaccounting.service.OperationService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка прогноза расхода на PostgreSQL при холодном старте.
+ * По единственной выдаче новой пары "объект × модель" расход и дозаказ не рассчитываются,
+ * а по истории за несколько недель оценка соответствует фактическому темпу выдач.
+ * Операция, зафиксированная во время пересчёта, учитывается, даже если её дата раньше
+ * начала пересчёта.
+ */
+@SpringBootTest(properties = {
+        "app.forecast.min-history=P14D",
+        "app.forecast.min-issues=3"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConsumptionForecastTest {
+    
+    private static final String USERNAME = "forecast";
+    
+    @Autowired
+    private ConsumptionForecastService forecastService;
+    
+    @Autowired
+    private OperationService operationService;
+    
+    @Autowired
+    private CartridgeRepository cartridgeRepository;
+    
+    @Autowired
+    private LocationRepository locationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private UUID userId;
+    
+    /**
+     * Пауза пересчёта после получения снимка журнала: [прочитано, продолжить] (null — без паузы)
+     */
+    private static volatile CountDownLatch[] scanPause;
+    
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry, "consumption_forecast");
+    }
+    
+    @BeforeAll
+    void createUser() {
+        userId = TestFixtures.createUser(userRepository, USERNAME).getId();
+    }
+    
+    @Test
+    void singleIssueOfNewPairGivesNoRateOrRecommendation() {
+        UUID locationId = createLocation("Новый объект");
+        UUID cartridgeId = createCartridge("HP CE285A", "COLD-1");
+        
+        CreateOperationRequest request = new CreateOperationRequest();
+        request.setCartridgeId(cartridgeId);
+        request.setCount(1);
+        request.setType(OperationType.ISSUE);
+        request.setLocationId(locationId);
+        operationService.createOperation(request, USERNAME);
+        
+        List<ConsumptionForecastDto> forecast = forecastService.getForecast(locationId, false);
+        assertEquals(1, forecast.size());
+        ConsumptionForecastDto dto = forecast.get(0);
+        assertTrue(dto.isInsufficientHistory());
+        assertEquals(0, dto.getIssuesPerDay());
+        assertNull(dto.getDaysOfCover());
+        assertEquals(0, dto.getReorderPoint());
+        assertFalse(dto.isReorderNeeded());
+        assertEquals(0, dto.getRecommendedQuantity());
+        
+        assertTrue(forecastService.getForecast(locationId, true).isEmpty());
+    }
+    
+    @Test
+    void establishedHistoryGivesRateOfActualIssues() {
+        UUID locationId = createLocation("Объект с историей");
+        UUID cartridgeId = createCartridge("Canon 728", "WARM-1");
+        
+        // Десять выдач раз в шесть дней: около 0,17 картриджа в сутки
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 10; i >= 1; i--) {
+            jdbcTemplate.update("INSERT INTO operations (id, type, count, cartridge_id, location_id, performed_by, " +
+                            "operation_date) VALUES (?, 'ISSUE', 1, ?, ?, ?, ?)",
+                    UUID.randomUUID(), cartridgeId, locationId, userId, now.minusDays(6L * i));
+        }
+        forecastService.rebuild();
+        
+        List<ConsumptionForecastDto> forecast = forecastService.getForecast(locationId, false);
+        assertEquals(1, forecast.size());
+        ConsumptionForecastDto dto = forecast.get(0);
+        assertFalse(dto.isInsufficientHistory());
+        assertTrue(dto.getIssuesPerDay() > 0.1 && dto.getIssuesPerDay() < 0.3,
+                "Расход " + dto.getIssuesPerDay() + " не соответствует темпу выдач");
+        // Запаса нет: дозаказ на срок поставки, страховой запас и период между заказами (51 сутки)
+        assertTrue(dto.isReorderNeeded());
+        assertTrue(dto.getRecommendedQuantity() >= 6 && dto.getRecommendedQuantity() <= 15,
+                "Рекомендация " + dto.getRecommendedQuantity() + " не соответствует расходу");
+    }
+    
+    @Test
+    void operationCommittedDuringRebuildIsCounted() throws Exception {
+        UUID locationId = createLocation("Объект с выдачей во время пересчёта");
+        UUID cartridgeId = createCartridge("Kyocera TK-1170", "RACE-1");
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 10; i >= 1; i--) {
+            jdbcTemplate.update("INSERT INTO operations (id, type, count, cartridge_id, location_id, performed_by, " +
+                            "operation_date) VALUES (?, 'ISSUE', 1, ?, ?, ?, ?)",
+                    UUID.randomUUID(), cartridgeId, locationId, userId, now.minusDays(6L * i));
+        }
+        
+        // Выдача получает дату до начала пересчёта, а фиксируется после того, как пересчёт прочитал журнал
+        CountDownLatch created = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CompletableFuture<OperationDto> issue = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            CreateOperationRequest request = new CreateOperationRequest();
+            request.setCartridgeId(cartridgeId);
+            request.setCount(1);
+            request.setType(OperationType.ISSUE);
+            request.setLocationId(locationId);
+            OperationDto operation = operationService.createOperation(request, USERNAME);
+            created.countDown();
+            await(commit);
+            return operation;
+        }));
+        assertTrue(created.await(10, TimeUnit.SECONDS));
+        
+        CountDownLatch scanned = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        scanPause = new CountDownLatch[]{scanned, resume};
+        try {
+            CompletableFuture<Void> rebuild = CompletableFuture.runAsync(forecastService::rebuild);
+            assertTrue(scanned.await(10, TimeUnit.SECONDS));
+            commit.countDown();
+            OperationDto operation = issue.get(10, TimeUnit.SECONDS);
+            resume.countDown();
+            rebuild.get(10, TimeUnit.SECONDS);
+            
+            ConsumptionForecastDto dto = forecastService.getForecast(locationId, false).get(0);
+            assertEquals(operation.getOperationDate().withNano(0), dto.getLastOperationDate().withNano(0));
+        } finally {
+            scanPause = null;
+            resume.countDown();
+        }
+    }
+    
+    private UUID createLocation(String name) {
+        return TestFixtures.createLocation(locationRepository, name).getId();
+    }
+    
+    private UUID createCartridge(String model, String serialNumber) {
+        Cartridge cartridge = new Cartridge();
+        cartridge.setModel(model);
+        cartridge.setSerialNumber(serialNumber);
+        return cartridgeRepository.save(cartridge).getId();
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Ожидание превысило 10 секунд");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Оборачивает источник данных приложения: когда задана пауза, пересчёт после выполнения
+     * запроса к журналу (снимок уже получен) ждёт, пока тест не разрешит продолжить чтение
+     */
+    @TestConfiguration
+    static class ScanPauseConfig {
+        
+        @Bean
+        static BeanPostProcessor pausingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(DataSource.class, dataSource) : bean;
+                }
+            };
+        }
+        
+        private static <T> T proxy(Class<T> type, T target) {
+            return type.cast(Proxy.newProxyInstance(ConsumptionForecastTest.class.getClassLoader(), new Class<?>[]{type},
+                    (instance, method, args) -> {
+                        Object result = invoke(method, target, args);
+                        if (result instanceof Connection connection && method.getName().equals("getConnection")) {
+                            return proxy(Connection.class, connection);
+                        }
+                        if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")
+                                && ((String) args[0]).startsWith("SELECT o.location_id, c.model")) {
+                            return pausing(statement);
+                        }
+                        return result;
+                    }));
+        }
+        
+        private static PreparedStatement pausing(PreparedStatement target) {
+            return (PreparedStatement) Proxy.newProxyInstance(ConsumptionForecastTest.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (instance, method, args) -> {
+                        Object result = invoke(method, target, args);
+                        CountDownLatch[] pause = scanPause;
+                        if (method.getName().equals("executeQuery") && pause != null) {
+                            pause[0].countDown();
+                            await(pause[1]);
+                        }
+                        return result;
+                    });
+        }
+        
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
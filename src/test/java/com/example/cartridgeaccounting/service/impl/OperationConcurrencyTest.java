@@ -0,0 +1,146 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.TestFixtures;
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.entity.Cartridge;
+import com.example.cartridgeaccounting.entity.Operation;
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.exception.InvalidOperationException;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import com.example.cartridgeaccounting.repository.OperationRepository;
+import com.example.cartridgeaccounting.repository.UserRepository;
+import com.example.cartridgeaccounting.service.OperationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочная проверка конкурентных переходов статусов картриджа.
+ * 64 потока одновременно выдают и возвращают небольшой набор картриджей; ни один
+ * успешно подтверждённый переход не должен потеряться, а журнал каждого картриджа
+ * должен оставаться чередованием выдач и возвратов.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrency;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.operations.retry.max-attempts=5"
+})
+class OperationConcurrencyTest {
+    
+    private static final int WRITERS = 64;
+    private static final int ATTEMPTS_PER_WRITER = 25;
+    private static final int CARTRIDGES = 4;
+    private static final String USERNAME = "concurrency";
+    
+    @Autowired
+    private OperationService operationService;
+    
+    @Autowired
+    private CartridgeRepository cartridgeRepository;
+    
+    @Autowired
+    private LocationRepository locationRepository;
+    
+    @Autowired
+    private OperationRepository operationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void parallelWritersDoNotLoseTransitions() throws Exception {
+        TestFixtures.createUser(userRepository, USERNAME);
+        UUID locationId = TestFixtures.createLocation(locationRepository, "Объект").getId();
+        
+        List<UUID> cartridgeIds = new ArrayList<>();
+        for (int i = 0; i < CARTRIDGES; i++) {
+            Cartridge cartridge = new Cartridge();
+            cartridge.setModel("HP CF259A");
+            cartridge.setSerialNumber("CONC-" + i);
+            cartridgeIds.add(cartridgeRepository.save(cartridge).getId());
+        }
+        
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_WRITER; i++) {
+                    UUID cartridgeId = cartridgeIds.get(ThreadLocalRandom.current().nextInt(CARTRIDGES));
+                    boolean issue = ThreadLocalRandom.current().nextBoolean();
+                    CreateOperationRequest request = new CreateOperationRequest();
+                    request.setCartridgeId(cartridgeId);
+                    request.setCount(1);
+                    request.setType(issue ? OperationType.ISSUE : OperationType.RETURN);
+                    request.setLocationId(issue ? locationId : null);
+                    try {
+                        operationService.createOperation(request, USERNAME);
+                        succeeded.incrementAndGet();
+                    } catch (InvalidOperationException ex) {
+                        // Переход недопустим для текущего статуса — ожидаемый отказ
+                    } catch (OptimisticLockingFailureException ex) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        
+        List<Operation> operations = operationRepository.findAll();
+        assertEquals(succeeded.get(), operations.size(), "Каждая подтверждённая операция должна быть в журнале");
+        assertTrue(succeeded.get() > 0);
+        
+        for (UUID cartridgeId : cartridgeIds) {
+            List<Operation> journal = operations.stream()
+                    .filter(operation -> operation.getCartridge().getId().equals(cartridgeId))
+                    .sorted(Comparator.comparing(Operation::getOperationDate))
+                    .toList();
+            long issues = journal.stream().filter(operation -> operation.getType() == OperationType.ISSUE).count();
+            long returns = journal.size() - issues;
+            Cartridge cartridge = cartridgeRepository.findById(cartridgeId).orElseThrow();
+            
+            long expectedDifference = cartridge.getStatus() == CartridgeStatus.IN_USE ? 1 : 0;
+            assertEquals(expectedDifference, issues - returns,
+                    "Баланс выдач и возвратов картриджа " + cartridgeId + " не сходится со статусом");
+            assertEquals(journal.size(), cartridge.getVersion(),
+                    "Каждый переход картриджа " + cartridgeId + " должен увеличивать версию ровно один раз");
+            for (int i = 1; i < journal.size(); i++) {
+                assertNotEquals(journal.get(i - 1).getType(), journal.get(i).getType(),
+                        "Два одинаковых перехода подряд у картриджа " + cartridgeId);
+            }
+        }
+    }
+}
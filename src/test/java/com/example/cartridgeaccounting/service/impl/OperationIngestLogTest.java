@@ -0,0 +1,123 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка локального журнала асинхронной очереди: подтверждённые операции
+ * переживают перезапуск в порядке приёма, записанные в базу не повторяются,
+ * а оборванная при остановке строка пропускается.
+ */
+class OperationIngestLogTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    
+    @TempDir
+    private Path directory;
+    
+    @Test
+    void appendedOperationsSurviveRestartInOrder() throws IOException {
+        OperationIngestLog log = open(1024 * 1024);
+        assertTrue(log.open().isEmpty());
+        List<OperationIngestLog.Record> records = List.of(record(), record(), record());
+        long position = 0;
+        for (OperationIngestLog.Record record : records) {
+            position = log.append(record).position();
+        }
+        log.sync(position);
+        log.close();
+        
+        List<OperationIngestLog.Entry> restored = open(1024 * 1024).open();
+        
+        assertEquals(records, restored.stream().map(OperationIngestLog.Entry::record).toList());
+    }
+    
+    @Test
+    void completedSegmentsAreDeletedAndNotReplayed() throws IOException {
+        // Каждая операция попадает в отдельный сегмент
+        OperationIngestLog log = open(1);
+        log.open();
+        OperationIngestLog.Entry first = log.append(record());
+        OperationIngestLog.Entry second = log.append(record());
+        OperationIngestLog.Entry third = log.append(record());
+        log.sync(third.position());
+        
+        log.complete(first.segment());
+        log.complete(second.segment());
+        log.close();
+        
+        assertEquals(1, segmentFiles());
+        List<OperationIngestLog.Entry> restored = open(1).open();
+        assertEquals(List.of(third.record()), restored.stream().map(OperationIngestLog.Entry::record).toList());
+    }
+    
+    @Test
+    void restoredOperationsAreCompletedAfterRestart() throws IOException {
+        OperationIngestLog log = open(1024 * 1024);
+        log.open();
+        log.sync(log.append(record()).position());
+        log.close();
+        
+        OperationIngestLog restarted = open(1024 * 1024);
+        List<OperationIngestLog.Entry> restored = restarted.open();
+        assertEquals(1, restored.size());
+        restarted.complete(restored.get(0).segment());
+        restarted.close();
+        
+        assertEquals(0, segmentFiles());
+        assertTrue(open(1024 * 1024).open().isEmpty());
+    }
+    
+    @Test
+    void tornLastLineIsSkipped() throws IOException {
+        OperationIngestLog log = open(1024 * 1024);
+        log.open();
+        OperationIngestLog.Record record = record();
+        log.sync(log.append(record).position());
+        log.close();
+        
+        // Процесс остановился посреди записи следующей строки
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.findFirst().orElseThrow();
+            Files.writeString(segment, "{\"ticketId\":\"" + UUID.randomUUID() + "\",\"usern",
+                    StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+        
+        List<OperationIngestLog.Entry> restored = open(1024 * 1024).open();
+        assertEquals(List.of(record), restored.stream().map(OperationIngestLog.Entry::record).toList());
+    }
+    
+    private OperationIngestLog open(long segmentSize) {
+        return new OperationIngestLog(directory, segmentSize, true, objectMapper);
+    }
+    
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+    
+    private static OperationIngestLog.Record record() {
+        CreateOperationRequest request = new CreateOperationRequest();
+        request.setCartridgeId(UUID.randomUUID());
+        request.setCount(1);
+        request.setType(OperationType.RECEIPT);
+        return new OperationIngestLog.Record(UUID.randomUUID(), "ingest", LocalDateTime.now().withNano(0), request);
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.dto.CreateOperationRequest;
+import com.example.cartridgeaccounting.dto.IngestTicketDto;
+import com.example.cartridgeaccounting.dto.OperationBatchResultDto;
+import com.example.cartridgeaccounting.entity.enums.OperationType;
+import com.example.cartridgeaccounting.repository.OperationIngestTicketRepository;
+import com.example.cartridgeaccounting.service.OperationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка асинхронной очереди записи операций с журналом на диске.
+ * Операции, оставшиеся в журнале после аварийной остановки, записываются после запуска
+ * без повторов; операция, отклонение которой не удалось сохранить, освобождает место
+ * в очереди и не мешает записи остальных операций пакета.
+ */
+class OperationIngestServiceImplTest {
+    
+    private static final String USERNAME = "ingest";
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<OperationIngestServiceImpl> services = new ArrayList<>();
+    
+    @TempDir
+    private Path logDir;
+    
+    private OperationService operationService;
+    private OperationIngestTicketRepository ticketRepository;
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Билеты, сохранённые в таблицу результатов
+     */
+    private final List<Object[]> tickets = new CopyOnWriteArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        operationService = mock(OperationService.class);
+        ticketRepository = mock(OperationIngestTicketRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(operationService.createOperations(anyList(), anyString()))
+                .thenAnswer(invocation -> created(invocation.getArgument(0)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            tickets.addAll(rows);
+            return new int[rows.size()];
+        });
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        for (OperationIngestServiceImpl service : services) {
+            service.stop();
+        }
+    }
+    
+    @Test
+    void operationsLeftInLogAfterCrashAreWrittenOnceAfterRestart() throws Exception {
+        OperationIngestServiceImpl crashed = service(10);
+        IngestTicketDto processed = crashed.submit(request(), USERNAME);
+        IngestTicketDto first = crashed.submit(request(), USERNAME);
+        IngestTicketDto second = crashed.submit(request(), USERNAME);
+        // Результат первой операции зафиксирован, но процесс остановился до удаления сегмента
+        when(ticketRepository.findExistingIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return ids.contains(processed.getTicketId()) ? Set.of(processed.getTicketId()) : Set.of();
+        });
+        
+        OperationIngestServiceImpl restarted = service(10);
+        assertEquals(3, restarted.getStatus().getPending());
+        restarted.startWriter();
+        awaitEmpty(restarted);
+        
+        assertEquals(List.of(first.getTicketId(), second.getTicketId()), ticketIds());
+        assertEquals(0, restarted.getStatus().getLogBytes());
+        assertEquals(0, service(10).getStatus().getPending());
+    }
+    
+    @Test
+    void failedRejectionReleasesOperationAndRestOfBatchIsWritten() throws Exception {
+        OperationIngestServiceImpl service = service(3);
+        CreateOperationRequest invalidRequest = request();
+        IngestTicketDto invalid = service.submit(invalidRequest, USERNAME);
+        IngestTicketDto first = service.submit(request(), USERNAME);
+        IngestTicketDto second = service.submit(request(), USERNAME);
+        
+        // Операция недопустима, и её отклонение тоже не сохраняется
+        when(operationService.createOperations(anyList(), anyString())).thenAnswer(invocation -> {
+            List<CreateOperationRequest> requests = invocation.getArgument(0);
+            if (requests.stream().anyMatch(request -> request.getCartridgeId().equals(invalidRequest.getCartridgeId()))) {
+                throw new IllegalStateException("Недопустимая операция");
+            }
+            return created(requests);
+        });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            if (rows.get(0)[0].equals(invalid.getTicketId())) {
+                throw new DataIntegrityViolationException("Результат не сохранён");
+            }
+            tickets.addAll(rows);
+            return new int[rows.size()];
+        });
+        
+        service.startWriter();
+        awaitEmpty(service);
+        
+        assertEquals(List.of(first.getTicketId(), second.getTicketId()), ticketIds());
+        assertEquals(1, service.getStatus().getRejected());
+        // Место в очереди освобождено для всех трёх операций
+        for (int i = 0; i < 3; i++) {
+            service.submit(request(), USERNAME);
+        }
+    }
+    
+    @Test
+    void batchIsRetriedAfterUnexpectedError() throws Exception {
+        OperationIngestServiceImpl crashed = service(10);
+        IngestTicketDto first = crashed.submit(request(), USERNAME);
+        IngestTicketDto second = crashed.submit(request(), USERNAME);
+        AtomicBoolean failed = new AtomicBoolean();
+        when(ticketRepository.findExistingIds(anyCollection())).thenAnswer(invocation -> {
+            if (failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Ошибка чтения результатов");
+            }
+            return Set.of();
+        });
+        
+        OperationIngestServiceImpl restarted = service(10);
+        restarted.startWriter();
+        awaitEmpty(restarted);
+        
+        assertTrue(failed.get());
+        assertEquals(List.of(first.getTicketId(), second.getTicketId()), ticketIds());
+    }
+    
+    private OperationIngestServiceImpl service(int capacity) throws Exception {
+        OperationIngestServiceImpl service = new OperationIngestServiceImpl(operationService, ticketRepository,
+                jdbcTemplate, mock(PlatformTransactionManager.class), objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "capacity", capacity);
+        ReflectionTestUtils.setField(service, "logDir", logDir.toString());
+        ReflectionTestUtils.setField(service, "segmentSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(service, "fsync", true);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "shutdownTimeout", Duration.ofSeconds(5));
+        service.open();
+        services.add(service);
+        return service;
+    }
+    
+    private List<UUID> ticketIds() {
+        return tickets.stream().map(row -> (UUID) row[0]).toList();
+    }
+    
+    private static void awaitEmpty(OperationIngestServiceImpl service) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (service.getStatus().getPending() == 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("Очередь не опустела за 10 секунд");
+    }
+    
+    private static CreateOperationRequest request() {
+        CreateOperationRequest request = new CreateOperationRequest();
+        request.setCartridgeId(UUID.randomUUID());
+        request.setCount(1);
+        request.setType(OperationType.RECEIPT);
+        return request;
+    }
+    
+    private static OperationBatchResultDto created(List<CreateOperationRequest> requests) {
+        List<OperationBatchResultDto.ItemResult> items = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            items.add(new OperationBatchResultDto.ItemResult(i, requests.get(i).getCartridgeId(), true,
+                    UUID.randomUUID(), null));
+        }
+        return new OperationBatchResultDto(requests.size(), requests.size(), 0, items);
+    }
+}
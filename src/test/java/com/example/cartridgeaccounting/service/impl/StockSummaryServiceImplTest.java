@@ -0,0 +1,147 @@
+package com.example.cartridgeaccounting.service.impl;
+
+import com.example.cartridgeaccounting.entity.enums.CartridgeStatus;
+import com.example.cartridgeaccounting.event.CartridgeStatusChangedEvent;
+import com.example.cartridgeaccounting.repository.CartridgeRepository;
+import com.example.cartridgeaccounting.repository.LocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка сводки остатков при событиях, обработанных во время пересчёта.
+ * Событие, изменение которого уже попало в снимок пересчёта, не должно учитываться второй раз,
+ * а событие, которого в снимке ещё нет, не должно потеряться.
+ */
+class StockSummaryServiceImplTest {
+    
+    private static final UUID LOCATION = UUID.randomUUID();
+    
+    private CartridgeRepository cartridgeRepository;
+    private StockSummaryServiceImpl service;
+    
+    @BeforeEach
+    void setUp() {
+        cartridgeRepository = mock(CartridgeRepository.class);
+        service = new StockSummaryServiceImpl(cartridgeRepository, mock(LocationRepository.class),
+                mock(PlatformTransactionManager.class));
+    }
+    
+    @Test
+    void eventAlreadyInSnapshotIsNotCountedTwice() {
+        UUID cartridgeId = UUID.randomUUID();
+        CartridgeStatusChangedEvent issue = new CartridgeStatusChangedEvent(cartridgeId,
+                CartridgeStatus.IN_STOCK, null, CartridgeStatus.IN_USE, LOCATION);
+        // Транзакция выдачи зафиксирована до снимка, а её обработчик срабатывает во время пересчёта
+        when(cartridgeRepository.countGroupedByLocationAndStatus()).thenAnswer(invocation -> {
+            service.onCartridgeStatusChanged(issue);
+            return List.of(count(LOCATION, CartridgeStatus.IN_USE, 1));
+        });
+        when(cartridgeRepository.findStockStates(anyCollection()))
+                .thenReturn(List.of(state(cartridgeId, LOCATION, CartridgeStatus.IN_USE)));
+        
+        service.rebuild();
+        
+        assertEquals(1, service.getCount(LOCATION, CartridgeStatus.IN_USE));
+        assertEquals(0, service.getCount(CartridgeStatus.IN_STOCK));
+    }
+    
+    @Test
+    void eventMissingFromSnapshotIsApplied() {
+        UUID cartridgeId = UUID.randomUUID();
+        CartridgeStatusChangedEvent issue = new CartridgeStatusChangedEvent(cartridgeId,
+                CartridgeStatus.IN_STOCK, null, CartridgeStatus.IN_USE, LOCATION);
+        // Выдача зафиксирована после снимка: в снимке картридж ещё на складе
+        when(cartridgeRepository.countGroupedByLocationAndStatus()).thenAnswer(invocation -> {
+            service.onCartridgeStatusChanged(issue);
+            return List.of(count(null, CartridgeStatus.IN_STOCK, 1));
+        });
+        when(cartridgeRepository.findStockStates(anyCollection()))
+                .thenReturn(List.of(state(cartridgeId, null, CartridgeStatus.IN_STOCK)));
+        
+        service.rebuild();
+        
+        assertEquals(1, service.getCount(LOCATION, CartridgeStatus.IN_USE));
+        assertEquals(0, service.getCount(CartridgeStatus.IN_STOCK));
+    }
+    
+    @Test
+    void eventsAfterSnapshotStateAreAppliedInOrder() {
+        UUID cartridgeId = UUID.randomUUID();
+        CartridgeStatusChangedEvent issue = new CartridgeStatusChangedEvent(cartridgeId,
+                CartridgeStatus.IN_STOCK, null, CartridgeStatus.IN_USE, LOCATION);
+        CartridgeStatusChangedEvent returned = new CartridgeStatusChangedEvent(cartridgeId,
+                CartridgeStatus.IN_USE, LOCATION, CartridgeStatus.IN_STOCK, null);
+        // Снимок видит выдачу, но не возврат
+        when(cartridgeRepository.countGroupedByLocationAndStatus()).thenAnswer(invocation -> {
+            service.onCartridgeStatusChanged(issue);
+            service.onCartridgeStatusChanged(returned);
+            return List.of(count(LOCATION, CartridgeStatus.IN_USE, 1));
+        });
+        when(cartridgeRepository.findStockStates(anyCollection()))
+                .thenReturn(List.of(state(cartridgeId, LOCATION, CartridgeStatus.IN_USE)));
+        
+        service.rebuild();
+        
+        assertEquals(0, service.getCount(LOCATION, CartridgeStatus.IN_USE));
+        assertEquals(1, service.getCount(CartridgeStatus.IN_STOCK));
+    }
+    
+    @Test
+    void countsAreNeverNegative() {
+        when(cartridgeRepository.countGroupedByLocationAndStatus()).thenReturn(List.of());
+        service.rebuild();
+        
+        service.onCartridgeStatusChanged(new CartridgeStatusChangedEvent(UUID.randomUUID(),
+                CartridgeStatus.IN_USE, LOCATION, null, null));
+        
+        assertEquals(0, service.getCount(LOCATION, CartridgeStatus.IN_USE));
+        assertEquals(0, service.getCount(CartridgeStatus.IN_USE));
+    }
+    
+    private static CartridgeRepository.StockCount count(UUID locationId, CartridgeStatus status, long count) {
+        return new CartridgeRepository.StockCount() {
+            @Override
+            public UUID getLocationId() {
+                return locationId;
+            }
+            
+            @Override
+            public CartridgeStatus getStatus() {
+                return status;
+            }
+            
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+    
+    private static CartridgeRepository.StockState state(UUID id, UUID locationId, CartridgeStatus status) {
+        return new CartridgeRepository.StockState() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+            
+            @Override
+            public UUID getLocationId() {
+                return locationId;
+            }
+            
+            @Override
+            public CartridgeStatus getStatus() {
+                return status;
+            }
+        };
+    }
+}